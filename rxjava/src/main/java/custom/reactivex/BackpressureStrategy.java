@@ -31,6 +31,13 @@ public enum BackpressureStrategy {
      * Buffers <em>all</em> onNext values until the downstream consumes it.
      */
     BUFFER,
+    /**
+     * Buffers <em>all</em> onNext values until the downstream consumes it, like {@link #BUFFER}, but
+     * allows calling onNext and onNextBatch from multiple threads concurrently without
+     * {@link FlowableEmitter#serialize()}.
+     * <p>A batch of items is enqueued as a single unit, costing one enqueue and one drain attempt.
+     */
+    BUFFER_CONCURRENT,
     /**
      * Drops the most recent onNext value if the downstream can't keep up.
      */
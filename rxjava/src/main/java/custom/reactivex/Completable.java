@@ -12,6 +12,7 @@
  */
 package custom.reactivex;
 
+import java.util.Collection;
 import java.util.concurrent.*;
 
 import org.reactivestreams.Publisher;
@@ -495,6 +496,37 @@ public abstract class Completable implements CompletableSource {
         return merge0(sources, maxConcurrency, false);
     }
 
+    /**
+     * Returns a Completable instance that keeps subscriptions to a limited number of sources of the given
+     * collection at once and completes only when all source Completables complete or one of them emits an error.
+     * <p>
+     * Unlike {@link #merge(Iterable)} and {@link #merge(Publisher, int)}, only {@code maxConcurrency} inner
+     * observers are created, each subscribing to the next source of the collection once its current source
+     * completed, and the completions are counted with a single counter; this makes merging a large number
+     * of sources cost no per-source container entries. With {@code maxConcurrency} of 1, the sources are
+     * run one after the other, in the iteration order of the collection.
+     * <dl>
+     *  <dt><b>Scheduler:</b></dt>
+     *  <dd>{@code mergeAll} does not operate by default on a particular {@link Scheduler}.</dd>
+     * </dl>
+     * @param sources the collection of sources, copied when this method is called
+     * @param maxConcurrency the maximum number of concurrent subscriptions
+     * @return the new Completable instance
+     * @throws NullPointerException if sources is null
+     * @throws IllegalArgumentException if maxConcurrency is less than 1
+     */
+    @Experimental
+    @SchedulerSupport(SchedulerSupport.NONE)
+    public static Completable mergeAll(Collection<? extends CompletableSource> sources, int maxConcurrency) {
+        ObjectHelper.requireNonNull(sources, "sources is null");
+        ObjectHelper.verifyPositive(maxConcurrency, "maxConcurrency");
+        CompletableSource[] array = sources.toArray(new CompletableSource[sources.size()]);
+        if (array.length == 0) {
+            return complete();
+        }
+        return RxJavaPlugins.onAssembly(new CompletableMergeCollection(array, maxConcurrency));
+    }
+
     /**
      * Returns a Completable instance that keeps subscriptions to a limited number of sources at once and
      * completes only when all source Completables terminate in one way or another, combining any exceptions
@@ -18,6 +18,7 @@ import java.util.concurrent.*;
 import org.reactivestreams.*;
 
 import custom.reactivex.annotations.*;
+import custom.reactivex.collections.*;
 import custom.reactivex.disposables.Disposable;
 import custom.reactivex.exceptions.Exceptions;
 import custom.reactivex.flowables.*;
@@ -2195,6 +2196,69 @@ public abstract class Flowable<T> implements Publisher<T> {
         return interval(period, period, unit, scheduler);
     }
 
+    /**
+     * Returns a Flowable that emits a sequential number every specified interval of time, driven by a
+     * periodic task shared with all other {@code sharedInterval} subscribers of the same period.
+     * <p>
+     * Unlike {@link #interval(long, TimeUnit)}, which schedules a periodic task per subscriber, the
+     * subscribers here join a single periodic task and receive their own 0, 1, 2, ... sequence on its
+     * ticks, one after the other on the same thread. The first value is therefore emitted on the next
+     * shared tick, which may come sooner than {@code period} after subscribing.
+     * <dl>
+     *  <dt><b>Backpressure:</b></dt>
+     *  <dd>The operator signals a {@code MissingBackpressureException} to a subscriber that is not ready
+     *  to receive the next value; the other subscribers are not affected.</dd>
+     *  <dt><b>Scheduler:</b></dt>
+     *  <dd>{@code sharedInterval} operates by default on the {@code computation} {@link Scheduler}.</dd>
+     * </dl>
+     *
+     * @param period
+     *            the period size in time units (see below)
+     * @param unit
+     *            time units to use for the interval size
+     * @return a Flowable that emits a sequential number each time interval
+     */
+    @Experimental
+    @BackpressureSupport(BackpressureKind.ERROR)
+    @SchedulerSupport(SchedulerSupport.COMPUTATION)
+    public static Flowable<Long> sharedInterval(long period, TimeUnit unit) {
+        return sharedInterval(period, unit, Schedulers.computation());
+    }
+
+    /**
+     * Returns a Flowable that emits a sequential number every specified interval of time, driven by a
+     * periodic task on the specified Scheduler shared with all other {@code sharedInterval} subscribers
+     * of the same period and Scheduler.
+     * <p>
+     * Unlike {@link #interval(long, TimeUnit, Scheduler)}, which schedules a periodic task per subscriber, the
+     * subscribers here join a single periodic task and receive their own 0, 1, 2, ... sequence on its
+     * ticks, one after the other on the same thread. The first value is therefore emitted on the next
+     * shared tick, which may come sooner than {@code period} after subscribing.
+     * <dl>
+     *  <dt><b>Backpressure:</b></dt>
+     *  <dd>The operator signals a {@code MissingBackpressureException} to a subscriber that is not ready
+     *  to receive the next value; the other subscribers are not affected.</dd>
+     *  <dt><b>Scheduler:</b></dt>
+     *  <dd>You specify which {@link Scheduler} this operator will use</dd>
+     * </dl>
+     *
+     * @param period
+     *            the period size in time units (see below)
+     * @param unit
+     *            time units to use for the interval size
+     * @param scheduler
+     *            the Scheduler to use for scheduling the shared periodic task
+     * @return a Flowable that emits a sequential number each time interval
+     */
+    @Experimental
+    @BackpressureSupport(BackpressureKind.ERROR)
+    @SchedulerSupport(SchedulerSupport.CUSTOM)
+    public static Flowable<Long> sharedInterval(long period, TimeUnit unit, Scheduler scheduler) {
+        ObjectHelper.requireNonNull(unit, "unit is null");
+        ObjectHelper.requireNonNull(scheduler, "scheduler is null");
+        return RxJavaPlugins.onAssembly(new FlowableSharedInterval(Math.max(0L, period), unit, scheduler));
+    }
+
     /**
      * Signals a range of long values, the first after some initial delay and the rest periodically after.
      * <p>
@@ -4884,6 +4948,93 @@ public abstract class Flowable<T> implements Publisher<T> {
         return RxJavaPlugins.onAssembly(new FlowableZip<T, R>(null, sources, zipper, bufferSize, delayError));
     }
 
+    /**
+     * Returns a Flowable that zips the items of the source Publishers in batches of rows: up to
+     * {@code batchSize} items are taken from each source at once and handed to the {@code zipper}
+     * as one array per source (a column), and the results the zipper returns for the batch
+     * are emitted in order.
+     * <p>
+     * The zipper receives an {@code Object[][]} whose {@code i}th element holds the items of the
+     * {@code i}th source; all of these arrays have the same length (the number of rows in the batch),
+     * which is between 1 and {@code batchSize}. The arrays are not reused by the operator.
+     * Compared to {@link #zipIterable(Iterable, Function, boolean, int)}, this avoids allocating
+     * an {@code Object[]} and calling the zipper per row, which matters for wide, columnar joins.
+     * <p>
+     * Like {@code zip}, the sequence completes as soon as one of the sources has run out of items.
+     * <dl>
+     *  <dt><b>Backpressure:</b><dt>
+     *  <dd>The operator expects backpressure from the sources and honors backpressure from the downstream.
+     *  A new batch is formed only when the downstream has outstanding requests.</dd>
+     *  <dt><b>Scheduler:</b></dt>
+     *  <dd>{@code zipBatched} does not operate by default on a particular {@link Scheduler}.</dd>
+     * </dl>
+     *
+     * @param <T> the common source value type
+     * @param <R> the result type
+     * @param sources
+     *            an Iterable of source Publishers
+     * @param batchSize
+     *            the maximum number of rows handed to the zipper at once
+     * @param zipper
+     *            a function that receives the columns of a batch and returns the results of its rows
+     * @return a Flowable that emits the zipped results
+     * @see <a href="http://reactivex.io/documentation/operators/zip.html">ReactiveX operators documentation: Zip</a>
+     */
+    @Experimental
+    @BackpressureSupport(BackpressureKind.FULL)
+    @SchedulerSupport(SchedulerSupport.NONE)
+    public static <T, R> Flowable<R> zipBatched(Iterable<? extends Publisher<? extends T>> sources, int batchSize,
+            Function<? super Object[][], ? extends Iterable<? extends R>> zipper) {
+        return zipBatched(sources, batchSize, zipper, false, bufferSize());
+    }
+
+    /**
+     * Returns a Flowable that zips the items of the source Publishers in batches of rows: up to
+     * {@code batchSize} items are taken from each source at once and handed to the {@code zipper}
+     * as one array per source (a column), and the results the zipper returns for the batch
+     * are emitted in order.
+     * <p>
+     * The zipper receives an {@code Object[][]} whose {@code i}th element holds the items of the
+     * {@code i}th source; all of these arrays have the same length (the number of rows in the batch),
+     * which is between 1 and {@code batchSize}. The arrays are not reused by the operator.
+     * <p>
+     * Like {@code zip}, the sequence completes as soon as one of the sources has run out of items.
+     * <dl>
+     *  <dt><b>Backpressure:</b><dt>
+     *  <dd>The operator expects backpressure from the sources and honors backpressure from the downstream.
+     *  A new batch is formed only when the downstream has outstanding requests.</dd>
+     *  <dt><b>Scheduler:</b></dt>
+     *  <dd>{@code zipBatched} does not operate by default on a particular {@link Scheduler}.</dd>
+     * </dl>
+     *
+     * @param <T> the common source value type
+     * @param <R> the result type
+     * @param sources
+     *            an Iterable of source Publishers
+     * @param batchSize
+     *            the maximum number of rows handed to the zipper at once
+     * @param zipper
+     *            a function that receives the columns of a batch and returns the results of its rows
+     * @param delayError
+     *            delay errors signalled by any of the source Publisher until all Publishers terminate
+     * @param bufferSize
+     *            the number of elements to prefetch from each source Publisher, at least {@code batchSize}
+     *            elements are prefetched
+     * @return a Flowable that emits the zipped results
+     * @see <a href="http://reactivex.io/documentation/operators/zip.html">ReactiveX operators documentation: Zip</a>
+     */
+    @Experimental
+    @BackpressureSupport(BackpressureKind.FULL)
+    @SchedulerSupport(SchedulerSupport.NONE)
+    public static <T, R> Flowable<R> zipBatched(Iterable<? extends Publisher<? extends T>> sources, int batchSize,
+            Function<? super Object[][], ? extends Iterable<? extends R>> zipper, boolean delayError, int bufferSize) {
+        ObjectHelper.requireNonNull(sources, "sources is null");
+        ObjectHelper.verifyPositive(batchSize, "batchSize");
+        ObjectHelper.requireNonNull(zipper, "zipper is null");
+        ObjectHelper.verifyPositive(bufferSize, "bufferSize");
+        return RxJavaPlugins.onAssembly(new FlowableZipBatched<T, R>(sources, zipper, batchSize, bufferSize, delayError));
+    }
+
     // ***************************************************************************************************
     // Instance operators
     // ***************************************************************************************************
@@ -6297,6 +6448,87 @@ public abstract class Flowable<T> implements Publisher<T> {
         return collect(Functions.justCallable(initialItem), collector);
     }
 
+    /**
+     * Collects items emitted by the source Publisher into one mutable data structure per available
+     * processor in parallel on the {@link Schedulers#computation()} Scheduler and combines these
+     * partial data structures into the first one once the source completes.
+     * <p>
+     * The items are handed to the partial data structures round-robin in batches; each partial data structure
+     * is accessed by one thread at a time, therefore the {@code collector} doesn't have to be thread-safe.
+     * The order in which the items are collected is not preserved.
+     * <dl>
+     *  <dt><b>Backpressure:</b></dt>
+     *  <dd>The operator consumes the source {@code Publisher} in batches of {@link #bufferSize()} items,
+     *  keeping at most two batches per partial data structure in flight.</dd>
+     *  <dt><b>Scheduler:</b></dt>
+     *  <dd>{@code collectParallel} operates by default on the {@code computation} {@link Scheduler}.</dd>
+     * </dl>
+     *
+     * @param <U> the accumulator and output type
+     * @param initialItemSupplier
+     *           the supplier of the partial mutable data structures, called once per partial data structure
+     * @param collector
+     *           a function that accepts a partial data structure and an emitted item, and modifies the
+     *           data structure accordingly
+     * @param combiner
+     *           a function that merges the second partial data structure into the first one
+     * @return a Single that emits the result of collecting the values emitted by the source Publisher
+     *         into a single mutable data structure
+     * @see #collect(Callable, BiConsumer)
+     */
+    @Experimental
+    @BackpressureSupport(BackpressureKind.FULL)
+    @SchedulerSupport(SchedulerSupport.COMPUTATION)
+    public final <U> Single<U> collectParallel(Callable<? extends U> initialItemSupplier,
+            BiConsumer<? super U, ? super T> collector, BiConsumer<? super U, ? super U> combiner) {
+        return collectParallel(initialItemSupplier, collector, combiner, Runtime.getRuntime().availableProcessors(), Schedulers.computation());
+    }
+
+    /**
+     * Collects items emitted by the source Publisher into {@code parallelism} mutable data structures
+     * in parallel on the given {@link Scheduler} and combines these partial data structures into the
+     * first one once the source completes.
+     * <p>
+     * The items are handed to the partial data structures round-robin in batches; each partial data structure
+     * is accessed by one thread at a time, therefore the {@code collector} doesn't have to be thread-safe.
+     * The order in which the items are collected is not preserved.
+     * <dl>
+     *  <dt><b>Backpressure:</b></dt>
+     *  <dd>The operator consumes the source {@code Publisher} in batches of {@link #bufferSize()} items,
+     *  keeping at most two batches per partial data structure in flight.</dd>
+     *  <dt><b>Scheduler:</b></dt>
+     *  <dd>you specify which {@link Scheduler} this operator will use</dd>
+     * </dl>
+     *
+     * @param <U> the accumulator and output type
+     * @param initialItemSupplier
+     *           the supplier of the partial mutable data structures, called once per partial data structure
+     * @param collector
+     *           a function that accepts a partial data structure and an emitted item, and modifies the
+     *           data structure accordingly
+     * @param combiner
+     *           a function that merges the second partial data structure into the first one
+     * @param parallelism the number of partial data structures
+     * @param scheduler the Scheduler whose Workers update the partial data structures
+     * @return a Single that emits the result of collecting the values emitted by the source Publisher
+     *         into a single mutable data structure
+     * @see #collect(Callable, BiConsumer)
+     */
+    @Experimental
+    @BackpressureSupport(BackpressureKind.FULL)
+    @SchedulerSupport(SchedulerSupport.CUSTOM)
+    public final <U> Single<U> collectParallel(Callable<? extends U> initialItemSupplier,
+            BiConsumer<? super U, ? super T> collector, BiConsumer<? super U, ? super U> combiner,
+            int parallelism, Scheduler scheduler) {
+        ObjectHelper.requireNonNull(initialItemSupplier, "initialItemSupplier is null");
+        ObjectHelper.requireNonNull(collector, "collector is null");
+        ObjectHelper.requireNonNull(combiner, "combiner is null");
+        ObjectHelper.verifyPositive(parallelism, "parallelism");
+        ObjectHelper.requireNonNull(scheduler, "scheduler is null");
+        return RxJavaPlugins.onAssembly(new FlowableCollectParallel<T, U>(this, initialItemSupplier, collector, combiner,
+                parallelism, bufferSize(), scheduler));
+    }
+
     /**
      * Transform a Publisher by applying a particular Transformer function to it.
      * <p>
@@ -6591,6 +6823,75 @@ public abstract class Flowable<T> implements Publisher<T> {
         return RxJavaPlugins.onAssembly(new FlowableConcatMapEager<T, R>(this, mapper, maxConcurrency, prefetch, tillTheEnd ? ErrorMode.END : ErrorMode.BOUNDARY));
     }
 
+    /**
+     * Maps a sequence of values into Publishers and concatenates these Publishers eagerly into a single
+     * Publisher while keeping the total weight of the values buffered from them under the given budget.
+     * <p>
+     * Up to {@link #bufferSize()} Publishers are subscribed to at once. The Publisher whose values are currently
+     * relayed prefetches {@link #bufferSize()} values as with {@link #concatMapEager(Function)}; the subsequent ones
+     * request one value at a time, the earlier ones first, and only while the total weight of the buffered values
+     * is less than {@code maxBuffered}. The budget may be exceeded by at most the prefetch amount of the current
+     * Publisher plus one value per subsequent Publisher.
+     * <dl>
+     *  <dt><b>Backpressure:</b></dt>
+     *  <dd>Backpressure is honored towards the downstream and the inner Publishers are expected to honor
+     *  backpressure.</dd>
+     *  <dt><b>Scheduler:</b></dt>
+     *  <dd>This method does not operate by default on a particular {@link Scheduler}.</dd>
+     * </dl>
+     * @param <R> the value type
+     * @param mapper the function that maps a sequence of values into a sequence of Publishers that will be
+     *               eagerly concatenated
+     * @param maxBuffered the budget for the total weight of the buffered values, positive
+     * @param weigher the function that returns the weight of a value, for example its size in bytes
+     * @return the new Publisher instance with the specified concatenation behavior
+     */
+    @Experimental
+    @BackpressureSupport(BackpressureKind.FULL)
+    @SchedulerSupport(SchedulerSupport.NONE)
+    public final <R> Flowable<R> concatMapEagerBudgeted(Function<? super T, ? extends Publisher<? extends R>> mapper,
+            long maxBuffered, ToLongFunction<? super R> weigher) {
+        return concatMapEagerBudgeted(mapper, bufferSize(), bufferSize(), maxBuffered, weigher);
+    }
+
+    /**
+     * Maps a sequence of values into Publishers and concatenates these Publishers eagerly into a single
+     * Publisher while keeping the total weight of the values buffered from them under the given budget.
+     * <p>
+     * Up to {@code maxConcurrency} Publishers are subscribed to at once. The Publisher whose values are currently
+     * relayed prefetches {@code prefetch} values as with {@link #concatMapEager(Function, int, int)}; the subsequent
+     * ones request one value at a time, the earlier ones first, and only while the total weight of the buffered
+     * values is less than {@code maxBuffered}. The budget may be exceeded by at most the prefetch amount of the
+     * current Publisher plus one value per subsequent Publisher.
+     * <dl>
+     *  <dt><b>Backpressure:</b></dt>
+     *  <dd>Backpressure is honored towards the downstream and the inner Publishers are expected to honor
+     *  backpressure.</dd>
+     *  <dt><b>Scheduler:</b></dt>
+     *  <dd>This method does not operate by default on a particular {@link Scheduler}.</dd>
+     * </dl>
+     * @param <R> the value type
+     * @param mapper the function that maps a sequence of values into a sequence of Publishers that will be
+     *               eagerly concatenated
+     * @param maxConcurrency the maximum number of concurrent subscribed Publishers
+     * @param prefetch the number of values the current Publisher prefetches
+     * @param maxBuffered the budget for the total weight of the buffered values, positive
+     * @param weigher the function that returns the weight of a value, for example its size in bytes
+     * @return the new Publisher instance with the specified concatenation behavior
+     */
+    @Experimental
+    @BackpressureSupport(BackpressureKind.FULL)
+    @SchedulerSupport(SchedulerSupport.NONE)
+    public final <R> Flowable<R> concatMapEagerBudgeted(Function<? super T, ? extends Publisher<? extends R>> mapper,
+            int maxConcurrency, int prefetch, long maxBuffered, ToLongFunction<? super R> weigher) {
+        ObjectHelper.requireNonNull(mapper, "mapper is null");
+        ObjectHelper.verifyPositive(maxConcurrency, "maxConcurrency");
+        ObjectHelper.verifyPositive(prefetch, "prefetch");
+        ObjectHelper.verifyPositive(maxBuffered, "maxBuffered");
+        ObjectHelper.requireNonNull(weigher, "weigher is null");
+        return RxJavaPlugins.onAssembly(new FlowableConcatMapEagerBudgeted<T, R>(this, mapper, maxConcurrency, prefetch, maxBuffered, weigher));
+    }
+
     /**
      * Returns a Flowable that concatenate each item emitted by the source Publisher with the values in an
      * Iterable corresponding to that item that is generated by a selector.
@@ -7630,8 +7931,8 @@ public abstract class Flowable<T> implements Publisher<T> {
     @BackpressureSupport(BackpressureKind.PASS_THROUGH)
     @SchedulerSupport(SchedulerSupport.NONE)
     public final Flowable<T> doOnNext(Consumer<? super T> onNext) {
-        return doOnEach(onNext, Functions.emptyConsumer(),
-                Functions.EMPTY_ACTION, Functions.EMPTY_ACTION);
+        ObjectHelper.requireNonNull(onNext, "onNext is null");
+        return RxJavaPlugins.onAssembly(FlowableFusedChain.doOnNext(this, onNext));
     }
 
     /**
@@ -7831,7 +8132,7 @@ public abstract class Flowable<T> implements Publisher<T> {
     @SchedulerSupport(SchedulerSupport.NONE)
     public final Flowable<T> filter(Predicate<? super T> predicate) {
         ObjectHelper.requireNonNull(predicate, "predicate is null");
-        return RxJavaPlugins.onAssembly(new FlowableFilter<T>(this, predicate));
+        return RxJavaPlugins.onAssembly(FlowableFusedChain.filter(this, predicate));
     }
 
     /**
@@ -9266,7 +9567,7 @@ public abstract class Flowable<T> implements Publisher<T> {
     @SchedulerSupport(SchedulerSupport.NONE)
     public final <R> Flowable<R> map(Function<? super T, ? extends R> mapper) {
         ObjectHelper.requireNonNull(mapper, "mapper is null");
-        return RxJavaPlugins.onAssembly(new FlowableMap<T, R>(this, mapper));
+        return RxJavaPlugins.onAssembly(FlowableFusedChain.map(this, mapper));
     }
 
     /**
@@ -10146,6 +10447,88 @@ public abstract class Flowable<T> implements Publisher<T> {
         return observeOn(ImmediateThinScheduler.INSTANCE, true, n);
     }
 
+    /**
+     * Returns a Flowable that emits, at the end of every {@code window} long time window, the approximate values
+     * of the given quantiles over the items the source Publisher emitted during that window.
+     * <p>
+     * The items must be {@link Number}s; their {@link Number#doubleValue() double values} are recorded in a
+     * mergeable, logarithmically bucketed sketch with 1% relative accuracy, so the memory used depends on the
+     * range of the values and not on their number. The quantile values are emitted in the order of
+     * {@code quantiles}; they are NaN for windows without items. The current window is emitted when the source
+     * completes.
+     * <dl>
+     *  <dt><b>Backpressure:</b></dt>
+     *  <dd>The operator consumes the source {@code Publisher} in an unbounded manner and doesn't support
+     *  backpressure for its own results as they are emitted on a timely basis; if the downstream
+     *  hasn't requested, a {@code MissingBackpressureException} is signalled.</dd>
+     *  <dt><b>Scheduler:</b></dt>
+     *  <dd>{@code quantiles} operates by default on the {@code computation} {@link Scheduler}.</dd>
+     * </dl>
+     *
+     * @param quantiles the quantiles to compute, each in [0, 1], for example {@code 0.5, 0.99}
+     * @param window the length of the time windows
+     * @param unit the time unit of {@code window}
+     * @return a Flowable that emits the quantile values of each time window
+     */
+    @Experimental
+    @BackpressureSupport(BackpressureKind.ERROR)
+    @SchedulerSupport(SchedulerSupport.COMPUTATION)
+    public final Flowable<double[]> quantiles(double[] quantiles, long window, TimeUnit unit) {
+        return quantiles(quantiles, window, window, unit, Schedulers.computation());
+    }
+
+    /**
+     * Returns a Flowable that emits, every {@code slide} amount of time, the approximate values of the given
+     * quantiles over the items the source Publisher emitted during the last {@code window} amount of time.
+     * <p>
+     * The items must be {@link Number}s; their {@link Number#doubleValue() double values} are recorded in a
+     * mergeable, logarithmically bucketed sketch with 1% relative accuracy. Each item is recorded once, into the
+     * sketch of the current {@code slide} long pane, and the sketches of the panes making up the window are
+     * merged when the window is emitted, so the memory used is proportional to the number of panes and
+     * not to the number of items. {@code window} is rounded up to a multiple of {@code slide}.
+     * The quantile values are emitted in the order of {@code quantiles}; they are NaN for windows without items.
+     * The current window is emitted when the source completes.
+     * <dl>
+     *  <dt><b>Backpressure:</b></dt>
+     *  <dd>The operator consumes the source {@code Publisher} in an unbounded manner and doesn't support
+     *  backpressure for its own results as they are emitted on a timely basis; if the downstream
+     *  hasn't requested, a {@code MissingBackpressureException} is signalled.</dd>
+     *  <dt><b>Scheduler:</b></dt>
+     *  <dd>you specify which {@link Scheduler} this operator will use</dd>
+     * </dl>
+     *
+     * @param quantiles the quantiles to compute, each in [0, 1], for example {@code 0.5, 0.99}
+     * @param window the length of the time windows
+     * @param slide the time between the emissions, at most {@code window}
+     * @param unit the time unit of {@code window} and {@code slide}
+     * @param scheduler the Scheduler to use for timing the windows
+     * @return a Flowable that emits the quantile values of each time window
+     */
+    @Experimental
+    @BackpressureSupport(BackpressureKind.ERROR)
+    @SchedulerSupport(SchedulerSupport.CUSTOM)
+    public final Flowable<double[]> quantiles(double[] quantiles, long window, long slide, TimeUnit unit, Scheduler scheduler) {
+        ObjectHelper.requireNonNull(quantiles, "quantiles is null");
+        ObjectHelper.verifyPositive(slide, "slide");
+        ObjectHelper.requireNonNull(unit, "unit is null");
+        ObjectHelper.requireNonNull(scheduler, "scheduler is null");
+        if (window < slide) {
+            throw new IllegalArgumentException("window >= slide required but it was " + window + " < " + slide);
+        }
+        double[] qs = quantiles.clone();
+        for (double q : qs) {
+            if (!(q >= 0d && q <= 1d)) {
+                throw new IllegalArgumentException("quantiles in [0, 1] required but it was " + q);
+            }
+        }
+        long panes = (window + slide - 1) / slide;
+        if (panes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("window / slide too large: " + panes);
+        }
+        return RxJavaPlugins.onAssembly(new FlowableWindowedAggregate<T, QuantileSketch, double[]>(this, slide, unit, scheduler,
+                (int)panes, QuantileSketch.supplier(), QuantileSketch.numberAdder(), QuantileSketch.quantilesOf(qs)));
+    }
+
     /**
      * Returns a Maybe that applies a specified accumulator function to the first item emitted by a source
      * Publisher, then feeds the result of that function along with the second item emitted by the source
@@ -11880,6 +12263,89 @@ public abstract class Flowable<T> implements Publisher<T> {
         ObjectHelper.requireNonNull(predicate, "predicate is null");
         return RxJavaPlugins.onAssembly(new FlowableSkipWhile<T>(this, predicate));
     }
+
+    /**
+     * Returns a Flowable that emits, every {@code slide} amount of time, the result of the given
+     * {@link Aggregator} over the items the source Publisher emitted during the last {@code size} amount of time.
+     * <p>
+     * Unlike {@code window(size, slide, unit).flatMapSingle(...)}, no window is created and an item is not
+     * delivered to every overlapping window: each item is added to the accumulator of the current
+     * {@code slide} long pane only, and the accumulators of the panes making up the window are merged
+     * when the window is emitted. {@code size} is rounded up to a multiple of {@code slide}.
+     * The current window is emitted when the source completes.
+     * <dl>
+     *  <dt><b>Backpressure:</b></dt>
+     *  <dd>The operator consumes the source {@code Publisher} in an unbounded manner and doesn't support
+     *  backpressure for its own results as they are emitted on a timely basis; if the downstream
+     *  hasn't requested, a {@code MissingBackpressureException} is signalled.</dd>
+     *  <dt><b>Scheduler:</b></dt>
+     *  <dd>{@code slidingAggregate} operates by default on the {@code computation} {@link Scheduler}.</dd>
+     * </dl>
+     *
+     * @param <A> the accumulator type
+     * @param <R> the result type
+     * @param size the length of the time windows
+     * @param slide the time between the emissions, at most {@code size}
+     * @param unit the time unit of {@code size} and {@code slide}
+     * @param aggregator the aggregator creating, filling and merging the accumulators
+     * @return a Flowable that emits the aggregated result of each time window
+     */
+    @Experimental
+    @BackpressureSupport(BackpressureKind.ERROR)
+    @SchedulerSupport(SchedulerSupport.COMPUTATION)
+    public final <A, R> Flowable<R> slidingAggregate(long size, long slide, TimeUnit unit,
+            Aggregator<? super T, A, ? extends R> aggregator) {
+        return slidingAggregate(size, slide, unit, Schedulers.computation(), aggregator);
+    }
+
+    /**
+     * Returns a Flowable that emits, every {@code slide} amount of time, the result of the given
+     * {@link Aggregator} over the items the source Publisher emitted during the last {@code size} amount of time.
+     * <p>
+     * Unlike {@code window(size, slide, unit).flatMapSingle(...)}, no window is created and an item is not
+     * delivered to every overlapping window: each item is added to the accumulator of the current
+     * {@code slide} long pane only, and the accumulators of the panes making up the window are merged
+     * when the window is emitted. {@code size} is rounded up to a multiple of {@code slide}.
+     * The current window is emitted when the source completes.
+     * <dl>
+     *  <dt><b>Backpressure:</b></dt>
+     *  <dd>The operator consumes the source {@code Publisher} in an unbounded manner and doesn't support
+     *  backpressure for its own results as they are emitted on a timely basis; if the downstream
+     *  hasn't requested, a {@code MissingBackpressureException} is signalled.</dd>
+     *  <dt><b>Scheduler:</b></dt>
+     *  <dd>you specify which {@link Scheduler} this operator will use</dd>
+     * </dl>
+     *
+     * @param <A> the accumulator type
+     * @param <R> the result type
+     * @param size the length of the time windows
+     * @param slide the time between the emissions, at most {@code size}
+     * @param unit the time unit of {@code size} and {@code slide}
+     * @param scheduler the Scheduler to use for timing the windows
+     * @param aggregator the aggregator creating, filling and merging the accumulators
+     * @return a Flowable that emits the aggregated result of each time window
+     */
+    @Experimental
+    @BackpressureSupport(BackpressureKind.ERROR)
+    @SchedulerSupport(SchedulerSupport.CUSTOM)
+    public final <A, R> Flowable<R> slidingAggregate(long size, long slide, TimeUnit unit, Scheduler scheduler,
+            Aggregator<? super T, A, ? extends R> aggregator) {
+        ObjectHelper.verifyPositive(slide, "slide");
+        ObjectHelper.requireNonNull(unit, "unit is null");
+        ObjectHelper.requireNonNull(scheduler, "scheduler is null");
+        ObjectHelper.requireNonNull(aggregator, "aggregator is null");
+        if (size < slide) {
+            throw new IllegalArgumentException("size >= slide required but it was " + size + " < " + slide);
+        }
+        long panes = (size + slide - 1) / slide;
+        if (panes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("size / slide too large: " + panes);
+        }
+        return RxJavaPlugins.onAssembly(new FlowableWindowedAggregate<T, A, R>(this, slide, unit, scheduler, (int)panes,
+                Functions.aggregatorSupplier(aggregator), Functions.<T, A>aggregatorAdder(aggregator),
+                Functions.<A, R>aggregatorMergeResult(aggregator)));
+    }
+
     /**
      * Returns a Flowable that emits the events emitted by source Publisher, in a
      * sorted order. Each item emitted by the Publisher must implement {@link Comparable} with respect to all
@@ -11933,6 +12399,82 @@ public abstract class Flowable<T> implements Publisher<T> {
         return toList().toFlowable().map(Functions.listSorter(sortFunction)).flatMapIterable(Functions.<List<T>>identity());
     }
 
+    /**
+     * Returns a Flowable that emits the events emitted by source Publisher, in a
+     * sorted order based on a specified comparison function, using temporary files to
+     * sort sequences that don't fit into memory.
+     * <p>
+     * The source is consumed in runs of {@code runSize} items which are sorted in memory and
+     * written to temporary files via the given {@link Serializer}. Once the source completes,
+     * the runs are merged back and emitted. The sort is stable. The temporary files are deleted
+     * when the sequence terminates or gets cancelled.
+     *
+     * <dl>
+     *  <dt><b>Backpressure:</b></dt>
+     *  <dd>The operator honors backpressure from downstream and consumes the source {@code Publisher}
+     *  in chunks of {@code runSize} items.</dd>
+     *  <dt><b>Scheduler:</b></dt>
+     *  <dd>{@code sortedExternal} does not operate by default on a particular {@link Scheduler}.</dd>
+     * </dl>
+     *
+     * @param comparator
+     *            a function that compares two items emitted by the source Publisher and returns an Integer
+     *            that indicates their sort order
+     * @param runSize the number of items sorted in memory at once
+     * @param serializer the serializer used to write the sorted runs to the temporary files and read them back
+     * @return a Flowable that emits the items emitted by the source Publisher in sorted order
+     * @see #sorted(Comparator)
+     */
+    @Experimental
+    @BackpressureSupport(BackpressureKind.FULL)
+    @SchedulerSupport(SchedulerSupport.NONE)
+    public final Flowable<T> sortedExternal(Comparator<? super T> comparator, int runSize, Serializer<T> serializer) {
+        ObjectHelper.requireNonNull(comparator, "comparator is null");
+        ObjectHelper.verifyPositive(runSize, "runSize");
+        ObjectHelper.requireNonNull(serializer, "serializer is null");
+        return RxJavaPlugins.onAssembly(new FlowableSortedExternal<T>(this, comparator, runSize, serializer, null));
+    }
+
+    /**
+     * Returns a Flowable that emits the events emitted by source Publisher, in a
+     * sorted order based on a specified comparison function, using temporary files to
+     * sort sequences that don't fit into memory and sorting the runs in parallel on the
+     * given {@link Scheduler}.
+     * <p>
+     * The source is consumed in runs of {@code runSize} items which are sorted and written to
+     * temporary files via the given {@link Serializer} on the {@code scheduler}, up to the number
+     * of available processors at a time. Once the source completes and all runs are written,
+     * the runs are merged back and emitted. The sort is stable. The temporary files are deleted
+     * when the sequence terminates or gets cancelled.
+     *
+     * <dl>
+     *  <dt><b>Backpressure:</b></dt>
+     *  <dd>The operator honors backpressure from downstream and consumes the source {@code Publisher}
+     *  in chunks of {@code runSize} items.</dd>
+     *  <dt><b>Scheduler:</b></dt>
+     *  <dd>you specify which {@link Scheduler} this operator will use to sort the runs on</dd>
+     * </dl>
+     *
+     * @param comparator
+     *            a function that compares two items emitted by the source Publisher and returns an Integer
+     *            that indicates their sort order
+     * @param runSize the number of items sorted in memory at once
+     * @param serializer the serializer used to write the sorted runs to the temporary files and read them back
+     * @param scheduler the scheduler to sort and write the runs on, for example {@link Schedulers#computation()}
+     * @return a Flowable that emits the items emitted by the source Publisher in sorted order
+     * @see #sorted(Comparator)
+     */
+    @Experimental
+    @BackpressureSupport(BackpressureKind.FULL)
+    @SchedulerSupport(SchedulerSupport.CUSTOM)
+    public final Flowable<T> sortedExternal(Comparator<? super T> comparator, int runSize, Serializer<T> serializer, Scheduler scheduler) {
+        ObjectHelper.requireNonNull(comparator, "comparator is null");
+        ObjectHelper.verifyPositive(runSize, "runSize");
+        ObjectHelper.requireNonNull(serializer, "serializer is null");
+        ObjectHelper.requireNonNull(scheduler, "scheduler is null");
+        return RxJavaPlugins.onAssembly(new FlowableSortedExternal<T>(this, comparator, runSize, serializer, scheduler));
+    }
+
     /**
      * Returns a Flowable that emits the items in a specified {@link Iterable} before it begins to emit items
      * emitted by the source Publisher.
@@ -12478,6 +13020,126 @@ public abstract class Flowable<T> implements Publisher<T> {
         return RxJavaPlugins.onAssembly(new FlowableSwitchMap<T, R>(this, mapper, bufferSize, delayError));
     }
 
+    /**
+     * Maps the upstream items into {@link MaybeSource}s and switches (subscribes) to the newer ones
+     * while disposing the older ones (and ignoring their signals) and emits the latest success value
+     * of the current one if available while failing immediately if this {@code Flowable} or any of the
+     * active inner {@code MaybeSource}s fail.
+     * <p>
+     * Unlike {@link #switchMap(Function)}, no inner queue is allocated and no subscription
+     * arbitration takes place as each inner {@code MaybeSource} holds at most one value.
+     * <dl>
+     *  <dt><b>Backpressure:</b></dt>
+     *  <dd>The operator honors backpressure from downstream. The main {@code Publisher} is consumed in an
+     *  unbounded manner (i.e., without backpressure); the latest success value is kept until requested
+     *  and is replaced by the success value of a newer {@code %(K)sSource}.</dd>
+     *  <dt><b>Scheduler:</b></dt>
+     *  <dd>{@code switchMapMaybe} does not operate by default on a particular {@link Scheduler}.</dd>
+     * </dl>
+     * @param <R> the output value type
+     * @param mapper the function called with the current upstream item and should return
+     *               a {@code MaybeSource} to replace the current active inner source
+     *               and get subscribed to
+     * @return the new Flowable instance
+     */
+    @Experimental
+    @BackpressureSupport(BackpressureKind.FULL)
+    @SchedulerSupport(SchedulerSupport.NONE)
+    public final <R> Flowable<R> switchMapMaybe(Function<? super T, ? extends MaybeSource<? extends R>> mapper) {
+        ObjectHelper.requireNonNull(mapper, "mapper is null");
+        return RxJavaPlugins.onAssembly(new FlowableSwitchMapMaybe<T, R>(this, mapper, false));
+    }
+
+    /**
+     * Maps the upstream items into {@link MaybeSource}s and switches (subscribes) to the newer ones
+     * while disposing the older ones (and ignoring their signals) and emits the latest success value
+     * of the current one if available, delaying the errors of this {@code Flowable} and of the
+     * inner {@code MaybeSource}s until all of them terminate.
+     * <p>
+     * Unlike {@link #switchMap(Function)}, no inner queue is allocated and no subscription
+     * arbitration takes place as each inner {@code MaybeSource} holds at most one value.
+     * <dl>
+     *  <dt><b>Backpressure:</b></dt>
+     *  <dd>The operator honors backpressure from downstream. The main {@code Publisher} is consumed in an
+     *  unbounded manner (i.e., without backpressure); the latest success value is kept until requested
+     *  and is replaced by the success value of a newer {@code %(K)sSource}.</dd>
+     *  <dt><b>Scheduler:</b></dt>
+     *  <dd>{@code switchMapMaybeDelayError} does not operate by default on a particular {@link Scheduler}.</dd>
+     * </dl>
+     * @param <R> the output value type
+     * @param mapper the function called with the current upstream item and should return
+     *               a {@code MaybeSource} to replace the current active inner source
+     *               and get subscribed to
+     * @return the new Flowable instance
+     */
+    @Experimental
+    @BackpressureSupport(BackpressureKind.FULL)
+    @SchedulerSupport(SchedulerSupport.NONE)
+    public final <R> Flowable<R> switchMapMaybeDelayError(Function<? super T, ? extends MaybeSource<? extends R>> mapper) {
+        ObjectHelper.requireNonNull(mapper, "mapper is null");
+        return RxJavaPlugins.onAssembly(new FlowableSwitchMapMaybe<T, R>(this, mapper, true));
+    }
+
+    /**
+     * Maps the upstream items into {@link SingleSource}s and switches (subscribes) to the newer ones
+     * while disposing the older ones (and ignoring their signals) and emits the latest success value
+     * of the current one if available while failing immediately if this {@code Flowable} or any of the
+     * active inner {@code SingleSource}s fail.
+     * <p>
+     * Unlike {@link #switchMap(Function)}, no inner queue is allocated and no subscription
+     * arbitration takes place as each inner {@code SingleSource} holds at most one value.
+     * <dl>
+     *  <dt><b>Backpressure:</b></dt>
+     *  <dd>The operator honors backpressure from downstream. The main {@code Publisher} is consumed in an
+     *  unbounded manner (i.e., without backpressure); the latest success value is kept until requested
+     *  and is replaced by the success value of a newer {@code %(K)sSource}.</dd>
+     *  <dt><b>Scheduler:</b></dt>
+     *  <dd>{@code switchMapSingle} does not operate by default on a particular {@link Scheduler}.</dd>
+     * </dl>
+     * @param <R> the output value type
+     * @param mapper the function called with the current upstream item and should return
+     *               a {@code SingleSource} to replace the current active inner source
+     *               and get subscribed to
+     * @return the new Flowable instance
+     */
+    @Experimental
+    @BackpressureSupport(BackpressureKind.FULL)
+    @SchedulerSupport(SchedulerSupport.NONE)
+    public final <R> Flowable<R> switchMapSingle(Function<? super T, ? extends SingleSource<? extends R>> mapper) {
+        ObjectHelper.requireNonNull(mapper, "mapper is null");
+        return RxJavaPlugins.onAssembly(new FlowableSwitchMapSingle<T, R>(this, mapper, false));
+    }
+
+    /**
+     * Maps the upstream items into {@link SingleSource}s and switches (subscribes) to the newer ones
+     * while disposing the older ones (and ignoring their signals) and emits the latest success value
+     * of the current one if available, delaying the errors of this {@code Flowable} and of the
+     * inner {@code SingleSource}s until all of them terminate.
+     * <p>
+     * Unlike {@link #switchMap(Function)}, no inner queue is allocated and no subscription
+     * arbitration takes place as each inner {@code SingleSource} holds at most one value.
+     * <dl>
+     *  <dt><b>Backpressure:</b></dt>
+     *  <dd>The operator honors backpressure from downstream. The main {@code Publisher} is consumed in an
+     *  unbounded manner (i.e., without backpressure); the latest success value is kept until requested
+     *  and is replaced by the success value of a newer {@code %(K)sSource}.</dd>
+     *  <dt><b>Scheduler:</b></dt>
+     *  <dd>{@code switchMapSingleDelayError} does not operate by default on a particular {@link Scheduler}.</dd>
+     * </dl>
+     * @param <R> the output value type
+     * @param mapper the function called with the current upstream item and should return
+     *               a {@code SingleSource} to replace the current active inner source
+     *               and get subscribed to
+     * @return the new Flowable instance
+     */
+    @Experimental
+    @BackpressureSupport(BackpressureKind.FULL)
+    @SchedulerSupport(SchedulerSupport.NONE)
+    public final <R> Flowable<R> switchMapSingleDelayError(Function<? super T, ? extends SingleSource<? extends R>> mapper) {
+        ObjectHelper.requireNonNull(mapper, "mapper is null");
+        return RxJavaPlugins.onAssembly(new FlowableSwitchMapSingle<T, R>(this, mapper, true));
+    }
+
     /**
      * Returns a Flowable that emits only the first {@code count} items emitted by the source Publisher. If the source emits fewer than
      * {@code count} items then all of its items are emitted.
@@ -12967,7 +13629,7 @@ public abstract class Flowable<T> implements Publisher<T> {
     @SchedulerSupport(SchedulerSupport.NONE)
     public final Flowable<T> takeWhile(Predicate<? super T> predicate) {
         ObjectHelper.requireNonNull(predicate, "predicate is null");
-        return RxJavaPlugins.onAssembly(new FlowableTakeWhile<T>(this, predicate));
+        return RxJavaPlugins.onAssembly(FlowableFusedChain.takeWhile(this, predicate));
     }
 
     /**
@@ -13910,6 +14572,119 @@ public abstract class Flowable<T> implements Publisher<T> {
         return collect(mapSupplier, Functions.toMapKeyValueSelector(keySelector, valueSelector));
     }
 
+    /**
+     * Returns a Single that emits a single HashMap, sized to hold {@code capacityHint} mappings without
+     * rehashing, containing values corresponding to items emitted by the source Publisher, mapped by the
+     * keys returned by a specified {@code keySelector} function.
+     * <p>
+     * <img width="640" height="305" src="https://raw.github.com/wiki/ReactiveX/RxJava/images/rx-operators/toMap.png" alt="">
+     * <p>
+     * If more than one source item maps to the same key, the HashMap will contain a single entry that
+     * corresponds to the latest of those items.
+     * <dl>
+     *  <dt><b>Backpressure:</b></dt>
+     *  <dd>The operator honors backpressure from downstream and consumes the source {@code Publisher} in an
+     *  unbounded manner (i.e., without applying backpressure to it).</dd>
+     *  <dt><b>Scheduler:</b></dt>
+     *  <dd>{@code toMap} does not operate by default on a particular {@link Scheduler}.</dd>
+     * </dl>
+     *
+     * @param <K> the key type of the Map
+     * @param <V> the value type of the Map
+     * @param keySelector
+     *            the function that extracts the key from a source item to be used in the HashMap
+     * @param valueSelector
+     *            the function that extracts the value from a source item to be used in the HashMap
+     * @param capacityHint
+     *            the expected number of distinct keys
+     * @return a Single that emits a single item: a HashMap containing the mapped items from the source
+     *         Publisher
+     * @see <a href="http://reactivex.io/documentation/operators/to.html">ReactiveX operators documentation: To</a>
+     */
+    @Experimental
+    @BackpressureSupport(BackpressureKind.UNBOUNDED_IN)
+    @SchedulerSupport(SchedulerSupport.NONE)
+    public final <K, V> Single<Map<K, V>> toMap(final Function<? super T, ? extends K> keySelector,
+            final Function<? super T, ? extends V> valueSelector, int capacityHint) {
+        ObjectHelper.requireNonNull(keySelector, "keySelector is null");
+        ObjectHelper.requireNonNull(valueSelector, "valueSelector is null");
+        ObjectHelper.verifyPositive(capacityHint, "capacityHint");
+        return collect(Functions.<K, V>createHashMap(capacityHint), Functions.toMapKeyValueSelector(keySelector, valueSelector));
+    }
+
+    /**
+     * Returns a Single that emits a single {@link LongObjectMap} containing values corresponding to items
+     * emitted by the source Publisher, mapped by the primitive long keys returned by a specified
+     * {@code keySelector} function.
+     * <p>
+     * Unlike {@link #toMap(Function, Function)}, the keys are not boxed and no entry objects are allocated.
+     * If more than one source item maps to the same key, the map will contain a single entry that
+     * corresponds to the latest of those items.
+     * <dl>
+     *  <dt><b>Backpressure:</b></dt>
+     *  <dd>The operator honors backpressure from downstream and consumes the source {@code Publisher} in an
+     *  unbounded manner (i.e., without applying backpressure to it).</dd>
+     *  <dt><b>Scheduler:</b></dt>
+     *  <dd>{@code toLongMap} does not operate by default on a particular {@link Scheduler}.</dd>
+     * </dl>
+     *
+     * @param <V> the value type of the Map
+     * @param keySelector
+     *            the function that extracts the primitive long key from a source item
+     * @param valueSelector
+     *            the function that extracts the non-null value from a source item
+     * @param capacityHint
+     *            the expected number of distinct keys
+     * @return a Single that emits a single item: a LongObjectMap containing the mapped items from the source
+     *         Publisher
+     */
+    @Experimental
+    @BackpressureSupport(BackpressureKind.UNBOUNDED_IN)
+    @SchedulerSupport(SchedulerSupport.NONE)
+    public final <V> Single<LongObjectMap<V>> toLongMap(ToLongFunction<? super T> keySelector,
+            Function<? super T, ? extends V> valueSelector, int capacityHint) {
+        ObjectHelper.requireNonNull(keySelector, "keySelector is null");
+        ObjectHelper.requireNonNull(valueSelector, "valueSelector is null");
+        ObjectHelper.verifyPositive(capacityHint, "capacityHint");
+        return collect(Functions.<V>createLongObjectMap(capacityHint), Functions.toLongMapKeyValueSelector(keySelector, valueSelector));
+    }
+
+    /**
+     * Returns a Single that emits a single {@link IntIntMap} containing the primitive int values corresponding
+     * to items emitted by the source Publisher, mapped by the primitive int keys returned by a specified
+     * {@code keySelector} function.
+     * <p>
+     * Unlike {@link #toMap(Function, Function)}, neither the keys nor the values are boxed and no entry objects
+     * are allocated. If more than one source item maps to the same key, the map will contain a single entry that
+     * corresponds to the latest of those items.
+     * <dl>
+     *  <dt><b>Backpressure:</b></dt>
+     *  <dd>The operator honors backpressure from downstream and consumes the source {@code Publisher} in an
+     *  unbounded manner (i.e., without applying backpressure to it).</dd>
+     *  <dt><b>Scheduler:</b></dt>
+     *  <dd>{@code toIntIntMap} does not operate by default on a particular {@link Scheduler}.</dd>
+     * </dl>
+     *
+     * @param keySelector
+     *            the function that extracts the primitive int key from a source item
+     * @param valueSelector
+     *            the function that extracts the primitive int value from a source item
+     * @param capacityHint
+     *            the expected number of distinct keys
+     * @return a Single that emits a single item: an IntIntMap containing the mapped items from the source
+     *         Publisher
+     */
+    @Experimental
+    @BackpressureSupport(BackpressureKind.UNBOUNDED_IN)
+    @SchedulerSupport(SchedulerSupport.NONE)
+    public final Single<IntIntMap> toIntIntMap(ToIntFunction<? super T> keySelector,
+            ToIntFunction<? super T> valueSelector, int capacityHint) {
+        ObjectHelper.requireNonNull(keySelector, "keySelector is null");
+        ObjectHelper.requireNonNull(valueSelector, "valueSelector is null");
+        ObjectHelper.verifyPositive(capacityHint, "capacityHint");
+        return collect(Functions.createIntIntMap(capacityHint), Functions.toIntIntMapKeyValueSelector(keySelector, valueSelector));
+    }
+
     /**
      * Returns a Single that emits a single HashMap that contains an ArrayList of items emitted by the
      * source Publisher keyed by a specified {@code keySelector} function.
@@ -14048,6 +14823,49 @@ public abstract class Flowable<T> implements Publisher<T> {
         return toMultimap(keySelector, valueSelector, mapSupplier, ArrayListSupplier.<V, K>asFunction());
     }
 
+    /**
+     * Returns a Single that emits a single HashMap that contains an ArrayList of values extracted by a
+     * specified {@code valueSelector} function from items emitted by the source Publisher, keyed by a
+     * specified {@code keySelector} function, where the HashMap and the ArrayLists are pre-sized
+     * by the given hints.
+     * <p>
+     * <img width="640" height="305" src="https://raw.github.com/wiki/ReactiveX/RxJava/images/rx-operators/toMultiMap.png" alt="">
+     * <dl>
+     *  <dt><b>Backpressure:</b></dt>
+     *  <dd>The operator honors backpressure from downstream and consumes the source {@code Publisher} in an
+     *  unbounded manner (i.e., without applying backpressure to it).</dd>
+     *  <dt><b>Scheduler:</b></dt>
+     *  <dd>{@code toMultimap} does not operate by default on a particular {@link Scheduler}.</dd>
+     * </dl>
+     *
+     * @param <K> the key type of the Map
+     * @param <V> the value type of the Map
+     * @param keySelector
+     *            the function that extracts a key from the source items to be used as key in the HashMap
+     * @param valueSelector
+     *            the function that extracts a value from the source items to be used as value in the HashMap
+     * @param capacityHint
+     *            the expected number of distinct keys
+     * @param valueCapacityHint
+     *            the expected number of values per key
+     * @return a Single that emits a single item: a HashMap that contains an ArrayList of items mapped from
+     *         the source Publisher
+     * @see <a href="http://reactivex.io/documentation/operators/to.html">ReactiveX operators documentation: To</a>
+     */
+    @Experimental
+    @BackpressureSupport(BackpressureKind.UNBOUNDED_IN)
+    @SchedulerSupport(SchedulerSupport.NONE)
+    public final <K, V> Single<Map<K, Collection<V>>> toMultimap(
+            Function<? super T, ? extends K> keySelector,
+            Function<? super T, ? extends V> valueSelector,
+            int capacityHint, int valueCapacityHint) {
+        ObjectHelper.verifyPositive(capacityHint, "capacityHint");
+        ObjectHelper.verifyPositive(valueCapacityHint, "valueCapacityHint");
+        Callable<Map<K, Collection<V>>> mapSupplier = Functions.createHashMap(capacityHint);
+        Function<K, List<V>> collectionFactory = Functions.createArrayListFunction(valueCapacityHint);
+        return toMultimap(keySelector, valueSelector, mapSupplier, collectionFactory);
+    }
+
     /**
      * Converts the current Flowable into a non-backpressured Publisher.
      * <dl>
@@ -14181,6 +14999,35 @@ public abstract class Flowable<T> implements Publisher<T> {
         return toSortedList(Functions.naturalComparator(), capacityHint);
     }
 
+    /**
+     * Returns a Single that emits a list of the {@code k} largest items emitted by the source Publisher,
+     * according to the given Comparator, largest first.
+     * <p>
+     * Only the {@code k} largest items seen so far are kept, in a bounded heap, so the memory used is
+     * O(k) instead of proportional to the length of the sequence. Of items comparing equal, the ones
+     * emitted earlier are preferred. If the source emits fewer than {@code k} items, all of them are
+     * emitted, sorted.
+     * <dl>
+     *  <dt><b>Backpressure:</b></dt>
+     *  <dd>The operator consumes the source {@code Publisher} in an unbounded manner (i.e., without
+     *  applying backpressure to it).</dd>
+     *  <dt><b>Scheduler:</b></dt>
+     *  <dd>{@code topK} does not operate by default on a particular {@link Scheduler}.</dd>
+     * </dl>
+     *
+     * @param k the maximum number of items to keep, positive
+     * @param comparator the Comparator that orders the items, larger ones kept
+     * @return a Single that emits the list of the largest items, largest first
+     */
+    @Experimental
+    @BackpressureSupport(BackpressureKind.UNBOUNDED_IN)
+    @SchedulerSupport(SchedulerSupport.NONE)
+    public final Single<List<T>> topK(int k, Comparator<? super T> comparator) {
+        ObjectHelper.verifyPositive(k, "k");
+        ObjectHelper.requireNonNull(comparator, "comparator is null");
+        return collect(TopKHeap.<T>supplier(k, comparator), TopKHeap.<T>adder()).map(TopKHeap.<T>toListFunction());
+    }
+
     /**
      * Modifies the source Publisher so that subscribers will unsubscribe from it on a specified
      * {@link Scheduler}.
@@ -14685,6 +15532,77 @@ public abstract class Flowable<T> implements Publisher<T> {
         return RxJavaPlugins.onAssembly(new FlowableWindowTimed<T>(this, timespan, timespan, unit, scheduler, count, bufferSize, restart));
     }
 
+    /**
+     * Returns a Flowable that aggregates the items emitted by the source Publisher during each {@code timespan}
+     * long time window into a state, without creating a window per time span, and emits that state at the end
+     * of the time window.
+     * <p>
+     * Each time window starts with a fresh state from {@code initialSupplier}; only the state of the current
+     * window is retained, so the memory used doesn't depend on the number of items. The state of the current
+     * window is emitted when the source completes.
+     * <dl>
+     *  <dt><b>Backpressure:</b></dt>
+     *  <dd>The operator consumes the source {@code Publisher} in an unbounded manner and doesn't support
+     *  backpressure for its own results as they are emitted on a timely basis; if the downstream
+     *  hasn't requested, a {@code MissingBackpressureException} is signalled.</dd>
+     *  <dt><b>Scheduler:</b></dt>
+     *  <dd>{@code windowedAggregate} operates by default on the {@code computation} {@link Scheduler}.</dd>
+     * </dl>
+     *
+     * @param <U> the state type
+     * @param timespan the length of the time windows
+     * @param unit the time unit of {@code timespan}
+     * @param initialSupplier the supplier of the initial state of each time window
+     * @param accumulator the function that combines the state with an item and returns the new state
+     * @return a Flowable that emits the aggregated state of each time window
+     */
+    @Experimental
+    @BackpressureSupport(BackpressureKind.ERROR)
+    @SchedulerSupport(SchedulerSupport.COMPUTATION)
+    public final <U> Flowable<U> windowedAggregate(long timespan, TimeUnit unit,
+            Callable<U> initialSupplier, BiFunction<U, ? super T, U> accumulator) {
+        return windowedAggregate(timespan, unit, Schedulers.computation(), initialSupplier, accumulator);
+    }
+
+    /**
+     * Returns a Flowable that aggregates the items emitted by the source Publisher during each {@code timespan}
+     * long time window into a state, without creating a window per time span, and emits that state at the end
+     * of the time window.
+     * <p>
+     * Each time window starts with a fresh state from {@code initialSupplier}; only the state of the current
+     * window is retained, so the memory used doesn't depend on the number of items. The state of the current
+     * window is emitted when the source completes.
+     * <dl>
+     *  <dt><b>Backpressure:</b></dt>
+     *  <dd>The operator consumes the source {@code Publisher} in an unbounded manner and doesn't support
+     *  backpressure for its own results as they are emitted on a timely basis; if the downstream
+     *  hasn't requested, a {@code MissingBackpressureException} is signalled.</dd>
+     *  <dt><b>Scheduler:</b></dt>
+     *  <dd>you specify which {@link Scheduler} this operator will use</dd>
+     * </dl>
+     *
+     * @param <U> the state type
+     * @param timespan the length of the time windows
+     * @param unit the time unit of {@code timespan}
+     * @param scheduler the Scheduler to use for timing the windows
+     * @param initialSupplier the supplier of the initial state of each time window
+     * @param accumulator the function that combines the state with an item and returns the new state
+     * @return a Flowable that emits the aggregated state of each time window
+     */
+    @Experimental
+    @BackpressureSupport(BackpressureKind.ERROR)
+    @SchedulerSupport(SchedulerSupport.CUSTOM)
+    public final <U> Flowable<U> windowedAggregate(long timespan, TimeUnit unit, Scheduler scheduler,
+            Callable<U> initialSupplier, BiFunction<U, ? super T, U> accumulator) {
+        ObjectHelper.verifyPositive(timespan, "timespan");
+        ObjectHelper.requireNonNull(unit, "unit is null");
+        ObjectHelper.requireNonNull(scheduler, "scheduler is null");
+        ObjectHelper.requireNonNull(initialSupplier, "initialSupplier is null");
+        ObjectHelper.requireNonNull(accumulator, "accumulator is null");
+        return RxJavaPlugins.onAssembly(new FlowableWindowedAggregate<T, U, U>(this, timespan, unit, scheduler,
+                1, initialSupplier, accumulator, Functions.<U>listLast()));
+    }
+
     /**
      * Returns a Flowable that emits non-overlapping windows of items it collects from the source Publisher
      * where the boundary of each window is determined by the items emitted from a specified boundary-governing
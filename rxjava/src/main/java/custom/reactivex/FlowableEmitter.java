@@ -13,6 +13,7 @@
 
 package custom.reactivex;
 
+import custom.reactivex.annotations.Experimental;
 import custom.reactivex.disposables.Disposable;
 import custom.reactivex.functions.Cancellable;
 
@@ -21,15 +22,40 @@ import custom.reactivex.functions.Cancellable;
  * a resource with it and exposes the current number of downstream
  * requested amount.
  * <p>
- * The onNext, onError and onComplete methods should be called
+ * The onNext, onNextBatch, onError and onComplete methods should be called
  * in a sequential manner, just like the Subscriber's methods.
- * Use {@link #serialize()} if you want to ensure this.
+ * Use {@link #serialize()} if you want to ensure this, or
+ * {@link BackpressureStrategy#BUFFER_CONCURRENT} if multiple threads emit items.
  * The other methods are thread-safe.
  *
  * @param <T> the value type to emit
  */
 public interface FlowableEmitter<T> extends Emitter<T> {
 
+    /**
+     * Signals the given items in order, as if {@link #onNext(Object)} was called for each of them,
+     * but with the per-call overhead (queueing, draining) paid once for the whole batch.
+     * <p>
+     * The array is not retained after this method returns and can be reused by the caller.
+     * If the array or any of its items is null, none of the items is emitted and the sequence
+     * is terminated with a {@code NullPointerException}.
+     * @param items the items to signal, not null
+     */
+    @Experimental
+    void onNextBatch(T[] items);
+
+    /**
+     * Signals the items of the given Iterable in order, as if {@link #onNext(Object)} was called for each
+     * of them, but with the per-call overhead (queueing, draining) paid once for the whole batch.
+     * <p>
+     * The Iterable is consumed before this method returns.
+     * If the Iterable or any of its items is null, none of the items is emitted and the sequence
+     * is terminated with a {@code NullPointerException}.
+     * @param items the items to signal, not null
+     */
+    @Experimental
+    void onNextBatch(Iterable<? extends T> items);
+
     /**
      * Sets a Disposable on this emitter; any previous Disposable
      * or Cancellation will be unsubscribed/cancelled.
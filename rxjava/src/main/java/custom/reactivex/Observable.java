@@ -19,6 +19,7 @@ import java.util.concurrent.*;
 import org.reactivestreams.Publisher;
 
 import custom.reactivex.annotations.*;
+import custom.reactivex.collections.*;
 import custom.reactivex.disposables.Disposable;
 import custom.reactivex.exceptions.Exceptions;
 import custom.reactivex.functions.*;
@@ -1885,6 +1886,61 @@ public abstract class Observable<T> implements ObservableSource<T> {
         return interval(period, period, unit, scheduler);
     }
 
+    /**
+     * Returns an Observable that emits a sequential number every specified interval of time, driven by a
+     * periodic task shared with all other {@code sharedInterval} subscribers of the same period.
+     * <p>
+     * Unlike {@link #interval(long, TimeUnit)}, which schedules a periodic task per subscriber, the
+     * subscribers here join a single periodic task and receive their own 0, 1, 2, ... sequence on its
+     * ticks, one after the other on the same thread. The first value is therefore emitted on the next
+     * shared tick, which may come sooner than {@code period} after subscribing.
+     * <dl>
+     *  <dt><b>Scheduler:</b></dt>
+     *  <dd>{@code sharedInterval} operates by default on the {@code computation} {@link Scheduler}.</dd>
+     * </dl>
+     *
+     * @param period
+     *            the period size in time units (see below)
+     * @param unit
+     *            time units to use for the interval size
+     * @return an Observable that emits a sequential number each time interval
+     */
+    @Experimental
+    @SchedulerSupport(SchedulerSupport.COMPUTATION)
+    public static Observable<Long> sharedInterval(long period, TimeUnit unit) {
+        return sharedInterval(period, unit, Schedulers.computation());
+    }
+
+    /**
+     * Returns an Observable that emits a sequential number every specified interval of time, driven by a
+     * periodic task on the specified Scheduler shared with all other {@code sharedInterval} subscribers
+     * of the same period and Scheduler.
+     * <p>
+     * Unlike {@link #interval(long, TimeUnit, Scheduler)}, which schedules a periodic task per subscriber, the
+     * subscribers here join a single periodic task and receive their own 0, 1, 2, ... sequence on its
+     * ticks, one after the other on the same thread. The first value is therefore emitted on the next
+     * shared tick, which may come sooner than {@code period} after subscribing.
+     * <dl>
+     *  <dt><b>Scheduler:</b></dt>
+     *  <dd>You specify which {@link Scheduler} this operator will use</dd>
+     * </dl>
+     *
+     * @param period
+     *            the period size in time units (see below)
+     * @param unit
+     *            time units to use for the interval size
+     * @param scheduler
+     *            the Scheduler to use for scheduling the shared periodic task
+     * @return an Observable that emits a sequential number each time interval
+     */
+    @Experimental
+    @SchedulerSupport(SchedulerSupport.CUSTOM)
+    public static Observable<Long> sharedInterval(long period, TimeUnit unit, Scheduler scheduler) {
+        ObjectHelper.requireNonNull(unit, "unit is null");
+        ObjectHelper.requireNonNull(scheduler, "scheduler is null");
+        return RxJavaPlugins.onAssembly(new ObservableSharedInterval(Math.max(0L, period), unit, scheduler));
+    }
+
     /**
      * Signals a range of long values, the first after some initial delay and the rest periodically after.
      * <p>
@@ -6669,7 +6725,8 @@ public abstract class Observable<T> implements ObservableSource<T> {
      */
     @SchedulerSupport(SchedulerSupport.NONE)
     public final Observable<T> doOnNext(Consumer<? super T> onNext) {
-        return doOnEach(onNext, Functions.emptyConsumer(), Functions.EMPTY_ACTION, Functions.EMPTY_ACTION);
+        ObjectHelper.requireNonNull(onNext, "onNext is null");
+        return RxJavaPlugins.onAssembly(ObservableFusedChain.doOnNext(this, onNext));
     }
 
     /**
@@ -6821,7 +6878,7 @@ public abstract class Observable<T> implements ObservableSource<T> {
     @SchedulerSupport(SchedulerSupport.NONE)
     public final Observable<T> filter(Predicate<? super T> predicate) {
         ObjectHelper.requireNonNull(predicate, "predicate is null");
-        return RxJavaPlugins.onAssembly(new ObservableFilter<T>(this, predicate));
+        return RxJavaPlugins.onAssembly(ObservableFusedChain.filter(this, predicate));
     }
 
     /**
@@ -7996,7 +8053,7 @@ public abstract class Observable<T> implements ObservableSource<T> {
     @SchedulerSupport(SchedulerSupport.NONE)
     public final <R> Observable<R> map(Function<? super T, ? extends R> mapper) {
         ObjectHelper.requireNonNull(mapper, "mapper is null");
-        return RxJavaPlugins.onAssembly(new ObservableMap<T, R>(this, mapper));
+        return RxJavaPlugins.onAssembly(ObservableFusedChain.map(this, mapper));
     }
 
     /**
@@ -8390,6 +8447,78 @@ public abstract class Observable<T> implements ObservableSource<T> {
         return new ObservablePublishSelector<T, R>(this, selector);
     }
 
+    /**
+     * Returns a Observable that emits, at the end of every {@code window} long time window, the approximate values
+     * of the given quantiles over the items the source ObservableSource emitted during that window.
+     * <p>
+     * The items must be {@link Number}s; their {@link Number#doubleValue() double values} are recorded in a
+     * mergeable, logarithmically bucketed sketch with 1% relative accuracy, so the memory used depends on the
+     * range of the values and not on their number. The quantile values are emitted in the order of
+     * {@code quantiles}; they are NaN for windows without items. The current window is emitted when the source
+     * completes.
+     * <dl>
+     *  <dt><b>Scheduler:</b></dt>
+     *  <dd>{@code quantiles} operates by default on the {@code computation} {@link Scheduler}.</dd>
+     * </dl>
+     *
+     * @param quantiles the quantiles to compute, each in [0, 1], for example {@code 0.5, 0.99}
+     * @param window the length of the time windows
+     * @param unit the time unit of {@code window}
+     * @return a Observable that emits the quantile values of each time window
+     */
+    @Experimental
+    @SchedulerSupport(SchedulerSupport.COMPUTATION)
+    public final Observable<double[]> quantiles(double[] quantiles, long window, TimeUnit unit) {
+        return quantiles(quantiles, window, window, unit, Schedulers.computation());
+    }
+
+    /**
+     * Returns a Observable that emits, every {@code slide} amount of time, the approximate values of the given
+     * quantiles over the items the source ObservableSource emitted during the last {@code window} amount of time.
+     * <p>
+     * The items must be {@link Number}s; their {@link Number#doubleValue() double values} are recorded in a
+     * mergeable, logarithmically bucketed sketch with 1% relative accuracy. Each item is recorded once, into the
+     * sketch of the current {@code slide} long pane, and the sketches of the panes making up the window are
+     * merged when the window is emitted, so the memory used is proportional to the number of panes and
+     * not to the number of items. {@code window} is rounded up to a multiple of {@code slide}.
+     * The quantile values are emitted in the order of {@code quantiles}; they are NaN for windows without items.
+     * The current window is emitted when the source completes.
+     * <dl>
+     *  <dt><b>Scheduler:</b></dt>
+     *  <dd>you specify which {@link Scheduler} this operator will use</dd>
+     * </dl>
+     *
+     * @param quantiles the quantiles to compute, each in [0, 1], for example {@code 0.5, 0.99}
+     * @param window the length of the time windows
+     * @param slide the time between the emissions, at most {@code window}
+     * @param unit the time unit of {@code window} and {@code slide}
+     * @param scheduler the Scheduler to use for timing the windows
+     * @return a Observable that emits the quantile values of each time window
+     */
+    @Experimental
+    @SchedulerSupport(SchedulerSupport.CUSTOM)
+    public final Observable<double[]> quantiles(double[] quantiles, long window, long slide, TimeUnit unit, Scheduler scheduler) {
+        ObjectHelper.requireNonNull(quantiles, "quantiles is null");
+        ObjectHelper.verifyPositive(slide, "slide");
+        ObjectHelper.requireNonNull(unit, "unit is null");
+        ObjectHelper.requireNonNull(scheduler, "scheduler is null");
+        if (window < slide) {
+            throw new IllegalArgumentException("window >= slide required but it was " + window + " < " + slide);
+        }
+        double[] qs = quantiles.clone();
+        for (double q : qs) {
+            if (!(q >= 0d && q <= 1d)) {
+                throw new IllegalArgumentException("quantiles in [0, 1] required but it was " + q);
+            }
+        }
+        long panes = (window + slide - 1) / slide;
+        if (panes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("window / slide too large: " + panes);
+        }
+        return RxJavaPlugins.onAssembly(new ObservableWindowedAggregate<T, QuantileSketch, double[]>(this, slide, unit, scheduler,
+                (int)panes, QuantileSketch.supplier(), QuantileSketch.numberAdder(), QuantileSketch.quantilesOf(qs)));
+    }
+
     /**
      * Returns a Maybe that applies a specified accumulator function to the first item emitted by a source
      * ObservableSource, then feeds the result of that function along with the second item emitted by the source
@@ -9892,6 +10021,78 @@ public abstract class Observable<T> implements ObservableSource<T> {
         return RxJavaPlugins.onAssembly(new ObservableSkipWhile<T>(this, predicate));
     }
 
+    /**
+     * Returns a Observable that emits, every {@code slide} amount of time, the result of the given
+     * {@link Aggregator} over the items the source ObservableSource emitted during the last {@code size} amount of time.
+     * <p>
+     * Unlike {@code window(size, slide, unit).flatMapSingle(...)}, no window is created and an item is not
+     * delivered to every overlapping window: each item is added to the accumulator of the current
+     * {@code slide} long pane only, and the accumulators of the panes making up the window are merged
+     * when the window is emitted. {@code size} is rounded up to a multiple of {@code slide}.
+     * The current window is emitted when the source completes.
+     * <dl>
+     *  <dt><b>Scheduler:</b></dt>
+     *  <dd>{@code slidingAggregate} operates by default on the {@code computation} {@link Scheduler}.</dd>
+     * </dl>
+     *
+     * @param <A> the accumulator type
+     * @param <R> the result type
+     * @param size the length of the time windows
+     * @param slide the time between the emissions, at most {@code size}
+     * @param unit the time unit of {@code size} and {@code slide}
+     * @param aggregator the aggregator creating, filling and merging the accumulators
+     * @return a Observable that emits the aggregated result of each time window
+     */
+    @Experimental
+    @SchedulerSupport(SchedulerSupport.COMPUTATION)
+    public final <A, R> Observable<R> slidingAggregate(long size, long slide, TimeUnit unit,
+            Aggregator<? super T, A, ? extends R> aggregator) {
+        return slidingAggregate(size, slide, unit, Schedulers.computation(), aggregator);
+    }
+
+    /**
+     * Returns a Observable that emits, every {@code slide} amount of time, the result of the given
+     * {@link Aggregator} over the items the source ObservableSource emitted during the last {@code size} amount of time.
+     * <p>
+     * Unlike {@code window(size, slide, unit).flatMapSingle(...)}, no window is created and an item is not
+     * delivered to every overlapping window: each item is added to the accumulator of the current
+     * {@code slide} long pane only, and the accumulators of the panes making up the window are merged
+     * when the window is emitted. {@code size} is rounded up to a multiple of {@code slide}.
+     * The current window is emitted when the source completes.
+     * <dl>
+     *  <dt><b>Scheduler:</b></dt>
+     *  <dd>you specify which {@link Scheduler} this operator will use</dd>
+     * </dl>
+     *
+     * @param <A> the accumulator type
+     * @param <R> the result type
+     * @param size the length of the time windows
+     * @param slide the time between the emissions, at most {@code size}
+     * @param unit the time unit of {@code size} and {@code slide}
+     * @param scheduler the Scheduler to use for timing the windows
+     * @param aggregator the aggregator creating, filling and merging the accumulators
+     * @return a Observable that emits the aggregated result of each time window
+     */
+    @Experimental
+    @SchedulerSupport(SchedulerSupport.CUSTOM)
+    public final <A, R> Observable<R> slidingAggregate(long size, long slide, TimeUnit unit, Scheduler scheduler,
+            Aggregator<? super T, A, ? extends R> aggregator) {
+        ObjectHelper.verifyPositive(slide, "slide");
+        ObjectHelper.requireNonNull(unit, "unit is null");
+        ObjectHelper.requireNonNull(scheduler, "scheduler is null");
+        ObjectHelper.requireNonNull(aggregator, "aggregator is null");
+        if (size < slide) {
+            throw new IllegalArgumentException("size >= slide required but it was " + size + " < " + slide);
+        }
+        long panes = (size + slide - 1) / slide;
+        if (panes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("size / slide too large: " + panes);
+        }
+        return RxJavaPlugins.onAssembly(new ObservableWindowedAggregate<T, A, R>(this, slide, unit, scheduler, (int)panes,
+                Functions.aggregatorSupplier(aggregator), Functions.<T, A>aggregatorAdder(aggregator),
+                Functions.<A, R>aggregatorMergeResult(aggregator)));
+    }
+
     /**
      * Returns an Observable that emits the events emitted by source ObservableSource, in a
      * sorted order. Each item emitted by the ObservableSource must implement {@link Comparable} with respect to all
@@ -10406,6 +10607,106 @@ public abstract class Observable<T> implements ObservableSource<T> {
         return RxJavaPlugins.onAssembly(new ObservableSwitchMap<T, R>(this, mapper, bufferSize, true));
     }
 
+    /**
+     * Maps the upstream items into {@link MaybeSource}s and switches (subscribes) to the newer ones
+     * while disposing the older ones (and ignoring their signals) and emits the latest success value
+     * of the current one if available while failing immediately if this {@code Observable} or any of the
+     * active inner {@code MaybeSource}s fail.
+     * <p>
+     * Unlike {@link #switchMap(Function)}, no inner queue is allocated and no subscription
+     * arbitration takes place as each inner {@code MaybeSource} holds at most one value.
+     * <dl>
+     *  <dt><b>Scheduler:</b></dt>
+     *  <dd>{@code switchMapMaybe} does not operate by default on a particular {@link Scheduler}.</dd>
+     * </dl>
+     * @param <R> the output value type
+     * @param mapper the function called with the current upstream item and should return
+     *               a {@code MaybeSource} to replace the current active inner source
+     *               and get subscribed to
+     * @return the new Observable instance
+     */
+    @Experimental
+    @SchedulerSupport(SchedulerSupport.NONE)
+    public final <R> Observable<R> switchMapMaybe(Function<? super T, ? extends MaybeSource<? extends R>> mapper) {
+        ObjectHelper.requireNonNull(mapper, "mapper is null");
+        return RxJavaPlugins.onAssembly(new ObservableSwitchMapMaybe<T, R>(this, mapper, false));
+    }
+
+    /**
+     * Maps the upstream items into {@link MaybeSource}s and switches (subscribes) to the newer ones
+     * while disposing the older ones (and ignoring their signals) and emits the latest success value
+     * of the current one if available, delaying the errors of this {@code Observable} and of the
+     * inner {@code MaybeSource}s until all of them terminate.
+     * <p>
+     * Unlike {@link #switchMap(Function)}, no inner queue is allocated and no subscription
+     * arbitration takes place as each inner {@code MaybeSource} holds at most one value.
+     * <dl>
+     *  <dt><b>Scheduler:</b></dt>
+     *  <dd>{@code switchMapMaybeDelayError} does not operate by default on a particular {@link Scheduler}.</dd>
+     * </dl>
+     * @param <R> the output value type
+     * @param mapper the function called with the current upstream item and should return
+     *               a {@code MaybeSource} to replace the current active inner source
+     *               and get subscribed to
+     * @return the new Observable instance
+     */
+    @Experimental
+    @SchedulerSupport(SchedulerSupport.NONE)
+    public final <R> Observable<R> switchMapMaybeDelayError(Function<? super T, ? extends MaybeSource<? extends R>> mapper) {
+        ObjectHelper.requireNonNull(mapper, "mapper is null");
+        return RxJavaPlugins.onAssembly(new ObservableSwitchMapMaybe<T, R>(this, mapper, true));
+    }
+
+    /**
+     * Maps the upstream items into {@link SingleSource}s and switches (subscribes) to the newer ones
+     * while disposing the older ones (and ignoring their signals) and emits the latest success value
+     * of the current one if available while failing immediately if this {@code Observable} or any of the
+     * active inner {@code SingleSource}s fail.
+     * <p>
+     * Unlike {@link #switchMap(Function)}, no inner queue is allocated and no subscription
+     * arbitration takes place as each inner {@code SingleSource} holds at most one value.
+     * <dl>
+     *  <dt><b>Scheduler:</b></dt>
+     *  <dd>{@code switchMapSingle} does not operate by default on a particular {@link Scheduler}.</dd>
+     * </dl>
+     * @param <R> the output value type
+     * @param mapper the function called with the current upstream item and should return
+     *               a {@code SingleSource} to replace the current active inner source
+     *               and get subscribed to
+     * @return the new Observable instance
+     */
+    @Experimental
+    @SchedulerSupport(SchedulerSupport.NONE)
+    public final <R> Observable<R> switchMapSingle(Function<? super T, ? extends SingleSource<? extends R>> mapper) {
+        ObjectHelper.requireNonNull(mapper, "mapper is null");
+        return RxJavaPlugins.onAssembly(new ObservableSwitchMapSingle<T, R>(this, mapper, false));
+    }
+
+    /**
+     * Maps the upstream items into {@link SingleSource}s and switches (subscribes) to the newer ones
+     * while disposing the older ones (and ignoring their signals) and emits the latest success value
+     * of the current one if available, delaying the errors of this {@code Observable} and of the
+     * inner {@code SingleSource}s until all of them terminate.
+     * <p>
+     * Unlike {@link #switchMap(Function)}, no inner queue is allocated and no subscription
+     * arbitration takes place as each inner {@code SingleSource} holds at most one value.
+     * <dl>
+     *  <dt><b>Scheduler:</b></dt>
+     *  <dd>{@code switchMapSingleDelayError} does not operate by default on a particular {@link Scheduler}.</dd>
+     * </dl>
+     * @param <R> the output value type
+     * @param mapper the function called with the current upstream item and should return
+     *               a {@code SingleSource} to replace the current active inner source
+     *               and get subscribed to
+     * @return the new Observable instance
+     */
+    @Experimental
+    @SchedulerSupport(SchedulerSupport.NONE)
+    public final <R> Observable<R> switchMapSingleDelayError(Function<? super T, ? extends SingleSource<? extends R>> mapper) {
+        ObjectHelper.requireNonNull(mapper, "mapper is null");
+        return RxJavaPlugins.onAssembly(new ObservableSwitchMapSingle<T, R>(this, mapper, true));
+    }
+
     /**
      * Returns an Observable that emits only the first {@code count} items emitted by the source ObservableSource. If the source emits fewer than
      * {@code count} items then all of its items are emitted.
@@ -10822,7 +11123,7 @@ public abstract class Observable<T> implements ObservableSource<T> {
     @SchedulerSupport(SchedulerSupport.NONE)
     public final Observable<T> takeWhile(Predicate<? super T> predicate) {
         ObjectHelper.requireNonNull(predicate, "predicate is null");
-        return RxJavaPlugins.onAssembly(new ObservableTakeWhile<T>(this, predicate));
+        return RxJavaPlugins.onAssembly(ObservableFusedChain.takeWhile(this, predicate));
     }
 
     /**
@@ -11641,6 +11942,109 @@ public abstract class Observable<T> implements ObservableSource<T> {
         return collect(mapSupplier, Functions.toMapKeyValueSelector(keySelector, valueSelector));
     }
 
+    /**
+     * Returns a Single that emits a single HashMap, sized to hold {@code capacityHint} mappings without
+     * rehashing, containing values corresponding to items emitted by the source ObservableSource, mapped by
+     * the keys returned by a specified {@code keySelector} function.
+     * <p>
+     * <img width="640" height="305" src="https://raw.github.com/wiki/ReactiveX/RxJava/images/rx-operators/toMap.2.png" alt="">
+     * <p>
+     * If more than one source item maps to the same key, the HashMap will contain a single entry that
+     * corresponds to the latest of those items.
+     * <dl>
+     *  <dt><b>Scheduler:</b></dt>
+     *  <dd>{@code toMap} does not operate by default on a particular {@link Scheduler}.</dd>
+     * </dl>
+     *
+     * @param <K> the key type of the Map
+     * @param <V> the value type of the Map
+     * @param keySelector
+     *            the function that extracts the key from a source item to be used in the HashMap
+     * @param valueSelector
+     *            the function that extracts the value from a source item to be used in the HashMap
+     * @param capacityHint
+     *            the expected number of distinct keys
+     * @return a Single that emits a single item: a HashMap containing the mapped items from the source
+     *         ObservableSource
+     * @see <a href="http://reactivex.io/documentation/operators/to.html">ReactiveX operators documentation: To</a>
+     */
+    @Experimental
+    @SchedulerSupport(SchedulerSupport.NONE)
+    public final <K, V> Single<Map<K, V>> toMap(
+            final Function<? super T, ? extends K> keySelector,
+            final Function<? super T, ? extends V> valueSelector,
+            int capacityHint) {
+        ObjectHelper.requireNonNull(keySelector, "keySelector is null");
+        ObjectHelper.requireNonNull(valueSelector, "valueSelector is null");
+        ObjectHelper.verifyPositive(capacityHint, "capacityHint");
+        return collect(Functions.<K, V>createHashMap(capacityHint), Functions.toMapKeyValueSelector(keySelector, valueSelector));
+    }
+
+    /**
+     * Returns a Single that emits a single {@link LongObjectMap} containing values corresponding to items
+     * emitted by the source ObservableSource, mapped by the primitive long keys returned by a specified
+     * {@code keySelector} function.
+     * <p>
+     * Unlike {@link #toMap(Function, Function)}, the keys are not boxed and no entry objects are allocated.
+     * If more than one source item maps to the same key, the map will contain a single entry that
+     * corresponds to the latest of those items.
+     * <dl>
+     *  <dt><b>Scheduler:</b></dt>
+     *  <dd>{@code toLongMap} does not operate by default on a particular {@link Scheduler}.</dd>
+     * </dl>
+     *
+     * @param <V> the value type of the Map
+     * @param keySelector
+     *            the function that extracts the primitive long key from a source item
+     * @param valueSelector
+     *            the function that extracts the non-null value from a source item
+     * @param capacityHint
+     *            the expected number of distinct keys
+     * @return a Single that emits a single item: a LongObjectMap containing the mapped items from the source
+     *         ObservableSource
+     */
+    @Experimental
+    @SchedulerSupport(SchedulerSupport.NONE)
+    public final <V> Single<LongObjectMap<V>> toLongMap(ToLongFunction<? super T> keySelector,
+            Function<? super T, ? extends V> valueSelector, int capacityHint) {
+        ObjectHelper.requireNonNull(keySelector, "keySelector is null");
+        ObjectHelper.requireNonNull(valueSelector, "valueSelector is null");
+        ObjectHelper.verifyPositive(capacityHint, "capacityHint");
+        return collect(Functions.<V>createLongObjectMap(capacityHint), Functions.toLongMapKeyValueSelector(keySelector, valueSelector));
+    }
+
+    /**
+     * Returns a Single that emits a single {@link IntIntMap} containing the primitive int values corresponding
+     * to items emitted by the source ObservableSource, mapped by the primitive int keys returned by a specified
+     * {@code keySelector} function.
+     * <p>
+     * Unlike {@link #toMap(Function, Function)}, neither the keys nor the values are boxed and no entry objects
+     * are allocated. If more than one source item maps to the same key, the map will contain a single entry that
+     * corresponds to the latest of those items.
+     * <dl>
+     *  <dt><b>Scheduler:</b></dt>
+     *  <dd>{@code toIntIntMap} does not operate by default on a particular {@link Scheduler}.</dd>
+     * </dl>
+     *
+     * @param keySelector
+     *            the function that extracts the primitive int key from a source item
+     * @param valueSelector
+     *            the function that extracts the primitive int value from a source item
+     * @param capacityHint
+     *            the expected number of distinct keys
+     * @return a Single that emits a single item: an IntIntMap containing the mapped items from the source
+     *         ObservableSource
+     */
+    @Experimental
+    @SchedulerSupport(SchedulerSupport.NONE)
+    public final Single<IntIntMap> toIntIntMap(ToIntFunction<? super T> keySelector,
+            ToIntFunction<? super T> valueSelector, int capacityHint) {
+        ObjectHelper.requireNonNull(keySelector, "keySelector is null");
+        ObjectHelper.requireNonNull(valueSelector, "valueSelector is null");
+        ObjectHelper.verifyPositive(capacityHint, "capacityHint");
+        return collect(Functions.createIntIntMap(capacityHint), Functions.toIntIntMapKeyValueSelector(keySelector, valueSelector));
+    }
+
     /**
      * Returns a Single that emits a single HashMap that contains an ArrayList of items emitted by the
      * source ObservableSource keyed by a specified {@code keySelector} function.
@@ -11765,6 +12169,45 @@ public abstract class Observable<T> implements ObservableSource<T> {
         return toMultimap(keySelector, valueSelector, mapSupplier, ArrayListSupplier.<V, K>asFunction());
     }
 
+    /**
+     * Returns a Single that emits a single HashMap that contains an ArrayList of values extracted by a
+     * specified {@code valueSelector} function from items emitted by the source ObservableSource, keyed by a
+     * specified {@code keySelector} function, where the HashMap and the ArrayLists are pre-sized
+     * by the given hints.
+     * <p>
+     * <img width="640" height="305" src="https://raw.github.com/wiki/ReactiveX/RxJava/images/rx-operators/toMultiMap.2.png" alt="">
+     * <dl>
+     *  <dt><b>Scheduler:</b></dt>
+     *  <dd>{@code toMultimap} does not operate by default on a particular {@link Scheduler}.</dd>
+     * </dl>
+     *
+     * @param <K> the key type of the Map
+     * @param <V> the value type of the Map
+     * @param keySelector
+     *            the function that extracts a key from the source items to be used as key in the HashMap
+     * @param valueSelector
+     *            the function that extracts a value from the source items to be used as value in the HashMap
+     * @param capacityHint
+     *            the expected number of distinct keys
+     * @param valueCapacityHint
+     *            the expected number of values per key
+     * @return a Single that emits a single item: a HashMap that contains an ArrayList of items mapped from
+     *         the source ObservableSource
+     * @see <a href="http://reactivex.io/documentation/operators/to.html">ReactiveX operators documentation: To</a>
+     */
+    @Experimental
+    @SchedulerSupport(SchedulerSupport.NONE)
+    public final <K, V> Single<Map<K, Collection<V>>> toMultimap(
+            Function<? super T, ? extends K> keySelector,
+            Function<? super T, ? extends V> valueSelector,
+            int capacityHint, int valueCapacityHint) {
+        ObjectHelper.verifyPositive(capacityHint, "capacityHint");
+        ObjectHelper.verifyPositive(valueCapacityHint, "valueCapacityHint");
+        Callable<Map<K, Collection<V>>> mapSupplier = Functions.createHashMap(capacityHint);
+        Function<K, List<V>> collectionFactory = Functions.createArrayListFunction(valueCapacityHint);
+        return toMultimap(keySelector, valueSelector, mapSupplier, collectionFactory);
+    }
+
     /**
      * Converts the current Observable into a Flowable by applying the specified backpressure strategy.
      * <dl>
@@ -11895,6 +12338,31 @@ public abstract class Observable<T> implements ObservableSource<T> {
         return toSortedList(Functions.<T>naturalOrder(), capacityHint);
     }
 
+    /**
+     * Returns a Single that emits a list of the {@code k} largest items emitted by the source ObservableSource,
+     * according to the given Comparator, largest first.
+     * <p>
+     * Only the {@code k} largest items seen so far are kept, in a bounded heap, so the memory used is
+     * O(k) instead of proportional to the length of the sequence. Of items comparing equal, the ones
+     * emitted earlier are preferred. If the source emits fewer than {@code k} items, all of them are
+     * emitted, sorted.
+     * <dl>
+     *  <dt><b>Scheduler:</b></dt>
+     *  <dd>{@code topK} does not operate by default on a particular {@link Scheduler}.</dd>
+     * </dl>
+     *
+     * @param k the maximum number of items to keep, positive
+     * @param comparator the Comparator that orders the items, larger ones kept
+     * @return a Single that emits the list of the largest items, largest first
+     */
+    @Experimental
+    @SchedulerSupport(SchedulerSupport.NONE)
+    public final Single<List<T>> topK(int k, Comparator<? super T> comparator) {
+        ObjectHelper.verifyPositive(k, "k");
+        ObjectHelper.requireNonNull(comparator, "comparator is null");
+        return collect(TopKHeap.<T>supplier(k, comparator), TopKHeap.<T>adder()).map(TopKHeap.<T>toListFunction());
+    }
+
     /**
      * Modifies the source ObservableSource so that subscribers will unsubscribe from it on a specified
      * {@link Scheduler}.
@@ -12319,6 +12787,67 @@ public abstract class Observable<T> implements ObservableSource<T> {
         return RxJavaPlugins.onAssembly(new ObservableWindowTimed<T>(this, timespan, timespan, unit, scheduler, count, bufferSize, restart));
     }
 
+    /**
+     * Returns a Observable that aggregates the items emitted by the source ObservableSource during each {@code timespan}
+     * long time window into a state, without creating a window per time span, and emits that state at the end
+     * of the time window.
+     * <p>
+     * Each time window starts with a fresh state from {@code initialSupplier}; only the state of the current
+     * window is retained, so the memory used doesn't depend on the number of items. The state of the current
+     * window is emitted when the source completes.
+     * <dl>
+     *  <dt><b>Scheduler:</b></dt>
+     *  <dd>{@code windowedAggregate} operates by default on the {@code computation} {@link Scheduler}.</dd>
+     * </dl>
+     *
+     * @param <U> the state type
+     * @param timespan the length of the time windows
+     * @param unit the time unit of {@code timespan}
+     * @param initialSupplier the supplier of the initial state of each time window
+     * @param accumulator the function that combines the state with an item and returns the new state
+     * @return a Observable that emits the aggregated state of each time window
+     */
+    @Experimental
+    @SchedulerSupport(SchedulerSupport.COMPUTATION)
+    public final <U> Observable<U> windowedAggregate(long timespan, TimeUnit unit,
+            Callable<U> initialSupplier, BiFunction<U, ? super T, U> accumulator) {
+        return windowedAggregate(timespan, unit, Schedulers.computation(), initialSupplier, accumulator);
+    }
+
+    /**
+     * Returns a Observable that aggregates the items emitted by the source ObservableSource during each {@code timespan}
+     * long time window into a state, without creating a window per time span, and emits that state at the end
+     * of the time window.
+     * <p>
+     * Each time window starts with a fresh state from {@code initialSupplier}; only the state of the current
+     * window is retained, so the memory used doesn't depend on the number of items. The state of the current
+     * window is emitted when the source completes.
+     * <dl>
+     *  <dt><b>Scheduler:</b></dt>
+     *  <dd>you specify which {@link Scheduler} this operator will use</dd>
+     * </dl>
+     *
+     * @param <U> the state type
+     * @param timespan the length of the time windows
+     * @param unit the time unit of {@code timespan}
+     * @param scheduler the Scheduler to use for timing the windows
+     * @param initialSupplier the supplier of the initial state of each time window
+     * @param accumulator the function that combines the state with an item and returns the new state
+     * @return a Observable that emits the aggregated state of each time window
+     */
+    @Experimental
+    @SchedulerSupport(SchedulerSupport.CUSTOM)
+    public final <U> Observable<U> windowedAggregate(long timespan, TimeUnit unit, Scheduler scheduler,
+            Callable<U> initialSupplier, BiFunction<U, ? super T, U> accumulator) {
+        ObjectHelper.verifyPositive(timespan, "timespan");
+        ObjectHelper.requireNonNull(unit, "unit is null");
+        ObjectHelper.requireNonNull(scheduler, "scheduler is null");
+        ObjectHelper.requireNonNull(initialSupplier, "initialSupplier is null");
+        ObjectHelper.requireNonNull(accumulator, "accumulator is null");
+        return RxJavaPlugins.onAssembly(new ObservableWindowedAggregate<T, U, U>(this, timespan, unit, scheduler,
+                1, initialSupplier, accumulator, Functions.<U>listLast()));
+    }
+
     /**
      * Returns an Observable that emits non-overlapping windows of items it collects from the source ObservableSource
      * where the boundary of each window is determined by the items emitted from a specified boundary-governing
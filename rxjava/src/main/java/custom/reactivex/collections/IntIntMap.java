@@ -0,0 +1,302 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package custom.reactivex.collections;
+
+import custom.reactivex.internal.util.Pow2;
+
+/**
+ * An open-addressing hash map with primitive int keys and values that avoids boxing
+ * and allocating an entry object per mapping.
+ * <p>Is not thread-safe.
+ */
+public final class IntIntMap {
+    private static final int INT_PHI = 0x9E3779B9;
+
+    private static final float LOAD_FACTOR = 0.75f;
+
+    /** The zero key marks free slots in the table so its mapping is stored separately. */
+    boolean hasZeroKey;
+    int zeroValue;
+
+    int mask;
+    /** The number of keys in the table, not counting the zero key. */
+    int used;
+    int maxSize;
+    int[] keys;
+    int[] values;
+
+    /**
+     * Creates an empty map with a default capacity.
+     */
+    public IntIntMap() {
+        this(16);
+    }
+
+    /**
+     * Creates an empty map which can hold the given number of mappings without resizing.
+     * @param expectedSize the expected number of mappings, non-negative
+     */
+    public IntIntMap(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("expectedSize >= 0 required but it was " + expectedSize);
+        }
+        int c = Pow2.roundToPowerOfTwo(Math.max(2, (int)(expectedSize / LOAD_FACTOR) + 1));
+        this.mask = c - 1;
+        this.maxSize = (int)(LOAD_FACTOR * c);
+        this.keys = new int[c];
+        this.values = new int[c];
+    }
+
+    int indexOf(int key) {
+        final int[] k = keys;
+        final int m = mask;
+        int pos = mix(key) & m;
+        for (;;) {
+            int curr = k[pos];
+            if (curr == 0) {
+                return -1;
+            }
+            if (curr == key) {
+                return pos;
+            }
+            pos = (pos + 1) & m;
+        }
+    }
+
+    /**
+     * Returns the value mapped to the given key.
+     * @param key the key
+     * @param defaultValue the value to return if the key is not mapped
+     * @return the value or {@code defaultValue} if the key is not mapped
+     */
+    public int get(int key, int defaultValue) {
+        if (key == 0) {
+            return hasZeroKey ? zeroValue : defaultValue;
+        }
+        int pos = indexOf(key);
+        return pos < 0 ? defaultValue : values[pos];
+    }
+
+    /**
+     * Returns true if the given key is mapped.
+     * @param key the key
+     * @return true if the key is mapped
+     */
+    public boolean containsKey(int key) {
+        if (key == 0) {
+            return hasZeroKey;
+        }
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * Maps the given key to the given value.
+     * @param key the key
+     * @param value the value
+     */
+    public void put(int key, int value) {
+        if (key == 0) {
+            hasZeroKey = true;
+            zeroValue = value;
+            return;
+        }
+        final int[] k = keys;
+        final int m = mask;
+        int pos = mix(key) & m;
+        for (;;) {
+            int curr = k[pos];
+            if (curr == 0) {
+                break;
+            }
+            if (curr == key) {
+                values[pos] = value;
+                return;
+            }
+            pos = (pos + 1) & m;
+        }
+        k[pos] = key;
+        values[pos] = value;
+        if (++used >= maxSize) {
+            rehash();
+        }
+    }
+
+    /**
+     * Adds the given increment to the value of the given key, treating
+     * unmapped keys as mapped to zero.
+     * @param key the key
+     * @param increment the value to add
+     * @return the new value of the key
+     */
+    public int addTo(int key, int increment) {
+        if (key == 0) {
+            if (hasZeroKey) {
+                zeroValue += increment;
+            } else {
+                hasZeroKey = true;
+                zeroValue = increment;
+            }
+            return zeroValue;
+        }
+        int pos = indexOf(key);
+        if (pos >= 0) {
+            return values[pos] += increment;
+        }
+        put(key, increment);
+        return increment;
+    }
+
+    /**
+     * Copies all mappings of the other map into this map, replacing the
+     * values of keys mapped in both.
+     * @param other the other map, not null
+     */
+    public void putAll(IntIntMap other) {
+        if (other.hasZeroKey) {
+            put(0, other.zeroValue);
+        }
+        int[] k = other.keys;
+        int[] v = other.values;
+        for (int i = 0; i < k.length; i++) {
+            if (k[i] != 0) {
+                put(k[i], v[i]);
+            }
+        }
+    }
+
+    /**
+     * Adds the values of the other map to the values of this map,
+     * treating unmapped keys as mapped to zero.
+     * @param other the other map, not null
+     */
+    public void addAll(IntIntMap other) {
+        if (other.hasZeroKey) {
+            addTo(0, other.zeroValue);
+        }
+        int[] k = other.keys;
+        int[] v = other.values;
+        for (int i = 0; i < k.length; i++) {
+            if (k[i] != 0) {
+                addTo(k[i], v[i]);
+            }
+        }
+    }
+
+    /**
+     * Removes the mapping of the given key.
+     * @param key the key
+     * @return true if the key was mapped
+     */
+    public boolean remove(int key) {
+        if (key == 0) {
+            boolean b = hasZeroKey;
+            hasZeroKey = false;
+            zeroValue = 0;
+            return b;
+        }
+        int pos = indexOf(key);
+        if (pos < 0) {
+            return false;
+        }
+        removeEntry(pos, keys, values, mask);
+        return true;
+    }
+
+    void removeEntry(int pos, int[] k, int[] a, int m) {
+        used--;
+
+        int last;
+        int slot;
+        int curr;
+        for (;;) {
+            last = pos;
+            pos = (pos + 1) & m;
+            for (;;) {
+                curr = k[pos];
+                if (curr == 0) {
+                    k[last] = 0;
+                    return;
+                }
+                slot = mix(curr) & m;
+
+                if (last <= pos ? last >= slot || slot > pos : last >= slot && slot > pos) {
+                    break;
+                }
+
+                pos = (pos + 1) & m;
+            }
+            k[last] = curr;
+            a[last] = a[pos];
+        }
+    }
+
+    void rehash() {
+        int[] k = keys;
+        int[] a = values;
+        int newCap = k.length << 1;
+        int m = newCap - 1;
+
+        int[] k2 = new int[newCap];
+        int[] b = new int[newCap];
+
+        for (int i = 0; i < k.length; i++) {
+            int key = k[i];
+            if (key != 0) {
+                int pos = mix(key) & m;
+                while (k2[pos] != 0) {
+                    pos = (pos + 1) & m;
+                }
+                k2[pos] = key;
+                b[pos] = a[i];
+            }
+        }
+
+        this.mask = m;
+        this.maxSize = (int)(newCap * LOAD_FACTOR);
+        this.keys = k2;
+        this.values = b;
+    }
+
+    static int mix(int x) {
+        final int h = x * INT_PHI;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Returns the mapped keys in no particular order.
+     * @return a new array of the keys
+     */
+    public int[] keys() {
+        int[] k = keys;
+        int[] result = new int[size()];
+        int j = 0;
+        if (hasZeroKey) {
+            j++;
+        }
+        for (int i = 0; i < k.length; i++) {
+            if (k[i] != 0) {
+                result[j++] = k[i];
+            }
+        }
+        return result;
+    }
+
+    public int size() {
+        return hasZeroKey ? used + 1 : used;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+}
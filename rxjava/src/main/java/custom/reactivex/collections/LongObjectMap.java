@@ -0,0 +1,242 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package custom.reactivex.collections;
+
+import custom.reactivex.internal.functions.ObjectHelper;
+import custom.reactivex.internal.util.Pow2;
+
+/**
+ * An open-addressing hash map with primitive long keys that avoids boxing the keys
+ * and allocating an entry object per mapping.
+ * <p>Doesn't support {@code null} values and is not thread-safe.
+ *
+ * @param <V> the value type
+ */
+public final class LongObjectMap<V> {
+    private static final int INT_PHI = 0x9E3779B9;
+
+    private static final float LOAD_FACTOR = 0.75f;
+
+    int mask;
+    int size;
+    int maxSize;
+    long[] keys;
+    V[] values;
+
+    /**
+     * Creates an empty map with a default capacity.
+     */
+    public LongObjectMap() {
+        this(16);
+    }
+
+    /**
+     * Creates an empty map which can hold the given number of mappings without resizing.
+     * @param expectedSize the expected number of mappings, non-negative
+     */
+    @SuppressWarnings("unchecked")
+    public LongObjectMap(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("expectedSize >= 0 required but it was " + expectedSize);
+        }
+        int c = Pow2.roundToPowerOfTwo(Math.max(2, (int)(expectedSize / LOAD_FACTOR) + 1));
+        this.mask = c - 1;
+        this.maxSize = (int)(LOAD_FACTOR * c);
+        this.keys = new long[c];
+        this.values = (V[])new Object[c];
+    }
+
+    /**
+     * Returns the value mapped to the given key.
+     * @param key the key
+     * @return the value or null if the key is not mapped
+     */
+    public V get(long key) {
+        final long[] k = keys;
+        final V[] a = values;
+        final int m = mask;
+        int pos = mix(key) & m;
+        for (;;) {
+            V v = a[pos];
+            if (v == null || k[pos] == key) {
+                return v;
+            }
+            pos = (pos + 1) & m;
+        }
+    }
+
+    /**
+     * Returns true if the given key is mapped.
+     * @param key the key
+     * @return true if the key is mapped
+     */
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Maps the given key to the given value.
+     * @param key the key
+     * @param value the value, not null
+     * @return the previous value or null if the key was not mapped
+     */
+    public V put(long key, V value) {
+        ObjectHelper.requireNonNull(value, "value is null");
+        final long[] k = keys;
+        final V[] a = values;
+        final int m = mask;
+        int pos = mix(key) & m;
+        for (;;) {
+            V v = a[pos];
+            if (v == null) {
+                break;
+            }
+            if (k[pos] == key) {
+                a[pos] = value;
+                return v;
+            }
+            pos = (pos + 1) & m;
+        }
+        k[pos] = key;
+        a[pos] = value;
+        if (++size >= maxSize) {
+            rehash();
+        }
+        return null;
+    }
+
+    /**
+     * Copies all mappings of the other map into this map, replacing the
+     * values of keys mapped in both.
+     * @param other the other map, not null
+     */
+    public void putAll(LongObjectMap<? extends V> other) {
+        long[] k = other.keys;
+        Object[] a = other.values;
+        for (int i = 0; i < a.length; i++) {
+            @SuppressWarnings("unchecked")
+            V v = (V)a[i];
+            if (v != null) {
+                put(k[i], v);
+            }
+        }
+    }
+
+    /**
+     * Removes the mapping of the given key.
+     * @param key the key
+     * @return the removed value or null if the key was not mapped
+     */
+    public V remove(long key) {
+        final long[] k = keys;
+        final V[] a = values;
+        final int m = mask;
+        int pos = mix(key) & m;
+        for (;;) {
+            V v = a[pos];
+            if (v == null) {
+                return null;
+            }
+            if (k[pos] == key) {
+                removeEntry(pos, k, a, m);
+                return v;
+            }
+            pos = (pos + 1) & m;
+        }
+    }
+
+    void removeEntry(int pos, long[] k, V[] a, int m) {
+        size--;
+
+        int last;
+        int slot;
+        for (;;) {
+            last = pos;
+            pos = (pos + 1) & m;
+            for (;;) {
+                if (a[pos] == null) {
+                    a[last] = null;
+                    return;
+                }
+                slot = mix(k[pos]) & m;
+
+                if (last <= pos ? last >= slot || slot > pos : last >= slot && slot > pos) {
+                    break;
+                }
+
+                pos = (pos + 1) & m;
+            }
+            k[last] = k[pos];
+            a[last] = a[pos];
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    void rehash() {
+        long[] k = keys;
+        V[] a = values;
+        int newCap = a.length << 1;
+        int m = newCap - 1;
+
+        long[] k2 = new long[newCap];
+        V[] b = (V[])new Object[newCap];
+
+        for (int i = 0; i < a.length; i++) {
+            V v = a[i];
+            if (v != null) {
+                int pos = mix(k[i]) & m;
+                while (b[pos] != null) {
+                    pos = (pos + 1) & m;
+                }
+                k2[pos] = k[i];
+                b[pos] = v;
+            }
+        }
+
+        this.mask = m;
+        this.maxSize = (int)(newCap * LOAD_FACTOR);
+        this.keys = k2;
+        this.values = b;
+    }
+
+    static int mix(long x) {
+        final int h = (int)(x ^ (x >>> 32)) * INT_PHI;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Returns the mapped keys in no particular order.
+     * @return a new array of the keys
+     */
+    public long[] keys() {
+        long[] k = keys;
+        V[] a = values;
+        long[] result = new long[size];
+        int j = 0;
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] != null) {
+                result[j++] = k[i];
+            }
+        }
+        return result;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+}
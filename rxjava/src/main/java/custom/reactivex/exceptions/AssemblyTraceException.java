@@ -0,0 +1,48 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package custom.reactivex.exceptions;
+
+import custom.reactivex.annotations.Experimental;
+
+/**
+ * Marker attached to the errors passing through a tracked operator, describing where that
+ * operator was assembled; see {@link custom.reactivex.plugins.AssemblyTracking AssemblyTracking}.
+ * <p>
+ * Instances are shared by all errors of the same call site and never capture a stack trace
+ * of their own; the call site is part of the message. For the same reason, they never get a cause.
+ */
+@Experimental
+public final class AssemblyTraceException extends RuntimeException {
+
+    private static final long serialVersionUID = -6035472372811738254L;
+
+    /**
+     * Constructs an AssemblyTraceException with the given description of the call site.
+     * @param message the description of the call site
+     */
+    public AssemblyTraceException(String message) {
+        super(message);
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+
+    @Override
+    public synchronized Throwable initCause(Throwable cause) { // NOPMD
+        // shared by many errors, don't let a CompositeException chain them through it
+        return this;
+    }
+}
@@ -18,6 +18,8 @@ package custom.reactivex.exceptions;
 import java.io.*;
 import java.util.*;
 
+import custom.reactivex.internal.util.ExceptionHelper;
+
 /**
  * Represents an exception that is a composite of one or more other exceptions. A {@code CompositeException}
  * does not modify the structure of any exception it wraps, but at print-time it iterates through the list of
@@ -31,13 +33,19 @@ import java.util.*;
  *
  * If you invoke {@link #getCause()}, it will lazily create the causal chain but will stop if it finds any
  * Throwable in the chain that it has already seen.
+ *
+ * The nested composites are flattened and deduplicated only when the exceptions are first accessed, so
+ * composing errors one by one (as {@code AtomicThrowable} does) costs a single array copy per step. Unless the
+ * {@code rx2.stackless-exceptions} system property is set to false, no stack trace is captured on creation.
  */
 public final class CompositeException extends RuntimeException {
 
     private static final long serialVersionUID = 3026362227162912146L;
 
-    private final List<Throwable> exceptions;
-    private final String message;
+    /** The Throwables as received, composites not flattened yet. */
+    private final Throwable[] sources;
+    /** The flattened and deduplicated list of exceptions, built on first use. */
+    private volatile List<Throwable> exceptions;
     private Throwable cause;
 
     /**
@@ -48,8 +56,21 @@ public final class CompositeException extends RuntimeException {
      * @throws IllegalArgumentException if <code>exceptions</code> is empty.
      */
     public CompositeException(Throwable... exceptions) {
-        this(exceptions == null ?
-            Arrays.asList(new NullPointerException("exceptions was null")) : Arrays.asList(exceptions));
+        Throwable[] a;
+        if (exceptions != null) {
+            a = exceptions.clone();
+            for (int i = 0; i < a.length; i++) {
+                if (a[i] == null) {
+                    a[i] = new NullPointerException("Throwable was null!");
+                }
+            }
+        } else {
+            a = new Throwable[] { new NullPointerException("exceptions was null") };
+        }
+        if (a.length == 0) {
+            throw new IllegalArgumentException("errors is empty");
+        }
+        this.sources = a;
     }
 
     /**
@@ -60,28 +81,22 @@ public final class CompositeException extends RuntimeException {
      * @throws IllegalArgumentException if <code>errors</code> is empty.
      */
     public CompositeException(Iterable<? extends Throwable> errors) {
-        Set<Throwable> deDupedExceptions = new LinkedHashSet<Throwable>();
-        List<Throwable> localExceptions = new ArrayList<Throwable>();
+        List<Throwable> list = new ArrayList<Throwable>();
         if (errors != null) {
             for (Throwable ex : errors) {
-                if (ex instanceof CompositeException) {
-                    deDupedExceptions.addAll(((CompositeException) ex).getExceptions());
-                } else
                 if (ex != null) {
-                    deDupedExceptions.add(ex);
+                    list.add(ex);
                 } else {
-                    deDupedExceptions.add(new NullPointerException("Throwable was null!"));
+                    list.add(new NullPointerException("Throwable was null!"));
                 }
             }
         } else {
-            deDupedExceptions.add(new NullPointerException("errors was null"));
+            list.add(new NullPointerException("errors was null"));
         }
-        if (deDupedExceptions.isEmpty()) {
+        if (list.isEmpty()) {
             throw new IllegalArgumentException("errors is empty");
         }
-        localExceptions.addAll(deDupedExceptions);
-        this.exceptions = Collections.unmodifiableList(localExceptions);
-        this.message = exceptions.size() + " exceptions occurred. ";
+        this.sources = list.toArray(new Throwable[list.size()]);
     }
 
     /**
@@ -90,12 +105,58 @@ public final class CompositeException extends RuntimeException {
      * @return the exceptions that make up the {@code CompositeException}, as a {@link List} of {@link Throwable}s
      */
     public List<Throwable> getExceptions() {
-        return exceptions;
+        List<Throwable> list = exceptions;
+        if (list == null) {
+            list = flatten();
+            exceptions = list;
+        }
+        return list;
+    }
+
+    /**
+     * Flattens the nested CompositeExceptions, depth first and without recursion so
+     * long chains built by repeated composition don't overflow the stack, and removes
+     * the duplicates while keeping the order of first appearance.
+     * @return the unmodifiable list of non-composite exceptions
+     */
+    private List<Throwable> flatten() {
+        Set<Throwable> deDupedExceptions = new LinkedHashSet<Throwable>();
+        ArrayDeque<Throwable> stack = new ArrayDeque<Throwable>();
+        Throwable[] a = sources;
+        for (int i = a.length - 1; i >= 0; i--) {
+            stack.push(a[i]);
+        }
+        while (!stack.isEmpty()) {
+            Throwable ex = stack.pop();
+            if (ex instanceof CompositeException) {
+                CompositeException c = (CompositeException) ex;
+                List<Throwable> inner = c.exceptions;
+                if (inner != null) {
+                    deDupedExceptions.addAll(inner);
+                } else {
+                    Throwable[] b = c.sources;
+                    for (int i = b.length - 1; i >= 0; i--) {
+                        stack.push(b[i]);
+                    }
+                }
+            } else {
+                deDupedExceptions.add(ex);
+            }
+        }
+        return Collections.unmodifiableList(new ArrayList<Throwable>(deDupedExceptions));
     }
 
     @Override
     public String getMessage() {
-        return message;
+        return getExceptions().size() + " exceptions occurred. ";
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        if (ExceptionHelper.STACKLESS) {
+            return this;
+        }
+        return super.fillInStackTrace();
     }
 
     @Override
@@ -106,7 +167,7 @@ public final class CompositeException extends RuntimeException {
             Set<Throwable> seenCauses = new HashSet<Throwable>();
 
             Throwable chain = localCause;
-            for (Throwable e : exceptions) {
+            for (Throwable e : getExceptions()) {
                 if (seenCauses.contains(e)) {
                     // already seen this outer Throwable so skip
                     continue;
@@ -178,7 +239,7 @@ public final class CompositeException extends RuntimeException {
             b.append("\tat ").append(myStackElement).append('\n');
         }
         int i = 1;
-        for (Throwable ex : exceptions) {
+        for (Throwable ex : getExceptions()) {
             b.append("  ComposedException ").append(i).append(" :\n");
             appendStackTrace(b, ex, "\t");
             i++;
@@ -264,7 +325,7 @@ public final class CompositeException extends RuntimeException {
      * @return the number of suppressed exceptions
      */
     public int size() {
-        return exceptions.size();
+        return getExceptions().size();
     }
 
     /**
@@ -13,8 +13,13 @@
 
 package custom.reactivex.exceptions;
 
+import custom.reactivex.internal.util.ExceptionHelper;
+
 /**
  * Indicates that an operator attempted to emit a value but the downstream wasn't ready for it.
+ * <p>
+ * Instances don't capture the stack trace of their creation unless the
+ * {@code rx2.stackless-exceptions} system property is set to false.
  */
 public final class MissingBackpressureException extends RuntimeException {
 
@@ -35,4 +40,12 @@ public final class MissingBackpressureException extends RuntimeException {
         super(message);
     }
 
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        if (ExceptionHelper.STACKLESS) {
+            return this;
+        }
+        return super.fillInStackTrace();
+    }
+
 }
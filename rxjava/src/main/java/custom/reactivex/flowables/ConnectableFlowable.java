@@ -13,15 +13,19 @@
 
 package custom.reactivex.flowables;
 
+import java.util.concurrent.TimeUnit;
+
 import org.reactivestreams.Subscriber;
 
-import custom.reactivex.Flowable;
+import custom.reactivex.*;
+import custom.reactivex.annotations.*;
 import custom.reactivex.disposables.Disposable;
 import custom.reactivex.functions.Consumer;
-import custom.reactivex.internal.functions.Functions;
+import custom.reactivex.internal.functions.*;
 import custom.reactivex.internal.operators.flowable.*;
 import custom.reactivex.internal.util.ConnectConsumer;
 import custom.reactivex.plugins.RxJavaPlugins;
+import custom.reactivex.schedulers.Schedulers;
 
 /**
  * A {@code ConnectableObservable} resembles an ordinary {@link Flowable}, except that it does not begin
@@ -75,6 +79,49 @@ public abstract class ConnectableFlowable<T> extends Flowable<T> {
         return RxJavaPlugins.onAssembly(new FlowableRefCount<T>(this));
     }
 
+    /**
+     * Returns an {@code Observable} that stays connected to this {@code ConnectableObservable} as long as there
+     * is at least one subscription to this {@code ConnectableObservable} and disconnects only if no
+     * new subscription arrives within the given grace period after the last one was cancelled.
+     * <p>
+     * The grace period avoids tearing down and re-establishing the connection when subscribers churn.
+     * The disconnect is timed on the {@code computation} {@link Scheduler}.
+     *
+     * @param timeout the time to wait before disconnecting, zero disconnects immediately
+     * @param unit the time unit of the timeout
+     * @return a {@link Flowable}
+     * @see <a href="http://reactivex.io/documentation/operators/refcount.html">ReactiveX documentation: RefCount</a>
+     */
+    @Experimental
+    @SchedulerSupport(SchedulerSupport.COMPUTATION)
+    public Flowable<T> refCount(long timeout, TimeUnit unit) {
+        return refCount(timeout, unit, Schedulers.computation());
+    }
+
+    /**
+     * Returns an {@code Observable} that stays connected to this {@code ConnectableObservable} as long as there
+     * is at least one subscription to this {@code ConnectableObservable} and disconnects only if no
+     * new subscription arrives within the given grace period after the last one was cancelled.
+     * <p>
+     * The grace period avoids tearing down and re-establishing the connection when subscribers churn.
+     *
+     * @param timeout the time to wait before disconnecting, zero disconnects immediately
+     * @param unit the time unit of the timeout
+     * @param scheduler the scheduler to time the disconnect on
+     * @return a {@link Flowable}
+     * @see <a href="http://reactivex.io/documentation/operators/refcount.html">ReactiveX documentation: RefCount</a>
+     */
+    @Experimental
+    @SchedulerSupport(SchedulerSupport.CUSTOM)
+    public Flowable<T> refCount(long timeout, TimeUnit unit, Scheduler scheduler) {
+        ObjectHelper.requireNonNull(unit, "unit is null");
+        ObjectHelper.requireNonNull(scheduler, "scheduler is null");
+        if (timeout < 0L) {
+            throw new IllegalArgumentException("timeout >= 0 required but it was " + timeout);
+        }
+        return RxJavaPlugins.onAssembly(new FlowableRefCount<T>(this, timeout, unit, scheduler));
+    }
+
     /**
      * Returns an Observable that automatically connects to this ConnectableObservable
      * when the first Subscriber subscribes.
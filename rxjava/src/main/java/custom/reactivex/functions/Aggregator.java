@@ -0,0 +1,63 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package custom.reactivex.functions;
+
+/**
+ * Describes an incremental aggregation: items are added to mutable or immutable accumulators,
+ * accumulators of adjacent parts of a sequence can be merged and the result is extracted
+ * from the accumulator of the whole sequence.
+ * <p>
+ * Operators may keep several accumulators per sequence, each covering a part of it, and merge
+ * them when a result is needed; therefore {@link #merge(Object, Object)} must not modify its
+ * second argument.
+ *
+ * @param <T> the item type
+ * @param <A> the accumulator type
+ * @param <R> the result type
+ */
+public interface Aggregator<T, A, R> {
+
+    /**
+     * Creates an accumulator representing no items.
+     * @return the new accumulator, not null
+     * @throws Exception on error
+     */
+    A createAccumulator() throws Exception;
+
+    /**
+     * Adds an item to the accumulator.
+     * @param accumulator the accumulator
+     * @param item the item to add
+     * @return the accumulator containing the item, may be the same instance
+     * @throws Exception on error
+     */
+    A add(A accumulator, T item) throws Exception;
+
+    /**
+     * Merges the accumulator of the items following those of {@code left} into {@code left}.
+     * @param left the accumulator of the earlier items, may be modified
+     * @param right the accumulator of the later items, must not be modified
+     * @return the accumulator containing the items of both, may be the same instance as {@code left}
+     * @throws Exception on error
+     */
+    A merge(A left, A right) throws Exception;
+
+    /**
+     * Extracts the result from the accumulator.
+     * @param accumulator the accumulator
+     * @return the result, not null
+     * @throws Exception on error
+     */
+    R result(A accumulator) throws Exception;
+}
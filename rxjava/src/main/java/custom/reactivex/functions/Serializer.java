@@ -0,0 +1,36 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+package custom.reactivex.functions;
+
+/**
+ * Converts values to and from their binary form, allowing throwing a checked exception.
+ *
+ * @param <T> the value type
+ */
+public interface Serializer<T> {
+    /**
+     * Convert the value into bytes.
+     * @param t the value
+     * @return the bytes representing the value
+     * @throws Exception on error
+     */
+    byte[] serialize(T t) throws Exception;
+
+    /**
+     * Restore a value from the bytes produced by {@link #serialize(Object)}.
+     * @param bytes the bytes representing the value
+     * @return the value
+     * @throws Exception on error
+     */
+    T deserialize(byte[] bytes) throws Exception;
+}
@@ -0,0 +1,28 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package custom.reactivex.functions;
+
+/**
+ * A functional interface (callback) that returns a primitive int value based on an input value.
+ * @param <T> the input value type
+ */
+public interface ToIntFunction<T> {
+    /**
+     * Calculates a primitive int value based on the input value.
+     * @param t the input value
+     * @return the primitive int result
+     * @throws Exception on error
+     */
+    int apply(T t) throws Exception;
+}
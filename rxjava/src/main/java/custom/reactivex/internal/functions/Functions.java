@@ -18,6 +18,7 @@ import java.util.concurrent.*;
 import org.reactivestreams.Subscription;
 
 import custom.reactivex.*;
+import custom.reactivex.collections.*;
 import custom.reactivex.functions.*;
 import custom.reactivex.plugins.RxJavaPlugins;
 import custom.reactivex.schedulers.Timed;
@@ -379,6 +380,131 @@ public final class Functions {
         return new ArrayListCapacityCallable<T>(capacity);
     }
 
+    enum ListLast implements Function<List<Object>, Object> {
+        INSTANCE;
+
+        @Override
+        public Object apply(List<Object> list) throws Exception {
+            return list.get(list.size() - 1);
+        }
+    }
+
+    /**
+     * Returns a function that returns the last element of a non-empty List.
+     * @param <T> the element type
+     * @return the function
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public static <T> Function<List<T>, T> listLast() {
+        return (Function)ListLast.INSTANCE;
+    }
+
+    static final class AggregatorSupplier<A> implements Callable<A> {
+        final Aggregator<?, A, ?> aggregator;
+
+        AggregatorSupplier(Aggregator<?, A, ?> aggregator) {
+            this.aggregator = aggregator;
+        }
+
+        @Override
+        public A call() throws Exception {
+            return aggregator.createAccumulator();
+        }
+    }
+
+    public static <A> Callable<A> aggregatorSupplier(Aggregator<?, A, ?> aggregator) {
+        return new AggregatorSupplier<A>(aggregator);
+    }
+
+    static final class AggregatorAdder<T, A> implements BiFunction<A, T, A> {
+        final Aggregator<? super T, A, ?> aggregator;
+
+        AggregatorAdder(Aggregator<? super T, A, ?> aggregator) {
+            this.aggregator = aggregator;
+        }
+
+        @Override
+        public A apply(A a, T t) throws Exception {
+            return aggregator.add(a, t);
+        }
+    }
+
+    public static <T, A> BiFunction<A, T, A> aggregatorAdder(Aggregator<? super T, A, ?> aggregator) {
+        return new AggregatorAdder<T, A>(aggregator);
+    }
+
+    static final class AggregatorMergeResult<A, R> implements Function<List<A>, R> {
+        final Aggregator<?, A, ? extends R> aggregator;
+
+        AggregatorMergeResult(Aggregator<?, A, ? extends R> aggregator) {
+            this.aggregator = aggregator;
+        }
+
+        @Override
+        public R apply(List<A> list) throws Exception {
+            Aggregator<?, A, ? extends R> ag = aggregator;
+            A a = ObjectHelper.requireNonNull(ag.createAccumulator(), "The aggregator returned a null accumulator");
+            for (A b : list) {
+                a = ObjectHelper.requireNonNull(ag.merge(a, b), "The aggregator returned a null accumulator");
+            }
+            return ag.result(a);
+        }
+    }
+
+    /**
+     * Returns a function that merges the accumulators of the list, in order, into a new
+     * accumulator and returns the result of that.
+     * @param <A> the accumulator type
+     * @param <R> the result type
+     * @param aggregator the aggregator
+     * @return the function
+     */
+    public static <A, R> Function<List<A>, R> aggregatorMergeResult(Aggregator<?, A, ? extends R> aggregator) {
+        return new AggregatorMergeResult<A, R>(aggregator);
+    }
+
+    static final class ArrayListCapacityFunction<K, V> implements Function<K, List<V>> {
+        final int capacity;
+
+        ArrayListCapacityFunction(int capacity) {
+            this.capacity = capacity;
+        }
+
+        @Override
+        public List<V> apply(K key) throws Exception {
+            return new ArrayList<V>(capacity);
+        }
+    }
+
+    public static <K, V> Function<K, List<V>> createArrayListFunction(int capacity) {
+        return new ArrayListCapacityFunction<K, V>(capacity);
+    }
+
+    static final class HashMapCapacityCallable<K, V> implements Callable<Map<K, V>> {
+        final int capacity;
+
+        HashMapCapacityCallable(int capacity) {
+            this.capacity = capacity;
+        }
+
+        @Override
+        public Map<K, V> call() throws Exception {
+            return new HashMap<K, V>(capacity);
+        }
+    }
+
+    /**
+     * Returns a Callable that creates HashMaps which can hold the given number
+     * of mappings without rehashing.
+     * @param <K> the key type
+     * @param <V> the value type
+     * @param expectedSize the expected number of mappings
+     * @return the Callable
+     */
+    public static <K, V> Callable<Map<K, V>> createHashMap(int expectedSize) {
+        return new HashMapCapacityCallable<K, V>(expectedSize >= (1 << 30) ? Integer.MAX_VALUE : (int)(expectedSize / 0.75f) + 1);
+    }
+
     static final class EqualsPredicate<T> implements Predicate<T> {
         final T value;
 
@@ -606,6 +732,82 @@ public final class Functions {
         return new ToMultimapKeyValueSelector<K, V, T>(collectionFactory, valueSelector, keySelector);
     }
 
+    static final class ToLongMapKeyValueSelector<V, T> implements BiConsumer<LongObjectMap<V>, T> {
+        private final ToLongFunction<? super T> keySelector;
+        private final Function<? super T, ? extends V> valueSelector;
+
+        ToLongMapKeyValueSelector(ToLongFunction<? super T> keySelector, Function<? super T, ? extends V> valueSelector) {
+            this.keySelector = keySelector;
+            this.valueSelector = valueSelector;
+        }
+
+        @Override
+        public void accept(LongObjectMap<V> m, T t) throws Exception {
+            long key = keySelector.apply(t);
+            V value = ObjectHelper.requireNonNull(valueSelector.apply(t), "The valueSelector returned a null value");
+            m.put(key, value);
+        }
+    }
+
+    public static <T, V> BiConsumer<LongObjectMap<V>, T> toLongMapKeyValueSelector(
+            ToLongFunction<? super T> keySelector, Function<? super T, ? extends V> valueSelector) {
+        return new ToLongMapKeyValueSelector<V, T>(keySelector, valueSelector);
+    }
+
+    static final class ToIntIntMapKeyValueSelector<T> implements BiConsumer<IntIntMap, T> {
+        private final ToIntFunction<? super T> keySelector;
+        private final ToIntFunction<? super T> valueSelector;
+
+        ToIntIntMapKeyValueSelector(ToIntFunction<? super T> keySelector, ToIntFunction<? super T> valueSelector) {
+            this.keySelector = keySelector;
+            this.valueSelector = valueSelector;
+        }
+
+        @Override
+        public void accept(IntIntMap m, T t) throws Exception {
+            m.put(keySelector.apply(t), valueSelector.apply(t));
+        }
+    }
+
+    public static <T> BiConsumer<IntIntMap, T> toIntIntMapKeyValueSelector(
+            ToIntFunction<? super T> keySelector, ToIntFunction<? super T> valueSelector) {
+        return new ToIntIntMapKeyValueSelector<T>(keySelector, valueSelector);
+    }
+
+    static final class LongObjectMapCallable<V> implements Callable<LongObjectMap<V>> {
+        final int expectedSize;
+
+        LongObjectMapCallable(int expectedSize) {
+            this.expectedSize = expectedSize;
+        }
+
+        @Override
+        public LongObjectMap<V> call() throws Exception {
+            return new LongObjectMap<V>(expectedSize);
+        }
+    }
+
+    public static <V> Callable<LongObjectMap<V>> createLongObjectMap(int expectedSize) {
+        return new LongObjectMapCallable<V>(expectedSize);
+    }
+
+    static final class IntIntMapCallable implements Callable<IntIntMap> {
+        final int expectedSize;
+
+        IntIntMapCallable(int expectedSize) {
+            this.expectedSize = expectedSize;
+        }
+
+        @Override
+        public IntIntMap call() throws Exception {
+            return new IntIntMap(expectedSize);
+        }
+    }
+
+    public static Callable<IntIntMap> createIntIntMap(int expectedSize) {
+        return new IntIntMapCallable(expectedSize);
+    }
+
     enum NaturalComparator implements Comparator<Object> {
         INSTANCE;
 
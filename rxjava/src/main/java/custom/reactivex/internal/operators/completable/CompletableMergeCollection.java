@@ -0,0 +1,216 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package custom.reactivex.internal.operators.completable;
+
+import java.util.concurrent.atomic.*;
+
+import custom.reactivex.*;
+import custom.reactivex.disposables.Disposable;
+import custom.reactivex.internal.disposables.DisposableHelper;
+import custom.reactivex.plugins.RxJavaPlugins;
+
+/**
+ * Subscribes to an array of sources with up to {@code maxConcurrency} slots running at once and
+ * completes when all sources completed.
+ * <p>
+ * Each slot has one observer that subscribes to the next not yet started source whenever its current
+ * source completes; the disposables of the running sources are kept in an array indexed by slot and
+ * completions are counted by a single counter, so no container entry is created per source.
+ */
+public final class CompletableMergeCollection extends Completable {
+    final CompletableSource[] sources;
+
+    final int maxConcurrency;
+
+    public CompletableMergeCollection(CompletableSource[] sources, int maxConcurrency) {
+        this.sources = sources;
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    @Override
+    protected void subscribeActual(CompletableObserver s) {
+        CompletableSource[] srcs = sources;
+        int n = srcs.length;
+        int m = Math.min(n, maxConcurrency);
+
+        MergeCollectionCoordinator parent = new MergeCollectionCoordinator(s, srcs, m);
+        s.onSubscribe(parent);
+
+        if (n == 0) {
+            s.onComplete();
+            return;
+        }
+
+        SlotObserver[] slots = parent.slots;
+        for (int i = 0; i < m; i++) {
+            if (parent.isDisposed()) {
+                return;
+            }
+            slots[i].next();
+        }
+    }
+
+    static final class MergeCollectionCoordinator extends AtomicInteger implements Disposable {
+
+        private static final long serialVersionUID = 6549383455493432591L;
+
+        final CompletableObserver actual;
+
+        final CompletableSource[] sources;
+
+        final SlotObserver[] slots;
+
+        /** The disposables of the sources running in each slot. */
+        final AtomicReferenceArray<Disposable> disposables;
+
+        /** The index of the next source to subscribe to. */
+        final AtomicInteger index;
+
+        final AtomicBoolean once;
+
+        volatile boolean disposed;
+
+        MergeCollectionCoordinator(CompletableObserver actual, CompletableSource[] sources, int slotCount) {
+            this.actual = actual;
+            this.sources = sources;
+            this.disposables = new AtomicReferenceArray<Disposable>(slotCount);
+            this.index = new AtomicInteger();
+            this.once = new AtomicBoolean();
+            this.slots = new SlotObserver[slotCount];
+            for (int i = 0; i < slotCount; i++) {
+                slots[i] = new SlotObserver(this, i);
+            }
+            lazySet(sources.length);
+        }
+
+        @Override
+        public void dispose() {
+            if (!disposed) {
+                disposed = true;
+                AtomicReferenceArray<Disposable> ds = disposables;
+                for (int i = 0; i < ds.length(); i++) {
+                    Disposable d = ds.getAndSet(i, DisposableHelper.DISPOSED);
+                    if (d != null && d != DisposableHelper.DISPOSED) {
+                        d.dispose();
+                    }
+                }
+            }
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return disposed;
+        }
+
+        void setDisposable(int slot, Disposable d) {
+            AtomicReferenceArray<Disposable> ds = disposables;
+            for (;;) {
+                Disposable current = ds.get(slot);
+                if (current == DisposableHelper.DISPOSED) {
+                    d.dispose();
+                    return;
+                }
+                if (ds.compareAndSet(slot, current, d)) {
+                    return;
+                }
+            }
+        }
+
+        void innerError(Throwable e) {
+            dispose();
+            if (once.compareAndSet(false, true)) {
+                actual.onError(e);
+            } else {
+                RxJavaPlugins.onError(e);
+            }
+        }
+
+        /**
+         * Counts a completed source.
+         * @return true if more sources remain
+         */
+        boolean innerComplete() {
+            if (decrementAndGet() == 0) {
+                if (once.compareAndSet(false, true)) {
+                    actual.onComplete();
+                }
+                return false;
+            }
+            return true;
+        }
+    }
+
+    static final class SlotObserver extends AtomicInteger implements CompletableObserver {
+
+        private static final long serialVersionUID = -1426240271562604389L;
+
+        final MergeCollectionCoordinator parent;
+
+        final int slot;
+
+        SlotObserver(MergeCollectionCoordinator parent, int slot) {
+            this.parent = parent;
+            this.slot = slot;
+        }
+
+        /**
+         * Subscribes to the next source unless all sources were started; sources completing
+         * synchronously are handled in a loop instead of recursively.
+         */
+        void next() {
+            if (getAndIncrement() != 0) {
+                return;
+            }
+
+            MergeCollectionCoordinator p = parent;
+            CompletableSource[] srcs = p.sources;
+
+            do {
+                if (p.disposed) {
+                    return;
+                }
+
+                int i = p.index.getAndIncrement();
+                if (i >= srcs.length) {
+                    return;
+                }
+
+                CompletableSource c = srcs[i];
+                if (c == null) {
+                    p.innerError(new NullPointerException("The " + i + "th source is null"));
+                    return;
+                }
+
+                c.subscribe(this);
+            } while (decrementAndGet() != 0);
+        }
+
+        @Override
+        public void onSubscribe(Disposable d) {
+            parent.setDisposable(slot, d);
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            parent.innerError(e);
+        }
+
+        @Override
+        public void onComplete() {
+            if (parent.innerComplete()) {
+                next();
+            }
+        }
+    }
+}
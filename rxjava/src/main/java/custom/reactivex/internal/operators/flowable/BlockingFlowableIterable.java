@@ -15,7 +15,7 @@ package custom.reactivex.internal.operators.flowable;
 
 import java.util.*;
 import java.util.concurrent.atomic.AtomicReference;
-import java.util.concurrent.locks.*;
+import java.util.concurrent.locks.LockSupport;
 
 import org.reactivestreams.*;
 
@@ -23,21 +23,28 @@ import custom.reactivex.disposables.Disposable;
 import custom.reactivex.exceptions.MissingBackpressureException;
 import custom.reactivex.internal.queue.SpscArrayQueue;
 import custom.reactivex.internal.subscriptions.SubscriptionHelper;
-import custom.reactivex.internal.util.ExceptionHelper;
+import custom.reactivex.internal.util.*;
 
 public final class BlockingFlowableIterable<T> implements Iterable<T> {
     final Publisher<? extends T> source;
 
     final int bufferSize;
 
+    final WaitStrategy waitStrategy;
+
     public BlockingFlowableIterable(Publisher<? extends T> source, int bufferSize) {
+        this(source, bufferSize, WaitStrategy.DEFAULT);
+    }
+
+    public BlockingFlowableIterable(Publisher<? extends T> source, int bufferSize, WaitStrategy waitStrategy) {
         this.source = source;
         this.bufferSize = bufferSize;
+        this.waitStrategy = waitStrategy;
     }
 
     @Override
     public Iterator<T> iterator() {
-        BlockingFlowableIterator<T> it = new BlockingFlowableIterator<T>(bufferSize);
+        BlockingFlowableIterator<T> it = new BlockingFlowableIterator<T>(bufferSize, waitStrategy);
         source.subscribe(it);
         return it;
     }
@@ -54,21 +61,25 @@ public final class BlockingFlowableIterable<T> implements Iterable<T> {
 
         final long limit;
 
-        final Lock lock;
+        final WaitStrategy waitStrategy;
+
+        final boolean canPark;
 
-        final Condition condition;
+        /** The consumer thread parked or about to park; producers unpark it. */
+        final AtomicReference<Thread> waiter;
 
         long produced;
 
         volatile boolean done;
         Throwable error;
 
-        BlockingFlowableIterator(int batchSize) {
-            this.queue = new SpscArrayQueue<T>(batchSize);
+        BlockingFlowableIterator(int batchSize, WaitStrategy waitStrategy) {
+            this.queue = new SpscArrayQueue<T>(batchSize, true);
             this.batchSize = batchSize;
             this.limit = batchSize - (batchSize >> 2);
-            this.lock = new ReentrantLock();
-            this.condition = lock.newCondition();
+            this.waitStrategy = waitStrategy;
+            this.canPark = waitStrategy.canPark();
+            this.waiter = new AtomicReference<Thread>();
         }
 
         @Override
@@ -86,23 +97,39 @@ public final class BlockingFlowableIterable<T> implements Iterable<T> {
                     }
                 }
                 if (empty) {
-                    lock.lock();
-                    try {
-                        while (!done && queue.isEmpty()) {
-                            condition.await();
-                        }
-                    } catch (InterruptedException ex) {
-                        run();
-                        throw ExceptionHelper.wrapOrThrow(ex);
-                    } finally {
-                        lock.unlock();
-                    }
+                    await();
                 } else {
                     return true;
                 }
             }
         }
 
+        void await() {
+            int round = 0;
+            while (!done && queue.isEmpty()) {
+                if (waitStrategy.idle(round++)) {
+                    if (Thread.interrupted()) {
+                        interrupted();
+                    }
+                    continue;
+                }
+                Thread t = Thread.currentThread();
+                waiter.set(t);
+                if (!done && queue.isEmpty()) {
+                    LockSupport.park(this);
+                }
+                waiter.compareAndSet(t, null);
+                if (Thread.interrupted()) {
+                    interrupted();
+                }
+            }
+        }
+
+        void interrupted() {
+            run();
+            throw ExceptionHelper.wrapOrThrow(new InterruptedException());
+        }
+
         @Override
         public T next() {
             if (hasNext()) {
@@ -153,11 +180,11 @@ public final class BlockingFlowableIterable<T> implements Iterable<T> {
         }
 
         void signalConsumer() {
-            lock.lock();
-            try {
-                condition.signalAll();
-            } finally {
-                lock.unlock();
+            if (canPark) {
+                Thread t = waiter.getAndSet(null);
+                if (t != null) {
+                    LockSupport.unpark(t);
+                }
             }
         }
 
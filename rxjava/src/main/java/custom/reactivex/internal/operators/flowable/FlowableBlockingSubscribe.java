@@ -41,6 +41,20 @@ public final class FlowableBlockingSubscribe {
      * @param <T> the value type
      */
     public static <T> void subscribe(Publisher<? extends T> o, Subscriber<? super T> subscriber) {
+        subscribe(o, subscriber, WaitStrategy.DEFAULT);
+    }
+
+    /**
+     * Subscribes to the source and calls the Subscriber methods on the current thread,
+     * waiting for the next signal according to the given wait strategy.
+     * <p>
+     * The cancellation and backpressure is composed through.
+     * @param o the source publisher
+     * @param subscriber the subscriber to forward events and calls to in the current thread
+     * @param waitStrategy the strategy to wait for the next signal with
+     * @param <T> the value type
+     */
+    public static <T> void subscribe(Publisher<? extends T> o, Subscriber<? super T> subscriber, WaitStrategy waitStrategy) {
         final BlockingQueue<Object> queue = new LinkedBlockingQueue<Object>();
 
         BlockingSubscriber<T> bs = new BlockingSubscriber<T>(queue);
@@ -54,10 +68,25 @@ public final class FlowableBlockingSubscribe {
                 }
                 Object v = queue.poll();
                 if (v == null) {
-                    if (bs.isCancelled()) {
-                        break;
+                    int round = 0;
+                    while (waitStrategy.idle(round++)) {
+                        if (bs.isCancelled()) {
+                            return;
+                        }
+                        if (Thread.interrupted()) {
+                            throw new InterruptedException();
+                        }
+                        v = queue.poll();
+                        if (v != null) {
+                            break;
+                        }
+                    }
+                    if (v == null) {
+                        if (bs.isCancelled()) {
+                            break;
+                        }
+                        v = queue.take();
                     }
-                    v = queue.take();
                 }
                 if (bs.isCancelled()) {
                     break;
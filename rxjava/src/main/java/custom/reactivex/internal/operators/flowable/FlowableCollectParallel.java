@@ -0,0 +1,325 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package custom.reactivex.internal.operators.flowable;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.*;
+
+import org.reactivestreams.*;
+
+import custom.reactivex.*;
+import custom.reactivex.disposables.Disposable;
+import custom.reactivex.exceptions.Exceptions;
+import custom.reactivex.functions.BiConsumer;
+import custom.reactivex.internal.disposables.EmptyDisposable;
+import custom.reactivex.internal.functions.ObjectHelper;
+import custom.reactivex.internal.subscriptions.SubscriptionHelper;
+import custom.reactivex.internal.util.BackpressureHelper;
+import custom.reactivex.plugins.RxJavaPlugins;
+
+/**
+ * Collects the upstream items into a fixed number of partial containers, each updated
+ * on its own {@link Scheduler.Worker}, and combines the partial containers once the
+ * upstream completes.
+ * <p>
+ * Items are dispatched round-robin to the partial containers in batches of {@code batchSize}
+ * and the upstream is requested in batches as well so at most
+ * {@code 2 * parallelism * batchSize} items are in flight.
+ *
+ * @param <T> the upstream value type
+ * @param <U> the container type
+ */
+public final class FlowableCollectParallel<T, U> extends Single<U> {
+
+    final Publisher<T> source;
+
+    final Callable<? extends U> initialSupplier;
+
+    final BiConsumer<? super U, ? super T> collector;
+
+    final BiConsumer<? super U, ? super U> combiner;
+
+    final int parallelism;
+
+    final int batchSize;
+
+    final Scheduler scheduler;
+
+    public FlowableCollectParallel(Publisher<T> source, Callable<? extends U> initialSupplier,
+            BiConsumer<? super U, ? super T> collector, BiConsumer<? super U, ? super U> combiner,
+            int parallelism, int batchSize, Scheduler scheduler) {
+        this.source = source;
+        this.initialSupplier = initialSupplier;
+        this.collector = collector;
+        this.combiner = combiner;
+        this.parallelism = parallelism;
+        this.batchSize = batchSize;
+        this.scheduler = scheduler;
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    @Override
+    protected void subscribeActual(SingleObserver<? super U> s) {
+        int n = parallelism;
+        Object[] partials = new Object[n];
+        try {
+            for (int i = 0; i < n; i++) {
+                partials[i] = ObjectHelper.requireNonNull(initialSupplier.call(), "The initialSupplier returned a null value");
+            }
+        } catch (Throwable e) {
+            Exceptions.throwIfFatal(e);
+            EmptyDisposable.error(e, s);
+            return;
+        }
+
+        Rail<U>[] rails = new Rail[n];
+        for (int i = 0; i < n; i++) {
+            rails[i] = new Rail<U>((U)partials[i], scheduler.createWorker());
+        }
+
+        source.subscribe(new CollectParallelSubscriber<T, U>(s, collector, combiner, rails, batchSize));
+    }
+
+    static final class Rail<U> {
+        final U value;
+
+        final Scheduler.Worker worker;
+
+        Rail(U value, Scheduler.Worker worker) {
+            this.value = value;
+            this.worker = worker;
+        }
+    }
+
+    static final class CollectParallelSubscriber<T, U> extends AtomicInteger implements Subscriber<T>, Disposable {
+
+        private static final long serialVersionUID = -4617426372549218357L;
+
+        final SingleObserver<? super U> actual;
+
+        final BiConsumer<? super U, ? super T> collector;
+
+        final BiConsumer<? super U, ? super U> combiner;
+
+        final Rail<U>[] rails;
+
+        final int batchSize;
+
+        final AtomicBoolean once;
+
+        /** The amount not yet requested from the upstream. */
+        final AtomicLong upstreamRequested;
+
+        /** Serializes the calls to the upstream's request from the rails. */
+        final AtomicInteger requestWip;
+
+        Subscription s;
+
+        Object[] batch;
+
+        int batchIndex;
+
+        int nextRail;
+
+        boolean done;
+
+        volatile boolean cancelled;
+
+        CollectParallelSubscriber(SingleObserver<? super U> actual, BiConsumer<? super U, ? super T> collector,
+                BiConsumer<? super U, ? super U> combiner, Rail<U>[] rails, int batchSize) {
+            this.actual = actual;
+            this.collector = collector;
+            this.combiner = combiner;
+            this.rails = rails;
+            this.batchSize = batchSize;
+            this.once = new AtomicBoolean();
+            this.upstreamRequested = new AtomicLong();
+            this.requestWip = new AtomicInteger();
+            this.batch = new Object[batchSize];
+            lazySet(rails.length);
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            if (SubscriptionHelper.validate(this.s, s)) {
+                this.s = s;
+                actual.onSubscribe(this);
+                requestUpstream(2L * rails.length * batchSize);
+            }
+        }
+
+        @Override
+        public void onNext(T t) {
+            if (done) {
+                return;
+            }
+            Object[] b = batch;
+            int i = batchIndex;
+            b[i++] = t;
+            if (i == b.length) {
+                dispatch(b, i);
+                batch = new Object[b.length];
+                i = 0;
+            }
+            batchIndex = i;
+        }
+
+        void dispatch(Object[] b, int count) {
+            int r = nextRail;
+            rails[r].worker.schedule(new BatchTask(rails[r].value, b, count));
+            nextRail = r + 1 == rails.length ? 0 : r + 1;
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            if (done) {
+                RxJavaPlugins.onError(t);
+                return;
+            }
+            done = true;
+            batch = null;
+            fail(t);
+        }
+
+        @Override
+        public void onComplete() {
+            if (done) {
+                return;
+            }
+            done = true;
+            if (batchIndex != 0) {
+                dispatch(batch, batchIndex);
+            }
+            batch = null;
+            for (Rail<U> r : rails) {
+                r.worker.schedule(new FinishTask());
+            }
+        }
+
+        void fail(Throwable t) {
+            if (once.compareAndSet(false, true)) {
+                cancelled = true;
+                s.cancel();
+                actual.onError(t);
+                disposeWorkers();
+            } else {
+                RxJavaPlugins.onError(t);
+            }
+        }
+
+        void requestUpstream(long n) {
+            BackpressureHelper.add(upstreamRequested, n);
+            if (requestWip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            for (;;) {
+                long r = upstreamRequested.getAndSet(0L);
+                if (r != 0L) {
+                    s.request(r);
+                }
+                missed = requestWip.addAndGet(-missed);
+                if (missed == 0) {
+                    break;
+                }
+            }
+        }
+
+        void disposeWorkers() {
+            for (Rail<U> r : rails) {
+                r.worker.dispose();
+            }
+        }
+
+        void combine() {
+            if (cancelled) {
+                return;
+            }
+            Rail<U>[] a = rails;
+            U acc = a[0].value;
+            try {
+                for (int i = 1; i < a.length; i++) {
+                    combiner.accept(acc, a[i].value);
+                }
+            } catch (Throwable ex) {
+                Exceptions.throwIfFatal(ex);
+                fail(ex);
+                return;
+            }
+            if (once.compareAndSet(false, true)) {
+                actual.onSuccess(acc);
+                disposeWorkers();
+            }
+        }
+
+        @Override
+        public void dispose() {
+            if (!cancelled) {
+                cancelled = true;
+                once.set(true);
+                s.cancel();
+                disposeWorkers();
+            }
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return cancelled;
+        }
+
+        final class BatchTask implements Runnable {
+            final U value;
+
+            final Object[] items;
+
+            final int count;
+
+            BatchTask(U value, Object[] items, int count) {
+                this.value = value;
+                this.items = items;
+                this.count = count;
+            }
+
+            @SuppressWarnings("unchecked")
+            @Override
+            public void run() {
+                Object[] b = items;
+                int n = count;
+                BiConsumer<? super U, ? super T> c = collector;
+                for (int i = 0; i < n; i++) {
+                    if (cancelled) {
+                        return;
+                    }
+                    try {
+                        c.accept(value, (T)b[i]);
+                    } catch (Throwable ex) {
+                        Exceptions.throwIfFatal(ex);
+                        fail(ex);
+                        return;
+                    }
+                }
+                requestUpstream(n);
+            }
+        }
+
+        final class FinishTask implements Runnable {
+            @Override
+            public void run() {
+                if (decrementAndGet() == 0) {
+                    combine();
+                }
+            }
+        }
+    }
+}
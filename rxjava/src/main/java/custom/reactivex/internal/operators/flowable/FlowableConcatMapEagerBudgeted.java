@@ -0,0 +1,445 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package custom.reactivex.internal.operators.flowable;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.*;
+
+import org.reactivestreams.*;
+
+import custom.reactivex.exceptions.Exceptions;
+import custom.reactivex.functions.*;
+import custom.reactivex.internal.functions.ObjectHelper;
+import custom.reactivex.internal.queue.SpscLinkedArrayQueue;
+import custom.reactivex.internal.subscriptions.SubscriptionHelper;
+import custom.reactivex.internal.util.*;
+import custom.reactivex.plugins.RxJavaPlugins;
+
+/**
+ * Maps the upstream items into Publishers, subscribes to up to {@code maxConcurrency} of them at once
+ * and relays their items in order while keeping the total weight of the buffered items under a budget.
+ * <p>
+ * The current (head) inner source prefetches {@code prefetch} items as usual. The other inner sources
+ * request one item at a time, in order, and only while the total weight of the items buffered by all
+ * inner sources is less than {@code maxBuffered}; the budget may therefore be exceeded by at most
+ * the head's prefetch amount plus one item per inner source.
+ *
+ * @param <T> the upstream value type
+ * @param <R> the output value type
+ */
+public final class FlowableConcatMapEagerBudgeted<T, R> extends AbstractFlowableWithUpstream<T, R> {
+
+    final Function<? super T, ? extends Publisher<? extends R>> mapper;
+
+    final int maxConcurrency;
+
+    final int prefetch;
+
+    final long maxBuffered;
+
+    final ToLongFunction<? super R> weigher;
+
+    public FlowableConcatMapEagerBudgeted(Publisher<T> source,
+            Function<? super T, ? extends Publisher<? extends R>> mapper,
+            int maxConcurrency, int prefetch, long maxBuffered, ToLongFunction<? super R> weigher) {
+        super(source);
+        this.mapper = mapper;
+        this.maxConcurrency = maxConcurrency;
+        this.prefetch = prefetch;
+        this.maxBuffered = maxBuffered;
+        this.weigher = weigher;
+    }
+
+    @Override
+    protected void subscribeActual(Subscriber<? super R> s) {
+        source.subscribe(new ConcatMapEagerBudgetedSubscriber<T, R>(s, this));
+    }
+
+    static final class ConcatMapEagerBudgetedSubscriber<T, R>
+    extends AtomicInteger
+    implements Subscriber<T>, Subscription {
+
+        private static final long serialVersionUID = -6312237424566429493L;
+
+        final Subscriber<? super R> actual;
+
+        final Function<? super T, ? extends Publisher<? extends R>> mapper;
+
+        final int maxConcurrency;
+
+        final int prefetch;
+
+        final int limit;
+
+        final long maxBuffered;
+
+        final ToLongFunction<? super R> weigher;
+
+        final AtomicThrowable errors;
+
+        final AtomicLong requested;
+
+        /** The total weight of the items buffered by the inner sources. */
+        final AtomicLong buffered;
+
+        /** The inner sources created but not yet seen by the drain loop. */
+        final SpscLinkedArrayQueue<BudgetedInnerSubscriber<R>> subscribers;
+
+        /** The inner sources in order, the head first; accessed only by the drain loop. */
+        final ArrayDeque<BudgetedInnerSubscriber<R>> active;
+
+        Subscription s;
+
+        volatile boolean cancelled;
+
+        volatile boolean done;
+
+        ConcatMapEagerBudgetedSubscriber(Subscriber<? super R> actual, FlowableConcatMapEagerBudgeted<T, R> parent) {
+            this.actual = actual;
+            this.mapper = parent.mapper;
+            this.maxConcurrency = parent.maxConcurrency;
+            this.prefetch = parent.prefetch;
+            this.limit = prefetch - (prefetch >> 2);
+            this.maxBuffered = parent.maxBuffered;
+            this.weigher = parent.weigher;
+            this.subscribers = new SpscLinkedArrayQueue<BudgetedInnerSubscriber<R>>(Math.min(prefetch, maxConcurrency));
+            this.active = new ArrayDeque<BudgetedInnerSubscriber<R>>();
+            this.errors = new AtomicThrowable();
+            this.requested = new AtomicLong();
+            this.buffered = new AtomicLong();
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            if (SubscriptionHelper.validate(this.s, s)) {
+                this.s = s;
+
+                actual.onSubscribe(this);
+
+                s.request(maxConcurrency == Integer.MAX_VALUE ? Long.MAX_VALUE : maxConcurrency);
+            }
+        }
+
+        @Override
+        public void onNext(T t) {
+            Publisher<? extends R> p;
+
+            try {
+                p = ObjectHelper.requireNonNull(mapper.apply(t), "The mapper returned a null Publisher");
+            } catch (Throwable ex) {
+                Exceptions.throwIfFatal(ex);
+                s.cancel();
+                onError(ex);
+                return;
+            }
+
+            BudgetedInnerSubscriber<R> inner = new BudgetedInnerSubscriber<R>(this);
+
+            if (cancelled) {
+                return;
+            }
+
+            subscribers.offer(inner);
+
+            if (cancelled) {
+                return;
+            }
+
+            p.subscribe(inner);
+
+            drain();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            if (errors.addThrowable(t)) {
+                done = true;
+                drain();
+            } else {
+                RxJavaPlugins.onError(t);
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            done = true;
+            drain();
+        }
+
+        @Override
+        public void request(long n) {
+            if (SubscriptionHelper.validate(n)) {
+                BackpressureHelper.add(requested, n);
+                drain();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            s.cancel();
+
+            if (getAndIncrement() == 0) {
+                do {
+                    cancelAll();
+                } while (decrementAndGet() != 0);
+            }
+        }
+
+        void cancelAll() {
+            BudgetedInnerSubscriber<R> inner;
+
+            while ((inner = active.poll()) != null) {
+                inner.cancel();
+                inner.queue.clear();
+            }
+
+            while ((inner = subscribers.poll()) != null) {
+                inner.cancel();
+            }
+        }
+
+        void innerNext(BudgetedInnerSubscriber<R> inner, R value) {
+            long w;
+            try {
+                w = weigher.apply(value);
+            } catch (Throwable ex) {
+                Exceptions.throwIfFatal(ex);
+                inner.cancel();
+                innerError(inner, ex);
+                return;
+            }
+            buffered.addAndGet(w);
+            inner.queue.offer(w, value);
+            inner.arrived++;
+            drain();
+        }
+
+        void innerError(BudgetedInnerSubscriber<R> inner, Throwable e) {
+            if (errors.addThrowable(e)) {
+                inner.done = true;
+                s.cancel();
+                drain();
+            } else {
+                RxJavaPlugins.onError(e);
+            }
+        }
+
+        void innerComplete(BudgetedInnerSubscriber<R> inner) {
+            inner.done = true;
+            drain();
+        }
+
+        @SuppressWarnings("unchecked")
+        void drain() {
+            if (getAndIncrement() != 0) {
+                return;
+            }
+
+            int missed = 1;
+            Subscriber<? super R> a = actual;
+            ArrayDeque<BudgetedInnerSubscriber<R>> act = active;
+            AtomicLong buf = buffered;
+
+            for (;;) {
+                if (cancelled) {
+                    cancelAll();
+                    return;
+                }
+
+                if (errors.get() != null) {
+                    cancelAll();
+                    a.onError(errors.terminate());
+                    return;
+                }
+
+                boolean d = done;
+
+                BudgetedInnerSubscriber<R> inner;
+                while ((inner = subscribers.poll()) != null) {
+                    act.offer(inner);
+                }
+
+                long r = requested.get();
+                long e = 0L;
+
+                inner = act.peek();
+
+                while (inner != null) {
+                    if (cancelled) {
+                        cancelAll();
+                        return;
+                    }
+
+                    if (errors.get() != null) {
+                        cancelAll();
+                        a.onError(errors.terminate());
+                        return;
+                    }
+
+                    boolean innerDone = inner.done;
+                    SpscLinkedArrayQueue<Object> q = inner.queue;
+                    boolean empty = q.isEmpty();
+
+                    if (innerDone && empty) {
+                        act.poll();
+                        inner = act.peek();
+                        if (maxConcurrency != Integer.MAX_VALUE) {
+                            s.request(1);
+                        }
+                        continue;
+                    }
+
+                    if (empty || e == r) {
+                        break;
+                    }
+
+                    long w = (Long)q.poll();
+                    R v = (R)q.poll();
+
+                    buf.addAndGet(-w);
+
+                    a.onNext(v);
+
+                    e++;
+                    long emitted = inner.emitted + 1;
+                    inner.emitted = emitted;
+
+                    long pending = inner.requested - emitted;
+                    if (prefetch - pending >= limit) {
+                        inner.requested += prefetch - pending;
+                        inner.request(prefetch - pending);
+                    }
+                }
+
+                if (e != 0L && r != Long.MAX_VALUE) {
+                    requested.addAndGet(-e);
+                }
+
+                if (d && act.isEmpty()) {
+                    Throwable ex = errors.terminate();
+                    if (ex != null) {
+                        a.onError(ex);
+                    } else {
+                        a.onComplete();
+                    }
+                    return;
+                }
+
+                requestInners(act);
+
+                missed = addAndGet(-missed);
+                if (missed == 0) {
+                    break;
+                }
+            }
+        }
+
+        /**
+         * Tops up the prefetch of the head and requests one item from each of the following inner
+         * sources, in order, that has no outstanding request while the budget is not exhausted.
+         * @param act the active inner sources
+         */
+        void requestInners(ArrayDeque<BudgetedInnerSubscriber<R>> act) {
+            boolean head = true;
+            int pf = prefetch;
+            long max = maxBuffered;
+            AtomicLong buf = buffered;
+
+            for (BudgetedInnerSubscriber<R> inner : act) {
+                long req = inner.requested;
+                long pending = req - inner.emitted;
+                if (head) {
+                    head = false;
+                    if (pf - pending >= limit && !inner.done) {
+                        inner.requested = req + pf - pending;
+                        inner.request(pf - pending);
+                    }
+                } else {
+                    if (buf.get() >= max) {
+                        break;
+                    }
+                    if (!inner.done && req == inner.arrived && pending < pf) {
+                        inner.requested = req + 1;
+                        inner.request(1);
+                    }
+                }
+            }
+        }
+    }
+
+    static final class BudgetedInnerSubscriber<R>
+    extends AtomicReference<Subscription>
+    implements Subscriber<R>, Subscription {
+
+        private static final long serialVersionUID = 2470370437926406934L;
+
+        final ConcatMapEagerBudgetedSubscriber<?, R> parent;
+
+        /** Holds weight and item pairs. */
+        final SpscLinkedArrayQueue<Object> queue;
+
+        final AtomicLong missedRequested;
+
+        volatile boolean done;
+
+        /** The number of items received, written only by onNext. */
+        volatile long arrived;
+
+        /** The number of items requested, accessed only by the drain loop. */
+        long requested;
+
+        /** The number of items emitted, accessed only by the drain loop. */
+        long emitted;
+
+        BudgetedInnerSubscriber(ConcatMapEagerBudgetedSubscriber<?, R> parent) {
+            this.parent = parent;
+            this.queue = new SpscLinkedArrayQueue<Object>(parent.prefetch);
+            this.missedRequested = new AtomicLong();
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            SubscriptionHelper.deferredSetOnce(this, missedRequested, s);
+        }
+
+        @Override
+        public void onNext(R t) {
+            parent.innerNext(this, t);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            parent.innerError(this, t);
+        }
+
+        @Override
+        public void onComplete() {
+            parent.innerComplete(this);
+        }
+
+        @Override
+        public void request(long n) {
+            SubscriptionHelper.deferredRequest(this, missedRequested, n);
+        }
+
+        @Override
+        public void cancel() {
+            SubscriptionHelper.cancel(this);
+        }
+    }
+}
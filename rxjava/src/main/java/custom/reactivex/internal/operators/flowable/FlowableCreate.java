@@ -13,6 +13,8 @@
 
 package custom.reactivex.internal.operators.flowable;
 
+import java.util.*;
+import java.util.concurrent.Callable;
 import java.util.concurrent.atomic.*;
 
 import org.reactivestreams.*;
@@ -23,7 +25,7 @@ import custom.reactivex.exceptions.*;
 import custom.reactivex.functions.Cancellable;
 import custom.reactivex.internal.disposables.*;
 import custom.reactivex.internal.fuseable.SimplePlainQueue;
-import custom.reactivex.internal.queue.SpscLinkedArrayQueue;
+import custom.reactivex.internal.queue.*;
 import custom.reactivex.internal.subscriptions.SubscriptionHelper;
 import custom.reactivex.internal.util.*;
 import custom.reactivex.plugins.RxJavaPlugins;
@@ -61,6 +63,10 @@ public final class FlowableCreate<T> extends Flowable<T> {
             emitter = new LatestAsyncEmitter<T>(t);
             break;
         }
+        case BUFFER_CONCURRENT: {
+            emitter = new ConcurrentBufferAsyncEmitter<T>(t);
+            break;
+        }
         default: {
             emitter = new BufferAsyncEmitter<T>(t, bufferSize());
             break;
@@ -76,6 +82,43 @@ public final class FlowableCreate<T> extends Flowable<T> {
         }
     }
 
+    /**
+     * Checks the items of a batch for null.
+     * @param items the batch
+     * @return the exception to signal if the batch or one of its items is null, null otherwise
+     */
+    static NullPointerException nullBatch(Object[] items) {
+        if (items == null) {
+            return new NullPointerException("onNextBatch called with null. Null values are generally not allowed in 2.x operators and sources.");
+        }
+        for (Object o : items) {
+            if (o == null) {
+                return new NullPointerException("onNextBatch called with a null item. Null values are generally not allowed in 2.x operators and sources.");
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Copies the items of an Iterable batch into an array.
+     * @param items the batch
+     * @return the array of items
+     * @throws NullPointerException if the batch or one of its items is null
+     */
+    static Object[] batchToArray(Iterable<?> items) {
+        if (items == null) {
+            throw new NullPointerException("onNextBatch called with null. Null values are generally not allowed in 2.x operators and sources.");
+        }
+        List<Object> list = items instanceof Collection ? new ArrayList<Object>(((Collection<?>)items).size()) : new ArrayList<Object>();
+        for (Object o : items) {
+            if (o == null) {
+                throw new NullPointerException("onNextBatch called with a null item. Null values are generally not allowed in 2.x operators and sources.");
+            }
+            list.add(o);
+        }
+        return list.toArray();
+    }
+
     /**
      * Serializes calls to onNext, onError and onComplete.
      *
@@ -127,6 +170,56 @@ public final class FlowableCreate<T> extends Flowable<T> {
             drainLoop();
         }
 
+        @Override
+        public void onNextBatch(T[] items) {
+            if (emitter.isCancelled() || done) {
+                return;
+            }
+            NullPointerException npe = nullBatch(items);
+            if (npe != null) {
+                onError(npe);
+                return;
+            }
+            onNextBatchValidated(items);
+        }
+
+        @Override
+        public void onNextBatch(Iterable<? extends T> items) {
+            if (emitter.isCancelled() || done) {
+                return;
+            }
+            Object[] a;
+            try {
+                a = batchToArray(items);
+            } catch (Throwable ex) {
+                Exceptions.throwIfFatal(ex);
+                onError(ex);
+                return;
+            }
+            onNextBatchValidated(a);
+        }
+
+        @SuppressWarnings("unchecked")
+        void onNextBatchValidated(Object[] items) {
+            if (get() == 0 && compareAndSet(0, 1)) {
+                emitter.emitBatch(items, false);
+                if (decrementAndGet() == 0) {
+                    return;
+                }
+            } else {
+                SimplePlainQueue<T> q = queue;
+                synchronized (q) {
+                    for (Object o : items) {
+                        q.offer((T)o);
+                    }
+                }
+                if (getAndIncrement() != 0) {
+                    return;
+                }
+            }
+            drainLoop();
+        }
+
         @Override
         public void onError(Throwable t) {
             if (emitter.isCancelled() || done) {
@@ -271,6 +364,50 @@ public final class FlowableCreate<T> extends Flowable<T> {
             }
         }
 
+        @Override
+        public final void onNextBatch(T[] items) {
+            if (isCancelled()) {
+                return;
+            }
+            NullPointerException npe = nullBatch(items);
+            if (npe != null) {
+                onError(npe);
+                return;
+            }
+            emitBatch(items, false);
+        }
+
+        @Override
+        public final void onNextBatch(Iterable<? extends T> items) {
+            if (isCancelled()) {
+                return;
+            }
+            Object[] a;
+            try {
+                a = batchToArray(items);
+            } catch (Throwable ex) {
+                Exceptions.throwIfFatal(ex);
+                onError(ex);
+                return;
+            }
+            emitBatch(a, true);
+        }
+
+        /**
+         * Emits a batch of non-null items.
+         * @param items the items
+         * @param owned true if the array is not accessible by the caller and can be retained
+         */
+        @SuppressWarnings("unchecked")
+        void emitBatch(Object[] items, boolean owned) {
+            for (Object o : items) {
+                if (isCancelled()) {
+                    return;
+                }
+                onNext((T)o);
+            }
+        }
+
         @Override
         public final void cancel() {
             serial.dispose();
@@ -445,6 +582,20 @@ public final class FlowableCreate<T> extends Flowable<T> {
             drain();
         }
 
+        @Override
+        void emitBatch(Object[] items, boolean owned) {
+            if (done || isCancelled()) {
+                return;
+            }
+            try {
+                queue.fill(new ArrayCursor<T>(items), items.length);
+            } catch (Throwable ex) {
+                // ArrayCursor doesn't throw
+                throw ExceptionHelper.wrapOrThrow(ex);
+            }
+            drain();
+        }
+
         @Override
         public void onError(Throwable e) {
             if (done || isCancelled()) {
@@ -556,6 +707,243 @@ public final class FlowableCreate<T> extends Flowable<T> {
         }
     }
 
+    /**
+     * Hands out the items of an array one by one, returning null at the end.
+     *
+     * @param <T> the value type
+     */
+    static final class ArrayCursor<T> implements Callable<T> {
+        final Object[] items;
+
+        int index;
+
+        ArrayCursor(Object[] items) {
+            this.items = items;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public T call() {
+            Object[] a = items;
+            int i = index;
+            if (i == a.length) {
+                return null;
+            }
+            index = i + 1;
+            return (T)a[i];
+        }
+    }
+
+    /**
+     * Buffers items offered by any number of threads concurrently; a batch is
+     * offered as a single {@link Batch} node.
+     *
+     * @param <T> the value type
+     */
+    static final class ConcurrentBufferAsyncEmitter<T> extends BaseEmitter<T> {
+
+        private static final long serialVersionUID = -1796427014617393585L;
+
+        final MpscLinkedQueue<Object> queue;
+
+        final AtomicInteger wip;
+
+        final AtomicBoolean once;
+
+        Throwable error;
+        volatile boolean done;
+
+        /** The batch being emitted, accessed only by the draining thread. */
+        Object[] batch;
+
+        /** The index of the next item in {@link #batch}, accessed only by the draining thread. */
+        int batchIndex;
+
+        ConcurrentBufferAsyncEmitter(Subscriber<? super T> actual) {
+            super(actual);
+            this.queue = new MpscLinkedQueue<Object>();
+            this.wip = new AtomicInteger();
+            this.once = new AtomicBoolean();
+        }
+
+        @Override
+        public void onNext(T t) {
+            if (done || isCancelled()) {
+                return;
+            }
+
+            if (t == null) {
+                onError(new NullPointerException("onNext called with null. Null values are generally not allowed in 2.x operators and sources."));
+                return;
+            }
+            queue.offer(t);
+            drain();
+        }
+
+        @Override
+        void emitBatch(Object[] items, boolean owned) {
+            if (done || isCancelled() || items.length == 0) {
+                return;
+            }
+            queue.offer(new Batch(owned ? items : items.clone()));
+            drain();
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            if (e == null) {
+                e = new NullPointerException("onError called with null. Null values are generally not allowed in 2.x operators and sources.");
+            }
+            if (isCancelled() || !once.compareAndSet(false, true)) {
+                RxJavaPlugins.onError(e);
+                return;
+            }
+
+            error = e;
+            done = true;
+            drain();
+        }
+
+        @Override
+        public void onComplete() {
+            if (once.compareAndSet(false, true)) {
+                done = true;
+                drain();
+            }
+        }
+
+        @Override
+        void onRequested() {
+            drain();
+        }
+
+        @Override
+        void onUnsubscribed() {
+            if (wip.getAndIncrement() == 0) {
+                clear();
+            }
+        }
+
+        void clear() {
+            queue.clear();
+            batch = null;
+        }
+
+        /**
+         * Returns the next item from the current batch or the queue.
+         * @return the next item or null if there is none
+         */
+        @SuppressWarnings("unchecked")
+        T poll() {
+            Object[] b = batch;
+            if (b == null) {
+                Object o = queue.poll();
+                if (!(o instanceof Batch)) {
+                    return (T)o;
+                }
+                b = ((Batch)o).items;
+                batch = b;
+                batchIndex = 0;
+            }
+            int i = batchIndex;
+            T v = (T)b[i++];
+            if (i == b.length) {
+                batch = null;
+            } else {
+                batchIndex = i;
+            }
+            return v;
+        }
+
+        boolean isEmpty() {
+            return batch == null && queue.isEmpty();
+        }
+
+        void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+
+            int missed = 1;
+            final Subscriber<? super T> a = actual;
+
+            for (;;) {
+                long r = get();
+                long e = 0L;
+
+                while (e != r) {
+                    if (isCancelled()) {
+                        clear();
+                        return;
+                    }
+
+                    boolean d = done;
+
+                    T o = poll();
+
+                    boolean empty = o == null;
+
+                    if (d && empty) {
+                        Throwable ex = error;
+                        if (ex != null) {
+                            super.onError(ex);
+                        } else {
+                            super.onComplete();
+                        }
+                        return;
+                    }
+
+                    if (empty) {
+                        break;
+                    }
+
+                    a.onNext(o);
+
+                    e++;
+                }
+
+                if (e == r) {
+                    if (isCancelled()) {
+                        clear();
+                        return;
+                    }
+
+                    boolean d = done;
+
+                    boolean empty = isEmpty();
+
+                    if (d && empty) {
+                        Throwable ex = error;
+                        if (ex != null) {
+                            super.onError(ex);
+                        } else {
+                            super.onComplete();
+                        }
+                        return;
+                    }
+                }
+
+                if (e != 0) {
+                    BackpressureHelper.produced(this, e);
+                }
+
+                missed = wip.addAndGet(-missed);
+                if (missed == 0) {
+                    break;
+                }
+            }
+        }
+
+        /** Wraps the items of an onNextBatch call in the queue. */
+        static final class Batch {
+            final Object[] items;
+
+            Batch(Object[] items) {
+                this.items = items;
+            }
+        }
+    }
+
     static final class LatestAsyncEmitter<T> extends BaseEmitter<T> {
 
 
@@ -13,7 +13,7 @@
 
 package custom.reactivex.internal.operators.flowable;
 
-import java.util.Iterator;
+import java.util.*;
 import java.util.concurrent.Callable;
 import java.util.concurrent.atomic.*;
 
@@ -59,10 +59,16 @@ public final class FlowableFlattenIterable<T, R> extends AbstractFlowableWithUps
                 return;
             }
 
+            Iterable<? extends R> iterable;
             Iterator<? extends R> it;
 
             try {
-                Iterable<? extends R> iterable = mapper.apply(v);
+                iterable = mapper.apply(v);
+
+                if (iterable instanceof RandomAccess && iterable instanceof List) {
+                    FlowableFromIterable.subscribe(s, (List<? extends R>)iterable);
+                    return;
+                }
 
                 it = iterable.iterator();
             } catch (Throwable ex) {
@@ -107,6 +113,13 @@ public final class FlowableFlattenIterable<T, R> extends AbstractFlowableWithUps
 
         Iterator<? extends R> current;
 
+        /** The current inner RandomAccess list, emitted by index instead of through an iterator. */
+        List<? extends R> currentList;
+
+        int index;
+
+        int listSize;
+
         int consumed;
 
         int fusionMode;
@@ -224,10 +237,11 @@ public final class FlowableFlattenIterable<T, R> extends AbstractFlowableWithUps
             int missed = 1;
 
             Iterator<? extends R> it = current;
+            List<? extends R> list = currentList;
 
             for (;;) {
 
-                if (it == null) {
+                if (it == null && list == null) {
 
                     boolean d = done;
 
@@ -242,6 +256,7 @@ public final class FlowableFlattenIterable<T, R> extends AbstractFlowableWithUps
                         ex = ExceptionHelper.terminate(error);
 
                         current = null;
+                        currentList = null;
                         q.clear();
 
                         a.onError(ex);
@@ -262,13 +277,22 @@ public final class FlowableFlattenIterable<T, R> extends AbstractFlowableWithUps
                         try {
                             iterable = mapper.apply(t);
 
-                            it = iterable.iterator();
-
-                            b = it.hasNext();
+                            if (iterable instanceof RandomAccess && iterable instanceof List) {
+                                list = (List<? extends R>)iterable;
+                                int n = list.size();
+                                b = n != 0;
+                                index = 0;
+                                listSize = n;
+                            } else {
+                                it = iterable.iterator();
+
+                                b = it.hasNext();
+                            }
                         } catch (Throwable ex) {
                             Exceptions.throwIfFatal(ex);
                             s.cancel();
                             it = null;
+                            list = null;
                             ExceptionHelper.addThrowable(error, ex);
                             ex = ExceptionHelper.terminate(error);
                             a.onError(ex);
@@ -277,11 +301,73 @@ public final class FlowableFlattenIterable<T, R> extends AbstractFlowableWithUps
 
                         if (!b) {
                             it = null;
+                            list = null;
                             consumedOne(replenish);
                             continue;
                         }
 
                         current = it;
+                        currentList = list;
+                    }
+                }
+
+                if (list != null) {
+                    long r = requested.get();
+                    long e = 0L;
+                    int i = index;
+                    int f = listSize;
+
+                    // emit as much of the list as requested, without per-element hasNext checks
+                    while (e != r && i != f) {
+                        if (checkTerminated(done, false, a, q)) {
+                            return;
+                        }
+
+                        R v;
+
+                        try {
+                            v = list.get(i);
+                        } catch (Throwable ex) {
+                            Exceptions.throwIfFatal(ex);
+                            currentList = null;
+                            s.cancel();
+                            ExceptionHelper.addThrowable(error, ex);
+                            ex = ExceptionHelper.terminate(error);
+                            a.onError(ex);
+                            return;
+                        }
+
+                        a.onNext(v);
+
+                        i++;
+                        e++;
+                    }
+
+                    index = i;
+
+                    if (i == f) {
+                        consumedOne(replenish);
+                        list = null;
+                        currentList = null;
+                    }
+
+                    if (e == r) {
+                        boolean d = done;
+                        boolean empty = q.isEmpty() && list == null;
+
+                        if (checkTerminated(d, empty, a, q)) {
+                            return;
+                        }
+                    }
+
+                    if (e != 0L) {
+                        if (r != Long.MAX_VALUE) {
+                            requested.addAndGet(-e);
+                        }
+                    }
+
+                    if (list == null) {
+                        continue;
                     }
                 }
 
@@ -380,6 +466,7 @@ public final class FlowableFlattenIterable<T, R> extends AbstractFlowableWithUps
         boolean checkTerminated(boolean d, boolean empty, Subscriber<?> a, SimpleQueue<?> q) {
             if (cancelled) {
                 current = null;
+                currentList = null;
                 q.clear();
                 return true;
             }
@@ -389,6 +476,7 @@ public final class FlowableFlattenIterable<T, R> extends AbstractFlowableWithUps
                     ex = ExceptionHelper.terminate(error);
 
                     current = null;
+                    currentList = null;
                     q.clear();
 
                     a.onError(ex);
@@ -404,11 +492,15 @@ public final class FlowableFlattenIterable<T, R> extends AbstractFlowableWithUps
         @Override
         public void clear() {
             current = null;
+            currentList = null;
             queue.clear();
         }
 
         @Override
         public boolean isEmpty() {
+            if (currentList != null) {
+                return false;
+            }
             Iterator<? extends R> it = current;
             return (it != null && !it.hasNext()) || queue.isEmpty();
         }
@@ -417,13 +509,37 @@ public final class FlowableFlattenIterable<T, R> extends AbstractFlowableWithUps
         public R poll() throws Exception {
             Iterator<? extends R> it = current;
             for (;;) {
+                List<? extends R> list = currentList;
+                if (list != null) {
+                    int i = index;
+                    R r = list.get(i);
+                    if (++i == listSize) {
+                        currentList = null;
+                    } else {
+                        index = i;
+                    }
+                    return r;
+                }
                 if (it == null) {
                     T v = queue.poll();
                     if (v == null) {
                         return null;
                     }
 
-                    it = mapper.apply(v).iterator();
+                    Iterable<? extends R> iterable = mapper.apply(v);
+
+                    if (iterable instanceof RandomAccess && iterable instanceof List) {
+                        list = (List<? extends R>)iterable;
+                        int n = list.size();
+                        if (n != 0) {
+                            index = 0;
+                            listSize = n;
+                            currentList = list;
+                        }
+                        continue;
+                    }
+
+                    it = iterable.iterator();
 
                     if (!it.hasNext()) {
                         it = null;
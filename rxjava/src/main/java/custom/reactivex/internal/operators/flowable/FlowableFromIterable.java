@@ -13,7 +13,7 @@
 
 package custom.reactivex.internal.operators.flowable;
 
-import java.util.Iterator;
+import java.util.*;
 
 import org.reactivestreams.Subscriber;
 
@@ -32,8 +32,14 @@ public final class FlowableFromIterable<T> extends Flowable<T> {
         this.source = source;
     }
 
+    @SuppressWarnings("unchecked")
     @Override
     public void subscribeActual(Subscriber<? super T> s) {
+        if (source instanceof RandomAccess && source instanceof List) {
+            subscribe(s, (List<? extends T>)source);
+            return;
+        }
+
         Iterator<? extends T> it;
         try {
             it = source.iterator();
@@ -69,6 +75,36 @@ public final class FlowableFromIterable<T> extends Flowable<T> {
         }
     }
 
+    /**
+     * Subscribes the Subscriber to a subscription emitting the elements of the RandomAccess
+     * list by index; the size of the list is taken at this point.
+     * @param <T> the value type
+     * @param s the target Subscriber
+     * @param list the RandomAccess list
+     */
+    public static <T> void subscribe(Subscriber<? super T> s, List<? extends T> list) {
+        int n;
+        try {
+            n = list.size();
+        } catch (Throwable e) {
+            Exceptions.throwIfFatal(e);
+            EmptySubscription.error(e, s);
+            return;
+        }
+
+        if (n == 0) {
+            EmptySubscription.complete(s);
+            return;
+        }
+
+        if (s instanceof ConditionalSubscriber) {
+            s.onSubscribe(new ListConditionalSubscription<T>(
+                    (ConditionalSubscriber<? super T>)s, list, n));
+        } else {
+            s.onSubscribe(new ListSubscription<T>(s, list, n));
+        }
+    }
+
     abstract static class BaseRangeSubscription<T> extends BasicQueueSubscription<T> {
         private static final long serialVersionUID = -2252972430506210021L;
 
@@ -414,4 +450,270 @@ public final class FlowableFromIterable<T> extends Flowable<T> {
         }
 
     }
+
+    abstract static class BaseListSubscription<T> extends BasicQueueSubscription<T> {
+        private static final long serialVersionUID = 5306236435498451254L;
+
+        final List<? extends T> list;
+
+        final int size;
+
+        int index;
+
+        volatile boolean cancelled;
+
+        BaseListSubscription(List<? extends T> list, int size) {
+            this.list = list;
+            this.size = size;
+        }
+
+        @Override
+        public final int requestFusion(int mode) {
+            return mode & SYNC;
+        }
+
+        @Override
+        public final T poll() {
+            int i = index;
+            if (i == size) {
+                return null;
+            }
+
+            index = i + 1;
+            return ObjectHelper.requireNonNull(list.get(i), "list element is null");
+        }
+
+        @Override
+        public final boolean isEmpty() {
+            return index == size;
+        }
+
+        @Override
+        public final void clear() {
+            index = size;
+        }
+
+        @Override
+        public final void request(long n) {
+            if (SubscriptionHelper.validate(n)) {
+                if (BackpressureHelper.add(this, n) == 0L) {
+                    if (n == Long.MAX_VALUE) {
+                        fastPath();
+                    } else {
+                        slowPath(n);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public final void cancel() {
+            cancelled = true;
+        }
+
+        abstract void fastPath();
+
+        abstract void slowPath(long r);
+    }
+
+    static final class ListSubscription<T> extends BaseListSubscription<T> {
+
+        private static final long serialVersionUID = -4456429547468471342L;
+
+        final Subscriber<? super T> actual;
+
+        ListSubscription(Subscriber<? super T> actual, List<? extends T> list, int size) {
+            super(list, size);
+            this.actual = actual;
+        }
+
+        @Override
+        void fastPath() {
+            List<? extends T> list = this.list;
+            int f = size;
+            Subscriber<? super T> a = actual;
+
+            for (int i = index; i != f; i++) {
+                if (cancelled) {
+                    return;
+                }
+                T t;
+
+                try {
+                    t = list.get(i);
+                } catch (Throwable ex) {
+                    Exceptions.throwIfFatal(ex);
+                    a.onError(ex);
+                    return;
+                }
+
+                if (t == null) {
+                    a.onError(new NullPointerException("list element is null"));
+                    return;
+                } else {
+                    a.onNext(t);
+                }
+            }
+            if (cancelled) {
+                return;
+            }
+            a.onComplete();
+        }
+
+        @Override
+        void slowPath(long r) {
+            long e = 0;
+            List<? extends T> list = this.list;
+            int f = size;
+            int i = index;
+            Subscriber<? super T> a = actual;
+
+            for (;;) {
+
+                while (e != r && i != f) {
+                    if (cancelled) {
+                        return;
+                    }
+
+                    T t;
+
+                    try {
+                        t = list.get(i);
+                    } catch (Throwable ex) {
+                        Exceptions.throwIfFatal(ex);
+                        a.onError(ex);
+                        return;
+                    }
+
+                    if (t == null) {
+                        a.onError(new NullPointerException("list element is null"));
+                        return;
+                    } else {
+                        a.onNext(t);
+                    }
+
+                    e++;
+                    i++;
+                }
+
+                if (i == f) {
+                    if (!cancelled) {
+                        a.onComplete();
+                    }
+                    return;
+                }
+
+                r = get();
+                if (e == r) {
+                    index = i;
+                    r = addAndGet(-e);
+                    if (r == 0L) {
+                        return;
+                    }
+                    e = 0L;
+                }
+            }
+        }
+    }
+
+    static final class ListConditionalSubscription<T> extends BaseListSubscription<T> {
+
+        private static final long serialVersionUID = -8159452392751632489L;
+
+        final ConditionalSubscriber<? super T> actual;
+
+        ListConditionalSubscription(ConditionalSubscriber<? super T> actual, List<? extends T> list, int size) {
+            super(list, size);
+            this.actual = actual;
+        }
+
+        @Override
+        void fastPath() {
+            List<? extends T> list = this.list;
+            int f = size;
+            ConditionalSubscriber<? super T> a = actual;
+
+            for (int i = index; i != f; i++) {
+                if (cancelled) {
+                    return;
+                }
+                T t;
+
+                try {
+                    t = list.get(i);
+                } catch (Throwable ex) {
+                    Exceptions.throwIfFatal(ex);
+                    a.onError(ex);
+                    return;
+                }
+
+                if (t == null) {
+                    a.onError(new NullPointerException("list element is null"));
+                    return;
+                } else {
+                    a.tryOnNext(t);
+                }
+            }
+            if (cancelled) {
+                return;
+            }
+            a.onComplete();
+        }
+
+        @Override
+        void slowPath(long r) {
+            long e = 0;
+            List<? extends T> list = this.list;
+            int f = size;
+            int i = index;
+            ConditionalSubscriber<? super T> a = actual;
+
+            for (;;) {
+
+                while (e != r && i != f) {
+                    if (cancelled) {
+                        return;
+                    }
+
+                    T t;
+
+                    try {
+                        t = list.get(i);
+                    } catch (Throwable ex) {
+                        Exceptions.throwIfFatal(ex);
+                        a.onError(ex);
+                        return;
+                    }
+
+                    if (t == null) {
+                        a.onError(new NullPointerException("list element is null"));
+                        return;
+                    } else {
+                        if (a.tryOnNext(t)) {
+                            e++;
+                        }
+
+                        i++;
+                    }
+                }
+
+                if (i == f) {
+                    if (!cancelled) {
+                        a.onComplete();
+                    }
+                    return;
+                }
+
+                r = get();
+                if (e == r) {
+                    index = i;
+                    r = addAndGet(-e);
+                    if (r == 0L) {
+                        return;
+                    }
+                    e = 0L;
+                }
+            }
+        }
+    }
 }
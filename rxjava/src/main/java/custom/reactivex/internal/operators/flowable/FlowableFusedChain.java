@@ -0,0 +1,346 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package custom.reactivex.internal.operators.flowable;
+
+import org.reactivestreams.*;
+
+import custom.reactivex.Flowable;
+import custom.reactivex.functions.*;
+import custom.reactivex.internal.functions.*;
+import custom.reactivex.internal.fuseable.*;
+import custom.reactivex.internal.subscribers.*;
+
+/**
+ * Applies consecutive map, filter, doOnNext and takeWhile stages with a single subscriber.
+ * <p>
+ * The chain is created at assembly time when one of these operators is applied to another
+ * one of them (or to a chain), see {@link #map(Flowable, Function)} and its siblings.
+ * The chain participates in queue fusion unless it contains a takeWhile stage.
+ *
+ * @param <T> the upstream value type
+ * @param <R> the output value type
+ */
+public final class FlowableFusedChain<T, R> extends AbstractFlowableWithUpstream<T, R> {
+
+    static final int MAP = 0;
+    static final int FILTER = 1;
+    static final int PEEK = 2;
+    static final int TAKE_WHILE = 3;
+
+    /** Indicates a takeWhile stage ended the sequence. */
+    static final Object STOP = new Object();
+
+    final int[] kinds;
+
+    final Object[] stages;
+
+    final boolean fuseable;
+
+    FlowableFusedChain(Publisher<T> source, int[] kinds, Object[] stages) {
+        super(source);
+        this.kinds = kinds;
+        this.stages = stages;
+        boolean f = true;
+        for (int k : kinds) {
+            if (k == TAKE_WHILE) {
+                f = false;
+                break;
+            }
+        }
+        this.fuseable = f;
+    }
+
+    public static <T, R> Flowable<R> map(Flowable<T> source, Function<? super T, ? extends R> mapper) {
+        Flowable<R> chain = tryFuse(source, MAP, mapper);
+        return chain != null ? chain : new FlowableMap<T, R>(source, mapper);
+    }
+
+    public static <T> Flowable<T> filter(Flowable<T> source, Predicate<? super T> predicate) {
+        Flowable<T> chain = tryFuse(source, FILTER, predicate);
+        return chain != null ? chain : new FlowableFilter<T>(source, predicate);
+    }
+
+    public static <T> Flowable<T> doOnNext(Flowable<T> source, Consumer<? super T> onNext) {
+        Flowable<T> chain = tryFuse(source, PEEK, onNext);
+        return chain != null ? chain : new FlowableDoOnEach<T>(source, onNext,
+                Functions.emptyConsumer(), Functions.EMPTY_ACTION, Functions.EMPTY_ACTION);
+    }
+
+    public static <T> Flowable<T> takeWhile(Flowable<T> source, Predicate<? super T> predicate) {
+        Flowable<T> chain = tryFuse(source, TAKE_WHILE, predicate);
+        return chain != null ? chain : new FlowableTakeWhile<T>(source, predicate);
+    }
+
+    /**
+     * Creates a chain from the given source and stage if the source is a chain itself
+     * or an operator that can be turned into a stage.
+     * @param source the source Flowable
+     * @param kind the kind of the new stage
+     * @param stage the function, predicate or consumer of the new stage
+     * @return the new chain or null if the source can't be fused with
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    static <T, R> Flowable<R> tryFuse(Flowable<T> source, int kind, Object stage) {
+        if (source instanceof FlowableFusedChain) {
+            FlowableFusedChain<?, T> c = (FlowableFusedChain<?, T>) source;
+            int n = c.kinds.length;
+            int[] kinds = new int[n + 1];
+            Object[] stages = new Object[n + 1];
+            System.arraycopy(c.kinds, 0, kinds, 0, n);
+            System.arraycopy(c.stages, 0, stages, 0, n);
+            kinds[n] = kind;
+            stages[n] = stage;
+            return new FlowableFusedChain(c.source, kinds, stages);
+        }
+        int k;
+        Object s;
+        Publisher upstream;
+        if (source instanceof FlowableMap) {
+            FlowableMap<?, ?> o = (FlowableMap<?, ?>) source;
+            k = MAP;
+            s = o.mapper;
+            upstream = o.source;
+        } else
+        if (source instanceof FlowableFilter) {
+            FlowableFilter<?> o = (FlowableFilter<?>) source;
+            k = FILTER;
+            s = o.predicate;
+            upstream = o.source;
+        } else
+        if (source instanceof FlowableTakeWhile) {
+            FlowableTakeWhile<?> o = (FlowableTakeWhile<?>) source;
+            k = TAKE_WHILE;
+            s = o.predicate;
+            upstream = o.source;
+        } else
+        if (source instanceof FlowableDoOnEach) {
+            FlowableDoOnEach<?> o = (FlowableDoOnEach<?>) source;
+            if (o.onError != Functions.emptyConsumer()
+                    || o.onComplete != Functions.EMPTY_ACTION
+                    || o.onAfterTerminate != Functions.EMPTY_ACTION) {
+                return null;
+            }
+            k = PEEK;
+            s = o.onNext;
+            upstream = o.source;
+        } else {
+            return null;
+        }
+        return new FlowableFusedChain(upstream, new int[] { k, kind }, new Object[] { s, stage });
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected void subscribeActual(Subscriber<? super R> s) {
+        if (s instanceof ConditionalSubscriber) {
+            source.subscribe(new FusedChainConditionalSubscriber<T, R>((ConditionalSubscriber<? super R>)s, kinds, stages, fuseable));
+        } else {
+            source.subscribe(new FusedChainSubscriber<T, R>(s, kinds, stages, fuseable));
+        }
+    }
+
+    /**
+     * Runs the value through the stages.
+     * @param kinds the stage kinds
+     * @param stages the stage functions
+     * @param v the value
+     * @return the resulting value, null if a filter dropped the value or {@link #STOP}
+     * if a takeWhile predicate returned false
+     * @throws Exception if a stage function threw
+     */
+    @SuppressWarnings("unchecked")
+    static Object apply(int[] kinds, Object[] stages, Object v) throws Exception {
+        for (int i = 0; i < kinds.length; i++) {
+            switch (kinds[i]) {
+            case MAP:
+                v = ObjectHelper.requireNonNull(((Function<Object, Object>)stages[i]).apply(v), "The mapper function returned a null value.");
+                break;
+            case FILTER:
+                if (!((Predicate<Object>)stages[i]).test(v)) {
+                    return null;
+                }
+                break;
+            case PEEK:
+                ((Consumer<Object>)stages[i]).accept(v);
+                break;
+            default:
+                if (!((Predicate<Object>)stages[i]).test(v)) {
+                    return STOP;
+                }
+            }
+        }
+        return v;
+    }
+
+    static final class FusedChainSubscriber<T, R> extends BasicFuseableSubscriber<T, R>
+    implements ConditionalSubscriber<T> {
+        final int[] kinds;
+
+        final Object[] stages;
+
+        final boolean fuseable;
+
+        FusedChainSubscriber(Subscriber<? super R> actual, int[] kinds, Object[] stages, boolean fuseable) {
+            super(actual);
+            this.kinds = kinds;
+            this.stages = stages;
+            this.fuseable = fuseable;
+        }
+
+        @Override
+        public void onNext(T t) {
+            if (!tryOnNext(t)) {
+                s.request(1);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public boolean tryOnNext(T t) {
+            if (done) {
+                return false;
+            }
+            if (sourceMode != NONE) {
+                actual.onNext(null);
+                return true;
+            }
+            Object v;
+            try {
+                v = apply(kinds, stages, t);
+            } catch (Throwable ex) {
+                fail(ex);
+                return true;
+            }
+            if (v == null) {
+                return false;
+            }
+            if (v == STOP) {
+                s.cancel();
+                onComplete();
+                return true;
+            }
+            actual.onNext((R)v);
+            return true;
+        }
+
+        @Override
+        public int requestFusion(int mode) {
+            if (fuseable) {
+                return transitiveBoundaryFusion(mode);
+            }
+            return NONE;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public R poll() throws Exception {
+            QueueSubscription<T> qs = this.qs;
+
+            for (;;) {
+                T t = qs.poll();
+                if (t == null) {
+                    return null;
+                }
+
+                Object v = apply(kinds, stages, t);
+                if (v != null) {
+                    return (R)v;
+                }
+
+                if (sourceMode == ASYNC) {
+                    qs.request(1);
+                }
+            }
+        }
+    }
+
+    static final class FusedChainConditionalSubscriber<T, R> extends BasicFuseableConditionalSubscriber<T, R> {
+        final int[] kinds;
+
+        final Object[] stages;
+
+        final boolean fuseable;
+
+        FusedChainConditionalSubscriber(ConditionalSubscriber<? super R> actual, int[] kinds, Object[] stages, boolean fuseable) {
+            super(actual);
+            this.kinds = kinds;
+            this.stages = stages;
+            this.fuseable = fuseable;
+        }
+
+        @Override
+        public void onNext(T t) {
+            if (!tryOnNext(t)) {
+                s.request(1);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public boolean tryOnNext(T t) {
+            if (done) {
+                return false;
+            }
+            if (sourceMode != NONE) {
+                return actual.tryOnNext(null);
+            }
+            Object v;
+            try {
+                v = apply(kinds, stages, t);
+            } catch (Throwable ex) {
+                fail(ex);
+                return true;
+            }
+            if (v == null) {
+                return false;
+            }
+            if (v == STOP) {
+                s.cancel();
+                onComplete();
+                return true;
+            }
+            return actual.tryOnNext((R)v);
+        }
+
+        @Override
+        public int requestFusion(int mode) {
+            if (fuseable) {
+                return transitiveBoundaryFusion(mode);
+            }
+            return NONE;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public R poll() throws Exception {
+            QueueSubscription<T> qs = this.qs;
+
+            for (;;) {
+                T t = qs.poll();
+                if (t == null) {
+                    return null;
+                }
+
+                Object v = apply(kinds, stages, t);
+                if (v != null) {
+                    return (R)v;
+                }
+
+                if (sourceMode == ASYNC) {
+                    qs.request(1);
+                }
+            }
+        }
+    }
+}
@@ -20,10 +20,12 @@ import org.reactivestreams.*;
 import custom.reactivex.Scheduler;
 import custom.reactivex.Scheduler.Worker;
 import custom.reactivex.exceptions.*;
+import custom.reactivex.functions.Consumer;
 import custom.reactivex.internal.fuseable.*;
 import custom.reactivex.internal.queue.SpscArrayQueue;
+import custom.reactivex.internal.schedulers.RecyclingWorker;
 import custom.reactivex.internal.subscriptions.*;
-import custom.reactivex.internal.util.BackpressureHelper;
+import custom.reactivex.internal.util.*;
 import custom.reactivex.plugins.RxJavaPlugins;
 
 public final class FlowableObserveOn<T> extends AbstractFlowableWithUpstream<T, T> {
@@ -94,7 +96,7 @@ final Scheduler scheduler;
             this.worker = worker;
             this.delayError = delayError;
             this.prefetch = prefetch;
-            this.requested = new AtomicLong();
+            this.requested = new PaddedAtomicLong();
             this.limit = prefetch - (prefetch >> 2);
         }
 
@@ -162,7 +164,12 @@ final Scheduler scheduler;
             if (getAndIncrement() != 0) {
                 return;
             }
-            worker.schedule(this);
+            Worker w = worker;
+            if (w instanceof RecyclingWorker) {
+                ((RecyclingWorker)w).scheduleRecycled(this);
+            } else {
+                w.schedule(this);
+            }
         }
 
         @Override
@@ -239,12 +246,15 @@ final Scheduler scheduler;
     }
 
     static final class ObserveOnSubscriber<T> extends BaseObserveOnSubscriber<T>
-    implements Subscriber<T> {
+    implements Subscriber<T>, Consumer<T> {
 
         private static final long serialVersionUID = -4547113800637756442L;
 
         final Subscriber<? super T> actual;
 
+        /** The own queue if the upstream is not fused, drained in batches. */
+        SpscArrayQueue<T> batchQueue;
+
         ObserveOnSubscriber(
                 Subscriber<? super T> actual,
                 Worker worker,
@@ -285,7 +295,9 @@ final Scheduler scheduler;
                     }
                 }
 
-                queue = new SpscArrayQueue<T>(prefetch);
+                SpscArrayQueue<T> q = new SpscArrayQueue<T>(prefetch, true);
+                batchQueue = q;
+                queue = q;
 
                 actual.onSubscribe(this);
 
@@ -293,6 +305,13 @@ final Scheduler scheduler;
             }
         }
 
+        @Override
+        public void accept(T t) {
+            if (!cancelled) {
+                actual.onNext(t);
+            }
+        }
+
         @Override
         void runSync() {
             int missed = 1;
@@ -358,6 +377,10 @@ final Scheduler scheduler;
 
         @Override
         void runAsync() {
+            if (batchQueue != null) {
+                runBatched();
+                return;
+            }
             int missed = 1;
 
             final Subscriber<? super T> a = actual;
@@ -425,6 +448,69 @@ final Scheduler scheduler;
             }
         }
 
+        /**
+         * Drains the own queue in batches of up to the remaining replenishment amount so
+         * the consumer index is published once per batch instead of once per item.
+         */
+        void runBatched() {
+            int missed = 1;
+
+            final Subscriber<? super T> a = actual;
+            final SpscArrayQueue<T> q = batchQueue;
+
+            long e = produced;
+
+            for (;;) {
+
+                long r = requested.get();
+
+                while (e != r) {
+                    boolean d = done;
+                    int n;
+
+                    try {
+                        n = q.drain(this, (int)Math.min(r - e, limit - e));
+                    } catch (Throwable ex) {
+                        throw ExceptionHelper.wrapOrThrow(ex);
+                    }
+
+                    boolean empty = n == 0;
+
+                    if (checkTerminated(d, empty, a)) {
+                        return;
+                    }
+
+                    if (empty) {
+                        break;
+                    }
+
+                    e += n;
+                    if (e == limit) {
+                        if (r != Long.MAX_VALUE) {
+                            r = requested.addAndGet(-e);
+                        }
+                        s.request(e);
+                        e = 0L;
+                    }
+                }
+
+                if (e == r && checkTerminated(done, q.isEmpty(), a)) {
+                    return;
+                }
+
+                int w = get();
+                if (missed == w) {
+                    produced = e;
+                    missed = addAndGet(-missed);
+                    if (missed == 0) {
+                        break;
+                    }
+                } else {
+                    missed = w;
+                }
+            }
+        }
+
         @Override
         void runBackfused() {
             int missed = 1;
@@ -523,7 +609,7 @@ final Scheduler scheduler;
                     }
                 }
 
-                queue = new SpscArrayQueue<T>(prefetch);
+                queue = new SpscArrayQueue<T>(prefetch, true);
 
                 actual.onSubscribe(this);
 
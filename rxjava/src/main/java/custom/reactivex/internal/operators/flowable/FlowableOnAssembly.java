@@ -0,0 +1,99 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package custom.reactivex.internal.operators.flowable;
+
+import org.reactivestreams.*;
+
+import custom.reactivex.exceptions.AssemblyTraceException;
+import custom.reactivex.internal.subscriptions.SubscriptionHelper;
+import custom.reactivex.internal.util.AssemblySites;
+
+/**
+ * Attaches the call site where the upstream Flowable was assembled to the errors passing through.
+ * @param <T> the value type
+ */
+public final class FlowableOnAssembly<T> extends AbstractFlowableWithUpstream<T, T> {
+
+    /** Captured during assembly, its stack trace is materialized only if an error passes through. */
+    final Throwable capture;
+
+    volatile AssemblyTraceException site;
+
+    public FlowableOnAssembly(Publisher<T> source, Throwable capture) {
+        super(source);
+        this.capture = capture;
+    }
+
+    @Override
+    protected void subscribeActual(Subscriber<? super T> s) {
+        source.subscribe(new OnAssemblySubscriber<T>(s, this));
+    }
+
+    AssemblyTraceException site() {
+        AssemblyTraceException a = site;
+        if (a == null) {
+            a = AssemblySites.site(capture);
+            site = a;
+        }
+        return a;
+    }
+
+    static final class OnAssemblySubscriber<T> implements Subscriber<T>, Subscription {
+
+        final Subscriber<? super T> actual;
+
+        final FlowableOnAssembly<T> parent;
+
+        Subscription s;
+
+        OnAssemblySubscriber(Subscriber<? super T> actual, FlowableOnAssembly<T> parent) {
+            this.actual = actual;
+            this.parent = parent;
+        }
+
+        @Override
+        public void request(long n) {
+            s.request(n);
+        }
+
+        @Override
+        public void cancel() {
+            s.cancel();
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            if (SubscriptionHelper.validate(this.s, s)) {
+                this.s = s;
+                actual.onSubscribe(this);
+            }
+        }
+
+        @Override
+        public void onNext(T t) {
+            actual.onNext(t);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            AssemblySites.attach(t, parent.site());
+            actual.onError(t);
+        }
+
+        @Override
+        public void onComplete() {
+            actual.onComplete();
+        }
+    }
+}
@@ -13,192 +13,277 @@
 
 package custom.reactivex.internal.operators.flowable;
 
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.*;
-import java.util.concurrent.locks.ReentrantLock;
 
 import org.reactivestreams.*;
 
-import custom.reactivex.disposables.*;
+import custom.reactivex.Scheduler;
+import custom.reactivex.disposables.Disposable;
 import custom.reactivex.flowables.ConnectableFlowable;
 import custom.reactivex.functions.Consumer;
+import custom.reactivex.internal.disposables.DisposableHelper;
 import custom.reactivex.internal.subscriptions.SubscriptionHelper;
+import custom.reactivex.plugins.RxJavaPlugins;
 
 /**
  * Returns an observable sequence that stays connected to the source as long as
  * there is at least one subscription to the observable sequence.
+ * <p>
+ * The connection and its subscriber count are managed without locks: each connection
+ * holds its state in a single atomic long, the number of subscribers in the lower half
+ * and, in the upper half, a generation counter incremented whenever the count drops to zero.
+ * If a grace period is specified, the disconnect is delayed and only happens if the
+ * connection is still in the same idle generation by then.
  *
  * @param <T>
  *            the value type
  */
 public final class FlowableRefCount<T> extends AbstractFlowableWithUpstream<T, T> {
+
     final ConnectableFlowable<? extends T> source;
-    volatile CompositeDisposable baseDisposable = new CompositeDisposable();
-    final AtomicInteger subscriptionCount = new AtomicInteger();
+
+    final long timeout;
+
+    final TimeUnit unit;
+
+    final Scheduler scheduler;
+
+    final AtomicReference<RefConnection> current;
 
     /**
-     * Use this lock for every subscription and disconnect action.
+     * Constructor.
+     *
+     * @param source
+     *            observable to apply ref count to
      */
-    final ReentrantLock lock = new ReentrantLock();
+    public FlowableRefCount(ConnectableFlowable<T> source) {
+        this(source, 0L, TimeUnit.NANOSECONDS, null);
+    }
 
-    final class ConnectionSubscriber
-    extends AtomicReference<Subscription>
-    implements Subscriber<T>, Subscription {
+    /**
+     * Constructor.
+     *
+     * @param source
+     *            observable to apply ref count to
+     * @param timeout
+     *            the time to wait before disconnecting after the last subscriber cancelled,
+     *            zero to disconnect immediately
+     * @param unit
+     *            the time unit of the timeout
+     * @param scheduler
+     *            the scheduler to wait on, may be null if the timeout is zero
+     */
+    public FlowableRefCount(ConnectableFlowable<T> source, long timeout, TimeUnit unit, Scheduler scheduler) {
+        super(source);
+        this.source = source;
+        this.timeout = timeout;
+        this.unit = unit;
+        this.scheduler = scheduler;
+        this.current = new AtomicReference<RefConnection>();
+    }
 
-        private static final long serialVersionUID = 152064694420235350L;
-        final Subscriber<? super T> subscriber;
-        final CompositeDisposable currentBase;
-        final Disposable resource;
+    @Override
+    public void subscribeActual(final Subscriber<? super T> subscriber) {
+        RefConnection conn;
+        for (;;) {
+            conn = current.get();
+            if (conn == null) {
+                conn = new RefConnection();
+                if (!current.compareAndSet(null, conn)) {
+                    continue;
+                }
+            }
+            long s = conn.get();
+            if (s == RefConnection.TERMINATED) {
+                current.compareAndSet(conn, null);
+                continue;
+            }
+            if (conn.compareAndSet(s, s + 1)) {
+                if ((int)s == 0) {
+                    Disposable d = conn.timer.get();
+                    if (d != null) {
+                        d.dispose();
+                    }
+                }
+                break;
+            }
+        }
 
-        final AtomicLong requested;
+        source.subscribe(new RefCountSubscriber<T>(subscriber, this, conn));
 
-        ConnectionSubscriber(Subscriber<? super T> subscriber,
-                CompositeDisposable currentBase, Disposable resource) {
-            this.subscriber = subscriber;
-            this.currentBase = currentBase;
-            this.resource = resource;
-            this.requested = new AtomicLong();
+        if (!conn.connectStarted.get() && conn.connectStarted.compareAndSet(false, true)) {
+            source.connect(conn);
         }
+    }
 
-        @Override
-        public void onSubscribe(Subscription s) {
-            SubscriptionHelper.deferredSetOnce(this, requested, s);
+    void cancel(RefConnection conn) {
+        for (;;) {
+            long s = conn.get();
+            if (s == RefConnection.TERMINATED) {
+                return;
+            }
+            if ((int)s == 1) {
+                if (timeout == 0L) {
+                    if (conn.compareAndSet(s, RefConnection.TERMINATED)) {
+                        disconnect(conn);
+                        return;
+                    }
+                } else {
+                    long idle = RefConnection.nextGeneration(s);
+                    if (conn.compareAndSet(s, idle)) {
+                        DisposableHelper.replace(conn.timer,
+                                scheduler.scheduleDirect(new DisconnectTask(this, conn, idle), timeout, unit));
+                        return;
+                    }
+                }
+            } else if (conn.compareAndSet(s, s - 1)) {
+                return;
+            }
         }
+    }
 
-        @Override
-        public void onError(Throwable e) {
-            cleanup();
-            subscriber.onError(e);
+    void timeout(RefConnection conn, long idle) {
+        if (conn.compareAndSet(idle, RefConnection.TERMINATED)) {
+            disconnect(conn);
         }
+    }
 
-        @Override
-        public void onNext(T t) {
-            subscriber.onNext(t);
+    void terminated(RefConnection conn) {
+        if (conn.getAndSet(RefConnection.TERMINATED) != RefConnection.TERMINATED) {
+            disconnect(conn);
         }
+    }
 
-        @Override
-        public void onComplete() {
-            cleanup();
-            subscriber.onComplete();
+    void disconnect(RefConnection conn) {
+        current.compareAndSet(conn, null);
+        DisposableHelper.dispose(conn.timer);
+        DisposableHelper.dispose(conn.connection);
+    }
+
+    static final class RefConnection extends AtomicLong implements Consumer<Disposable> {
+
+        private static final long serialVersionUID = -4552101107598366241L;
+
+        /** The connection has been or is being disconnected and can't be reused. */
+        static final long TERMINATED = -1L;
+
+        static final long COUNT_MASK = 0xFFFFFFFFL;
+
+        static final long GENERATION_MASK = 0x7FFFFFFFL;
+
+        /** Holds the connection's Disposable once connect() produced it. */
+        final AtomicReference<Disposable> connection;
+
+        final AtomicReference<Disposable> timer;
+
+        final AtomicBoolean connectStarted;
+
+        RefConnection() {
+            this.connection = new AtomicReference<Disposable>();
+            this.timer = new AtomicReference<Disposable>();
+            this.connectStarted = new AtomicBoolean();
         }
 
-        @Override
-        public void request(long n) {
-            SubscriptionHelper.deferredRequest(this, requested, n);
+        /**
+         * Returns the state with zero subscribers and the generation following the one in the given state.
+         * @param state the current state
+         * @return the idle state of the next generation
+         */
+        static long nextGeneration(long state) {
+            return (((state >>> 32) + 1) & GENERATION_MASK) << 32;
         }
 
         @Override
-        public void cancel() {
-            SubscriptionHelper.cancel(this);
-            resource.dispose();
-        }
-
-        void cleanup() {
-            // on error or completion we need to dispose the base CompositeDisposable
-            // and set the subscriptionCount to 0
-            lock.lock();
-            try {
-                if (baseDisposable == currentBase) {
-                    baseDisposable.dispose();
-                    baseDisposable = new CompositeDisposable();
-                    subscriptionCount.set(0);
-                }
-            } finally {
-                lock.unlock();
+        public void accept(Disposable d) throws Exception {
+            if (!DisposableHelper.replace(connection, d)) {
+                return;
+            }
+            if (get() == TERMINATED) {
+                DisposableHelper.dispose(connection);
             }
         }
     }
 
-    /**
-     * Constructor.
-     *
-     * @param source
-     *            observable to apply ref count to
-     */
-    public FlowableRefCount(ConnectableFlowable<T> source) {
-        super(source);
-        this.source = source;
-    }
+    static final class DisconnectTask implements Runnable {
+        final FlowableRefCount<?> parent;
 
-    @Override
-    public void subscribeActual(final Subscriber<? super T> subscriber) {
+        final RefConnection conn;
 
-        lock.lock();
-        if (subscriptionCount.incrementAndGet() == 1) {
-
-            final AtomicBoolean writeLocked = new AtomicBoolean(true);
-
-            try {
-                // need to use this overload of connect to ensure that
-                // baseSubscription is set in the case that source is a
-                // synchronous Observable
-                source.connect(onSubscribe(subscriber, writeLocked));
-            } finally {
-                // need to cover the case where the source is subscribed to
-                // outside of this class thus preventing the Action1 passed
-                // to source.connect above being called
-                if (writeLocked.get()) {
-                    // Action1 passed to source.connect was not called
-                    lock.unlock();
-                }
-            }
-        } else {
-            try {
-                // ready to subscribe to source so do it
-                doSubscribe(subscriber, baseDisposable);
-            } finally {
-                // release the read lock
-                lock.unlock();
-            }
+        final long idle;
+
+        DisconnectTask(FlowableRefCount<?> parent, RefConnection conn, long idle) {
+            this.parent = parent;
+            this.conn = conn;
+            this.idle = idle;
         }
 
+        @Override
+        public void run() {
+            parent.timeout(conn, idle);
+        }
     }
 
-    private Consumer<Disposable> onSubscribe(final Subscriber<? super T> subscriber,
-            final AtomicBoolean writeLocked) {
-        return new Consumer<Disposable>() {
-            @Override
-            public void accept(Disposable subscription) {
-                try {
-                    baseDisposable.add(subscription);
-                    // ready to subscribe to source so do it
-                    doSubscribe(subscriber, baseDisposable);
-                } finally {
-                    // release the write lock
-                    lock.unlock();
-                    writeLocked.set(false);
-                }
+    static final class RefCountSubscriber<T> extends AtomicBoolean implements Subscriber<T>, Subscription {
+
+        private static final long serialVersionUID = -7419642935409022375L;
+
+        final Subscriber<? super T> actual;
+
+        final FlowableRefCount<T> parent;
+
+        final RefConnection conn;
+
+        Subscription s;
+
+        RefCountSubscriber(Subscriber<? super T> actual, FlowableRefCount<T> parent, RefConnection conn) {
+            this.actual = actual;
+            this.parent = parent;
+            this.conn = conn;
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            if (SubscriptionHelper.validate(this.s, s)) {
+                this.s = s;
+                actual.onSubscribe(this);
             }
-        };
-    }
+        }
 
-    void doSubscribe(final Subscriber<? super T> subscriber, final CompositeDisposable currentBase) {
-        // handle disposing from the base subscription
-        Disposable d = disconnect(currentBase);
+        @Override
+        public void onNext(T t) {
+            actual.onNext(t);
+        }
 
-        ConnectionSubscriber connection = new ConnectionSubscriber(subscriber, currentBase, d);
-        subscriber.onSubscribe(connection);
+        @Override
+        public void onError(Throwable t) {
+            if (compareAndSet(false, true)) {
+                parent.terminated(conn);
+                actual.onError(t);
+            } else {
+                RxJavaPlugins.onError(t);
+            }
+        }
 
-        source.subscribe(connection);
-    }
+        @Override
+        public void onComplete() {
+            if (compareAndSet(false, true)) {
+                parent.terminated(conn);
+                actual.onComplete();
+            }
+        }
 
-    private Disposable disconnect(final CompositeDisposable current) {
-        return Disposables.fromRunnable(new Runnable() {
-            @Override
-            public void run() {
-                lock.lock();
-                try {
-                    if (baseDisposable == current) {
-                        if (subscriptionCount.decrementAndGet() == 0) {
-                            baseDisposable.dispose();
-                            // need a new baseDisposable because once
-                            // disposed stays that way
-                            baseDisposable = new CompositeDisposable();
-                        }
-                    }
-                } finally {
-                    lock.unlock();
-                }
+        @Override
+        public void request(long n) {
+            s.request(n);
+        }
+
+        @Override
+        public void cancel() {
+            s.cancel();
+            if (compareAndSet(false, true)) {
+                parent.cancel(conn);
             }
-        });
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,46 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package custom.reactivex.internal.operators.flowable;
+
+import java.util.concurrent.TimeUnit;
+
+import org.reactivestreams.Subscriber;
+
+import custom.reactivex.*;
+import custom.reactivex.internal.operators.flowable.FlowableInterval.IntervalSubscriber;
+import custom.reactivex.internal.schedulers.IntervalTicker;
+
+/**
+ * Emits a sequential number to each subscriber on the ticks of a periodic task shared by
+ * all subscribers with the same period and scheduler.
+ */
+public final class FlowableSharedInterval extends Flowable<Long> {
+    final Scheduler scheduler;
+    final long period;
+    final TimeUnit unit;
+
+    public FlowableSharedInterval(long period, TimeUnit unit, Scheduler scheduler) {
+        this.period = period;
+        this.unit = unit;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public void subscribeActual(Subscriber<? super Long> s) {
+        IntervalSubscriber is = new IntervalSubscriber(s);
+        s.onSubscribe(is);
+
+        is.setResource(IntervalTicker.register(scheduler, period, unit, is));
+    }
+}
@@ -0,0 +1,662 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package custom.reactivex.internal.operators.flowable;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+import org.reactivestreams.*;
+
+import custom.reactivex.Scheduler;
+import custom.reactivex.exceptions.Exceptions;
+import custom.reactivex.functions.Serializer;
+import custom.reactivex.internal.subscriptions.SubscriptionHelper;
+import custom.reactivex.internal.util.BackpressureHelper;
+import custom.reactivex.plugins.RxJavaPlugins;
+
+/**
+ * Sorts the upstream by sorting fixed size runs in memory, spilling them into temporary
+ * files and merging the runs back when the upstream completes.
+ * <p>
+ * The upstream is requested in run-sized chunks so at most {@code runSize} items
+ * (times the number of CPUs if the runs are sorted on a Scheduler) are held in memory.
+ * Ties are resolved in favor of the earlier run, keeping the sort stable.
+ *
+ * @param <T> the value type
+ */
+public final class FlowableSortedExternal<T> extends AbstractFlowableWithUpstream<T, T> {
+
+    /** The size of the read and write buffers of the run files. */
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    final Comparator<? super T> comparator;
+
+    final int runSize;
+
+    final Serializer<T> serializer;
+
+    final Scheduler scheduler;
+
+    /**
+     * Constructs the operator.
+     * @param source the source Publisher
+     * @param comparator the comparator
+     * @param runSize the number of items sorted in memory at once
+     * @param serializer the serializer to spill the runs with
+     * @param scheduler the scheduler to sort and spill the runs on, null if they
+     * should be sorted on the upstream's thread
+     */
+    public FlowableSortedExternal(Publisher<T> source, Comparator<? super T> comparator, int runSize,
+            Serializer<T> serializer, Scheduler scheduler) {
+        super(source);
+        this.comparator = comparator;
+        this.runSize = runSize;
+        this.serializer = serializer;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    protected void subscribeActual(Subscriber<? super T> s) {
+        source.subscribe(new SortedExternalSubscriber<T>(s, comparator, runSize, serializer, scheduler));
+    }
+
+    static final class SortedExternalSubscriber<T> extends AtomicInteger implements Subscriber<T>, Subscription {
+
+        private static final long serialVersionUID = -2906622557917651137L;
+
+        final Subscriber<? super T> actual;
+
+        final Comparator<? super T> comparator;
+
+        final int runSize;
+
+        final Serializer<T> serializer;
+
+        final Scheduler scheduler;
+
+        final int parallelism;
+
+        final AtomicLong requested;
+
+        /** Counts the runs being sorted plus one for the upstream. */
+        final AtomicInteger pending;
+
+        /** Makes sure the upstream's slot in {@link #pending} is released only once. */
+        final AtomicBoolean upstreamOnce;
+
+        /** The amount not yet requested from the upstream. */
+        final AtomicLong upstreamRequested;
+
+        /** Serializes the calls to the upstream's request from the sorting threads. */
+        final AtomicInteger requestWip;
+
+        final AtomicReference<Throwable> error;
+
+        /** The spilled run files indexed by run number, guarded by this. */
+        final List<File> files;
+
+        Subscription s;
+
+        List<T> buffer;
+
+        int runCount;
+
+        boolean done;
+
+        /** The last, not spilled run. */
+        List<T> lastRun;
+
+        Merger<T> merger;
+
+        volatile boolean ready;
+
+        volatile boolean cancelled;
+
+        /** Indicates the files have been deleted, guarded by this. */
+        boolean cleaned;
+
+        SortedExternalSubscriber(Subscriber<? super T> actual, Comparator<? super T> comparator, int runSize,
+                Serializer<T> serializer, Scheduler scheduler) {
+            this.actual = actual;
+            this.comparator = comparator;
+            this.runSize = runSize;
+            this.serializer = serializer;
+            this.scheduler = scheduler;
+            this.parallelism = scheduler != null ? Runtime.getRuntime().availableProcessors() : 1;
+            this.requested = new AtomicLong();
+            this.pending = new AtomicInteger(1);
+            this.upstreamOnce = new AtomicBoolean();
+            this.upstreamRequested = new AtomicLong();
+            this.requestWip = new AtomicInteger();
+            this.error = new AtomicReference<Throwable>();
+            this.files = new ArrayList<File>();
+            this.buffer = new ArrayList<T>();
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            if (SubscriptionHelper.validate(this.s, s)) {
+                this.s = s;
+                actual.onSubscribe(this);
+                requestUpstream(BackpressureHelper.multiplyCap(runSize, parallelism));
+            }
+        }
+
+        @Override
+        public void onNext(T t) {
+            if (done) {
+                return;
+            }
+            List<T> b = buffer;
+            b.add(t);
+            if (b.size() == runSize) {
+                buffer = new ArrayList<T>();
+                final List<T> run = b;
+                final int index = runCount++;
+                if (scheduler == null) {
+                    try {
+                        sortAndSpill(run, index);
+                    } catch (Throwable ex) {
+                        Exceptions.throwIfFatal(ex);
+                        s.cancel();
+                        onError(ex);
+                        return;
+                    }
+                    requestUpstream(runSize);
+                } else {
+                    if (!addPending()) {
+                        return;
+                    }
+                    scheduler.scheduleDirect(new Runnable() {
+                        @Override
+                        public void run() {
+                            try {
+                                sortAndSpill(run, index);
+                            } catch (Throwable ex) {
+                                Exceptions.throwIfFatal(ex);
+                                if (error.compareAndSet(null, ex)) {
+                                    s.cancel();
+                                    // a cancelled upstream won't call onError or onComplete
+                                    finishUpstream();
+                                } else {
+                                    RxJavaPlugins.onError(ex);
+                                }
+                            }
+                            if (error.get() == null && !cancelled) {
+                                requestUpstream(runSize);
+                            }
+                            finishOne();
+                        }
+                    });
+                }
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            if (done) {
+                RxJavaPlugins.onError(t);
+                return;
+            }
+            done = true;
+            buffer = null;
+            if (!error.compareAndSet(null, t)) {
+                RxJavaPlugins.onError(t);
+            }
+            finishUpstream();
+        }
+
+        @Override
+        public void onComplete() {
+            if (done) {
+                return;
+            }
+            done = true;
+            List<T> b = buffer;
+            buffer = null;
+            try {
+                Collections.sort(b, comparator);
+            } catch (Throwable ex) {
+                Exceptions.throwIfFatal(ex);
+                if (!error.compareAndSet(null, ex)) {
+                    RxJavaPlugins.onError(ex);
+                }
+            }
+            lastRun = b;
+            finishUpstream();
+        }
+
+        /**
+         * Increments {@link #pending} for a new run unless it already reached zero
+         * because the sequence has been terminated.
+         * @return true if the run should be sorted
+         */
+        boolean addPending() {
+            AtomicInteger p = pending;
+            for (;;) {
+                int n = p.get();
+                if (n == 0) {
+                    return false;
+                }
+                if (p.compareAndSet(n, n + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        void finishUpstream() {
+            if (upstreamOnce.compareAndSet(false, true)) {
+                finishOne();
+            }
+        }
+
+        void requestUpstream(long n) {
+            BackpressureHelper.add(upstreamRequested, n);
+            if (requestWip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            for (;;) {
+                long r = upstreamRequested.getAndSet(0L);
+                if (r != 0L) {
+                    s.request(r);
+                }
+                missed = requestWip.addAndGet(-missed);
+                if (missed == 0) {
+                    break;
+                }
+            }
+        }
+
+        void finishOne() {
+            if (pending.decrementAndGet() != 0) {
+                return;
+            }
+            if (cancelled) {
+                cleanup();
+                return;
+            }
+            Throwable ex = error.get();
+            if (ex != null) {
+                cleanup();
+                actual.onError(ex);
+                return;
+            }
+            Merger<T> m = new Merger<T>(comparator);
+            try {
+                List<File> fs;
+                synchronized (this) {
+                    fs = new ArrayList<File>(files);
+                }
+                for (int i = 0; i < fs.size(); i++) {
+                    m.add(new FileRun<T>(fs.get(i), i, serializer));
+                }
+                m.add(new ListRun<T>(lastRun, runCount));
+            } catch (Throwable e) {
+                Exceptions.throwIfFatal(e);
+                m.close();
+                cleanup();
+                actual.onError(e);
+                return;
+            }
+            lastRun = null;
+            merger = m;
+            ready = true;
+            drain();
+        }
+
+        void sortAndSpill(List<T> run, int index) throws Exception {
+            Collections.sort(run, comparator);
+
+            File f = File.createTempFile("rx2-sort-", ".run");
+            synchronized (this) {
+                if (cleaned) {
+                    f.delete();
+                    return;
+                }
+                while (files.size() <= index) {
+                    files.add(null);
+                }
+                files.set(index, f);
+            }
+
+            FileChannel ch = new FileOutputStream(f).getChannel();
+            try {
+                ByteBuffer buf = ByteBuffer.allocate(BUFFER_SIZE);
+                for (T v : run) {
+                    byte[] bytes = serializer.serialize(v);
+                    if (buf.remaining() < 4 + bytes.length) {
+                        flush(ch, buf);
+                    }
+                    if (buf.remaining() < 4 + bytes.length) {
+                        buf.putInt(bytes.length);
+                        flush(ch, buf);
+                        ByteBuffer direct = ByteBuffer.wrap(bytes);
+                        while (direct.hasRemaining()) {
+                            ch.write(direct);
+                        }
+                    } else {
+                        buf.putInt(bytes.length);
+                        buf.put(bytes);
+                    }
+                }
+                flush(ch, buf);
+            } finally {
+                ch.close();
+            }
+            run.clear();
+        }
+
+        static void flush(FileChannel ch, ByteBuffer buf) throws IOException {
+            buf.flip();
+            while (buf.hasRemaining()) {
+                ch.write(buf);
+            }
+            buf.clear();
+        }
+
+        synchronized void cleanup() {
+            cleaned = true;
+            for (File f : files) {
+                if (f != null) {
+                    f.delete();
+                }
+            }
+            files.clear();
+        }
+
+        @Override
+        public void request(long n) {
+            if (SubscriptionHelper.validate(n)) {
+                BackpressureHelper.add(requested, n);
+                if (ready) {
+                    drain();
+                }
+            }
+        }
+
+        @Override
+        public void cancel() {
+            if (!cancelled) {
+                cancelled = true;
+                s.cancel();
+                if (ready) {
+                    drain();
+                } else {
+                    cleanup();
+                }
+            }
+        }
+
+        void drain() {
+            if (getAndIncrement() != 0) {
+                return;
+            }
+
+            int missed = 1;
+            final Subscriber<? super T> a = actual;
+            final Merger<T> m = merger;
+
+            for (;;) {
+                long r = requested.get();
+                long e = 0L;
+
+                while (e != r) {
+                    if (cancelled) {
+                        m.close();
+                        cleanup();
+                        return;
+                    }
+
+                    T v;
+                    try {
+                        v = m.next();
+                    } catch (Throwable ex) {
+                        Exceptions.throwIfFatal(ex);
+                        m.close();
+                        cleanup();
+                        a.onError(ex);
+                        return;
+                    }
+
+                    if (v == null) {
+                        cleanup();
+                        a.onComplete();
+                        return;
+                    }
+
+                    a.onNext(v);
+
+                    e++;
+                }
+
+                if (cancelled) {
+                    m.close();
+                    cleanup();
+                    return;
+                }
+
+                if (m.isEmpty()) {
+                    cleanup();
+                    a.onComplete();
+                    return;
+                }
+
+                if (e != 0L && r != Long.MAX_VALUE) {
+                    requested.addAndGet(-e);
+                }
+
+                missed = addAndGet(-missed);
+                if (missed == 0) {
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * A sorted run with its current head value.
+     * @param <T> the value type
+     */
+    abstract static class Run<T> {
+        final int index;
+
+        T head;
+
+        Run(int index) {
+            this.index = index;
+        }
+
+        /**
+         * Moves to the next value, setting head to null at the end of the run.
+         * @throws Exception on read or deserialization error
+         */
+        abstract void advance() throws Exception;
+
+        abstract void close();
+    }
+
+    static final class ListRun<T> extends Run<T> {
+        final List<T> list;
+
+        int offset;
+
+        ListRun(List<T> list, int index) {
+            super(index);
+            this.list = list;
+            advance();
+        }
+
+        @Override
+        void advance() {
+            int i = offset;
+            if (i == list.size()) {
+                head = null;
+            } else {
+                head = list.get(i);
+                list.set(i, null);
+                offset = i + 1;
+            }
+        }
+
+        @Override
+        void close() {
+            list.clear();
+        }
+    }
+
+    static final class FileRun<T> extends Run<T> {
+        final FileChannel channel;
+
+        final ByteBuffer buf;
+
+        final Serializer<T> serializer;
+
+        FileRun(File file, int index, Serializer<T> serializer) throws Exception {
+            super(index);
+            this.channel = new FileInputStream(file).getChannel();
+            this.buf = ByteBuffer.allocate(BUFFER_SIZE);
+            this.serializer = serializer;
+            buf.flip();
+            try {
+                advance();
+            } catch (Exception ex) {
+                close();
+                throw ex;
+            }
+        }
+
+        /**
+         * Makes sure at least n bytes are available in the buffer.
+         * @param n the number of bytes needed, at most the buffer capacity
+         * @return false if the end of the file was reached before any byte could be read
+         * @throws IOException on read error or if the file ended in the middle of a value
+         */
+        boolean ensure(int n) throws IOException {
+            if (buf.remaining() >= n) {
+                return true;
+            }
+            boolean empty = !buf.hasRemaining();
+            buf.compact();
+            while (buf.position() < n) {
+                if (channel.read(buf) < 0) {
+                    buf.flip();
+                    if (empty && !buf.hasRemaining()) {
+                        return false;
+                    }
+                    throw new EOFException("Truncated run file");
+                }
+            }
+            buf.flip();
+            return true;
+        }
+
+        @Override
+        void advance() throws Exception {
+            if (!ensure(4)) {
+                head = null;
+                close();
+                return;
+            }
+            int len = buf.getInt();
+            byte[] bytes = new byte[len];
+            if (len <= buf.capacity()) {
+                if (!ensure(len)) {
+                    throw new EOFException("Truncated run file");
+                }
+                buf.get(bytes);
+            } else {
+                int k = buf.remaining();
+                buf.get(bytes, 0, k);
+                ByteBuffer direct = ByteBuffer.wrap(bytes, k, len - k);
+                while (direct.hasRemaining()) {
+                    if (channel.read(direct) < 0) {
+                        throw new EOFException("Truncated run file");
+                    }
+                }
+            }
+            head = serializer.deserialize(bytes);
+        }
+
+        @Override
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException ex) {
+                RxJavaPlugins.onError(ex);
+            }
+        }
+    }
+
+    /**
+     * Merges the runs via a priority queue ordered by the head values and the run indexes.
+     * @param <T> the value type
+     */
+    static final class Merger<T> implements Comparator<Run<T>> {
+        final Comparator<? super T> comparator;
+
+        final PriorityQueue<Run<T>> heap;
+
+        final List<Run<T>> runs;
+
+        Merger(Comparator<? super T> comparator) {
+            this.comparator = comparator;
+            this.heap = new PriorityQueue<Run<T>>(11, this);
+            this.runs = new ArrayList<Run<T>>();
+        }
+
+        void add(Run<T> run) {
+            runs.add(run);
+            if (run.head != null) {
+                heap.offer(run);
+            }
+        }
+
+        @Override
+        public int compare(Run<T> a, Run<T> b) {
+            int c = comparator.compare(a.head, b.head);
+            if (c == 0) {
+                c = a.index < b.index ? -1 : (a.index > b.index ? 1 : 0);
+            }
+            return c;
+        }
+
+        T next() throws Exception {
+            Run<T> run = heap.poll();
+            if (run == null) {
+                return null;
+            }
+            T v = run.head;
+            run.advance();
+            if (run.head != null) {
+                heap.offer(run);
+            }
+            return v;
+        }
+
+        boolean isEmpty() {
+            return heap.isEmpty();
+        }
+
+        void close() {
+            for (Run<T> run : runs) {
+                run.close();
+            }
+            heap.clear();
+        }
+    }
+}
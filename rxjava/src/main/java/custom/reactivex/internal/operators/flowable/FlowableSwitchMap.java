@@ -13,6 +13,7 @@
 
 package custom.reactivex.internal.operators.flowable;
 
+import java.util.concurrent.Callable;
 import java.util.concurrent.atomic.*;
 
 import org.reactivestreams.*;
@@ -22,10 +23,21 @@ import custom.reactivex.functions.Function;
 import custom.reactivex.internal.functions.ObjectHelper;
 import custom.reactivex.internal.fuseable.*;
 import custom.reactivex.internal.queue.SpscArrayQueue;
-import custom.reactivex.internal.subscriptions.SubscriptionHelper;
+import custom.reactivex.internal.subscriptions.*;
 import custom.reactivex.internal.util.*;
 import custom.reactivex.plugins.RxJavaPlugins;
 
+/**
+ * Maps each upstream item to a Publisher and relays the items of the latest one.
+ * <p>
+ * Inner {@code Callable} Publishers, such as {@code just} or {@code fromCallable}, are called
+ * synchronously instead of being subscribed to. The queue of an inner Publisher is allocated
+ * when its first item arrives and is reused by the next inner Publisher once the inner Publisher
+ * terminated and its queue was drained.
+ *
+ * @param <T> the upstream value type
+ * @param <R> the output value type
+ */
 public final class FlowableSwitchMap<T, R> extends AbstractFlowableWithUpstream<T, R> {
     final Function<? super T, ? extends Publisher<? extends R>> mapper;
     final int bufferSize;
@@ -68,6 +80,9 @@ public final class FlowableSwitchMap<T, R> extends AbstractFlowableWithUpstream<
 
         final AtomicLong requested = new AtomicLong();
 
+        /** The emptied queue of a terminated inner, to be reused by the next inner. */
+        final AtomicReference<SimpleQueue<R>> spare = new AtomicReference<SimpleQueue<R>>();
+
         static final SwitchMapInnerSubscriber<Object, Object> CANCELLED;
         static {
             CANCELLED = new SwitchMapInnerSubscriber<Object, Object>(null, -1L, 1);
@@ -94,6 +109,7 @@ public final class FlowableSwitchMap<T, R> extends AbstractFlowableWithUpstream<
             }
         }
 
+        @SuppressWarnings("unchecked")
         @Override
         public void onNext(T t) {
             if (done) {
@@ -126,12 +142,48 @@ public final class FlowableSwitchMap<T, R> extends AbstractFlowableWithUpstream<
                     break;
                 }
                 if (active.compareAndSet(inner, nextInner)) {
-                    p.subscribe(nextInner);
+                    if (p instanceof Callable) {
+                        subscribeScalar((Callable<? extends R>)p, nextInner);
+                    } else {
+                        p.subscribe(nextInner);
+                    }
                     break;
                 }
             }
         }
 
+        void subscribeScalar(Callable<? extends R> p, SwitchMapInnerSubscriber<T, R> inner) {
+            R v;
+            try {
+                v = p.call();
+            } catch (Throwable e) {
+                Exceptions.throwIfFatal(e);
+                EmptySubscription.error(e, inner);
+                return;
+            }
+
+            if (v == null) {
+                EmptySubscription.complete(inner);
+            } else {
+                inner.onSubscribe(new ScalarSubscription<R>(inner, v));
+            }
+        }
+
+        /**
+         * Removes the terminated and drained inner and keeps its queue for reuse if
+         * the queue was not provided by the inner Publisher itself.
+         * @param inner the inner to remove
+         */
+        void retire(SwitchMapInnerSubscriber<T, R> inner) {
+            if (active.compareAndSet(inner, null) && inner.fusionMode == QueueSubscription.NONE) {
+                SimpleQueue<R> q = inner.queue;
+                if (q != null) {
+                    q.clear();
+                    spare.lazySet(q);
+                }
+            }
+        }
+
         @Override
         public void onError(Throwable t) {
             if (!done && error.addThrowable(t)) {
@@ -229,27 +281,23 @@ public final class FlowableSwitchMap<T, R> extends AbstractFlowableWithUpstream<
                 }
 
                 SwitchMapInnerSubscriber<T, R> inner = active.get();
+                boolean innerDone = inner != null && inner.done;
                 SimpleQueue<R> q = inner != null ? inner.queue : null;
-                if (q != null) {
-                    if (inner.done) {
-                        if (!delayErrors) {
-                            Throwable err = error.get();
-                            if (err != null) {
-                                disposeInner();
-                                a.onError(error.terminate());
-                                return;
-                            } else
-                            if (q.isEmpty()) {
-                                active.compareAndSet(inner, null);
-                                continue;
-                            }
-                        } else {
-                            if (q.isEmpty()) {
-                                active.compareAndSet(inner, null);
-                                continue;
-                            }
+                if (innerDone) {
+                    if (!delayErrors) {
+                        Throwable err = error.get();
+                        if (err != null) {
+                            disposeInner();
+                            a.onError(error.terminate());
+                            return;
                         }
                     }
+                    if (q == null || q.isEmpty()) {
+                        retire(inner);
+                        continue;
+                    }
+                }
+                if (q != null) {
 
                     long r = requested.get();
                     long e = 0L;
@@ -287,13 +335,13 @@ public final class FlowableSwitchMap<T, R> extends AbstractFlowableWithUpstream<
                                     return;
                                 } else
                                 if (empty) {
-                                    active.compareAndSet(inner, null);
+                                    retire(inner);
                                     retry = true;
                                     break;
                                 }
                             } else {
                                 if (empty) {
-                                    active.compareAndSet(inner, null);
+                                    retire(inner);
                                     retry = true;
                                     break;
                                 }
@@ -314,7 +362,9 @@ public final class FlowableSwitchMap<T, R> extends AbstractFlowableWithUpstream<
                             if (r != Long.MAX_VALUE) {
                                 requested.addAndGet(-e);
                             }
-                            inner.get().request(e);
+                            if (inner.fusionMode != QueueSubscription.SYNC) {
+                                inner.get().request(e);
+                            }
                         }
                     }
 
@@ -374,8 +424,6 @@ public final class FlowableSwitchMap<T, R> extends AbstractFlowableWithUpstream<
                     }
                 }
 
-                queue = new SpscArrayQueue<R>(bufferSize);
-
                 s.request(bufferSize);
             }
         }
@@ -384,9 +432,19 @@ public final class FlowableSwitchMap<T, R> extends AbstractFlowableWithUpstream<
         public void onNext(R t) {
             SwitchMapSubscriber<T, R> p = parent;
             if (index == p.unique) {
-                if (fusionMode == QueueSubscription.NONE && !queue.offer(t)) {
-                    onError(new MissingBackpressureException("Queue full?!"));
-                    return;
+                if (fusionMode == QueueSubscription.NONE) {
+                    SimpleQueue<R> q = queue;
+                    if (q == null) {
+                        q = p.spare.getAndSet(null);
+                        if (q == null) {
+                            q = new SpscArrayQueue<R>(bufferSize);
+                        }
+                        queue = q;
+                    }
+                    if (!q.offer(t)) {
+                        onError(new MissingBackpressureException("Queue full?!"));
+                        return;
+                    }
                 }
                 p.drain();
             }
@@ -0,0 +1,288 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package custom.reactivex.internal.operators.flowable;
+
+import java.util.concurrent.atomic.*;
+
+import org.reactivestreams.*;
+
+import custom.reactivex.*;
+import custom.reactivex.disposables.Disposable;
+import custom.reactivex.exceptions.Exceptions;
+import custom.reactivex.functions.Function;
+import custom.reactivex.internal.disposables.DisposableHelper;
+import custom.reactivex.internal.functions.ObjectHelper;
+import custom.reactivex.internal.subscriptions.SubscriptionHelper;
+import custom.reactivex.internal.util.*;
+import custom.reactivex.plugins.RxJavaPlugins;
+
+/**
+ * Maps upstream values into SingleSources and relays the success value of the latest one,
+ * disposing the previous SingleSource when a new upstream value arrives.
+ * <p>
+ * Unlike switchMap, no queue is needed per inner source as each holds at most one value.
+ * @param <T> the source value type
+ * @param <R> the result value type
+ */
+public final class FlowableSwitchMapSingle<T, R> extends AbstractFlowableWithUpstream<T, R> {
+
+    final Function<? super T, ? extends SingleSource<? extends R>> mapper;
+
+    final boolean delayErrors;
+
+    public FlowableSwitchMapSingle(Publisher<T> source,
+            Function<? super T, ? extends SingleSource<? extends R>> mapper,
+            boolean delayErrors) {
+        super(source);
+        this.mapper = mapper;
+        this.delayErrors = delayErrors;
+    }
+
+    @Override
+    protected void subscribeActual(Subscriber<? super R> s) {
+        source.subscribe(new SwitchMapSingleSubscriber<T, R>(s, mapper, delayErrors));
+    }
+
+    static final class SwitchMapSingleSubscriber<T, R> extends AtomicInteger
+    implements Subscriber<T>, Subscription {
+
+        private static final long serialVersionUID = -5402190102429853763L;
+
+        final Subscriber<? super R> actual;
+
+        final Function<? super T, ? extends SingleSource<? extends R>> mapper;
+
+        final boolean delayErrors;
+
+        final AtomicThrowable errors;
+
+        final AtomicLong requested;
+
+        final AtomicReference<SwitchMapSingleObserver<R>> inner;
+
+        static final SwitchMapSingleObserver<Object> INNER_DISPOSED =
+                new SwitchMapSingleObserver<Object>(null);
+
+        Subscription s;
+
+        volatile boolean done;
+
+        volatile boolean cancelled;
+
+        long emitted;
+
+        SwitchMapSingleSubscriber(Subscriber<? super R> actual,
+                Function<? super T, ? extends SingleSource<? extends R>> mapper,
+                        boolean delayErrors) {
+            this.actual = actual;
+            this.mapper = mapper;
+            this.delayErrors = delayErrors;
+            this.errors = new AtomicThrowable();
+            this.requested = new AtomicLong();
+            this.inner = new AtomicReference<SwitchMapSingleObserver<R>>();
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            if (SubscriptionHelper.validate(this.s, s)) {
+                this.s = s;
+                actual.onSubscribe(this);
+                s.request(Long.MAX_VALUE);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public void onNext(T t) {
+            SwitchMapSingleObserver<R> current = inner.get();
+            if (current != null) {
+                current.dispose();
+            }
+
+            SingleSource<? extends R> ms;
+
+            try {
+                ms = ObjectHelper.requireNonNull(mapper.apply(t), "The mapper returned a null SingleSource");
+            } catch (Throwable ex) {
+                Exceptions.throwIfFatal(ex);
+                s.cancel();
+                inner.getAndSet((SwitchMapSingleObserver<R>)INNER_DISPOSED);
+                onError(ex);
+                return;
+            }
+
+            SwitchMapSingleObserver<R> observer = new SwitchMapSingleObserver<R>(this);
+
+            for (;;) {
+                current = inner.get();
+                if (current == INNER_DISPOSED) {
+                    break;
+                }
+                if (inner.compareAndSet(current, observer)) {
+                    ms.subscribe(observer);
+                    break;
+                }
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            if (errors.addThrowable(t)) {
+                if (!delayErrors) {
+                    disposeInner();
+                }
+                done = true;
+                drain();
+            } else {
+                RxJavaPlugins.onError(t);
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            done = true;
+            drain();
+        }
+
+        @SuppressWarnings("unchecked")
+        void disposeInner() {
+            SwitchMapSingleObserver<R> current = inner.getAndSet((SwitchMapSingleObserver<R>)INNER_DISPOSED);
+            if (current != null && current != INNER_DISPOSED) {
+                current.dispose();
+            }
+        }
+
+        @Override
+        public void request(long n) {
+            if (SubscriptionHelper.validate(n)) {
+                BackpressureHelper.add(requested, n);
+                drain();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            s.cancel();
+            disposeInner();
+        }
+
+        void innerError(SwitchMapSingleObserver<R> sender, Throwable ex) {
+            if (inner.compareAndSet(sender, null)) {
+                if (errors.addThrowable(ex)) {
+                    if (!delayErrors) {
+                        s.cancel();
+                        disposeInner();
+                    }
+                    drain();
+                    return;
+                }
+            }
+            RxJavaPlugins.onError(ex);
+        }
+
+        void drain() {
+            if (getAndIncrement() != 0) {
+                return;
+            }
+
+            int missed = 1;
+            Subscriber<? super R> a = actual;
+            AtomicThrowable errs = errors;
+            AtomicReference<SwitchMapSingleObserver<R>> inr = inner;
+            AtomicLong req = requested;
+            long e = emitted;
+
+            for (;;) {
+
+                for (;;) {
+                    if (cancelled) {
+                        return;
+                    }
+
+                    if (errs.get() != null) {
+                        if (!delayErrors) {
+                            a.onError(errs.terminate());
+                            return;
+                        }
+                    }
+
+                    boolean d = done;
+                    SwitchMapSingleObserver<R> current = inr.get();
+                    boolean empty = current == null || current == INNER_DISPOSED;
+
+                    if (d && empty) {
+                        Throwable ex = errs.terminate();
+                        if (ex != null) {
+                            a.onError(ex);
+                        } else {
+                            a.onComplete();
+                        }
+                        return;
+                    }
+
+                    if (empty || current.item == null || e == req.get()) {
+                        break;
+                    }
+
+                    inr.compareAndSet(current, null);
+
+                    a.onNext(current.item);
+
+                    e++;
+                }
+
+                emitted = e;
+                missed = addAndGet(-missed);
+                if (missed == 0) {
+                    break;
+                }
+            }
+        }
+
+        static final class SwitchMapSingleObserver<R>
+        extends AtomicReference<Disposable> implements SingleObserver<R> {
+
+            private static final long serialVersionUID = 8042919737683345352L;
+
+            final SwitchMapSingleSubscriber<?, R> parent;
+
+            volatile R item;
+
+            SwitchMapSingleObserver(SwitchMapSingleSubscriber<?, R> parent) {
+                this.parent = parent;
+            }
+
+            @Override
+            public void onSubscribe(Disposable d) {
+                DisposableHelper.setOnce(this, d);
+            }
+
+            @Override
+            public void onSuccess(R t) {
+                item = t;
+                parent.drain();
+            }
+
+            @Override
+            public void onError(Throwable e) {
+                parent.innerError(this, e);
+            }
+
+            void dispose() {
+                DisposableHelper.dispose(this);
+            }
+        }
+    }
+}
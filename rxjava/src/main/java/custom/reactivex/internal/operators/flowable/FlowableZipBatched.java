@@ -0,0 +1,487 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package custom.reactivex.internal.operators.flowable;
+
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+import org.reactivestreams.*;
+
+import custom.reactivex.Flowable;
+import custom.reactivex.exceptions.Exceptions;
+import custom.reactivex.functions.Function;
+import custom.reactivex.internal.functions.ObjectHelper;
+import custom.reactivex.internal.fuseable.*;
+import custom.reactivex.internal.queue.SpscArrayQueue;
+import custom.reactivex.internal.subscriptions.*;
+import custom.reactivex.internal.util.*;
+import custom.reactivex.plugins.RxJavaPlugins;
+
+/**
+ * Zips the sources column-wise: up to {@code batchSize} items are taken from each source
+ * at once and handed, as one array per source, to a batch zipper which returns the
+ * results for all the rows of the batch.
+ * <p>
+ * A batch is built whenever the downstream has outstanding requests and each source has
+ * at least one item available, so batches may hold fewer than {@code batchSize} rows.
+ *
+ * @param <T> the common source value type
+ * @param <R> the result type
+ */
+public final class FlowableZipBatched<T, R> extends Flowable<R> {
+
+    final Iterable<? extends Publisher<? extends T>> sources;
+    final Function<? super Object[][], ? extends Iterable<? extends R>> zipper;
+    final int batchSize;
+    final int bufferSize;
+    final boolean delayError;
+
+    public FlowableZipBatched(Iterable<? extends Publisher<? extends T>> sources,
+            Function<? super Object[][], ? extends Iterable<? extends R>> zipper,
+            int batchSize, int bufferSize, boolean delayError) {
+        this.sources = sources;
+        this.zipper = zipper;
+        this.batchSize = batchSize;
+        this.bufferSize = bufferSize;
+        this.delayError = delayError;
+    }
+
+    @Override
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public void subscribeActual(Subscriber<? super R> s) {
+        Publisher<? extends T>[] a = new Publisher[8];
+        int count = 0;
+        try {
+            for (Publisher<? extends T> p : sources) {
+                if (count == a.length) {
+                    a = Arrays.copyOf(a, count + (count >> 2));
+                }
+                a[count++] = ObjectHelper.requireNonNull(p, "One of the sources is null");
+            }
+        } catch (Throwable ex) {
+            Exceptions.throwIfFatal(ex);
+            EmptySubscription.error(ex, s);
+            return;
+        }
+
+        if (count == 0) {
+            EmptySubscription.complete(s);
+            return;
+        }
+
+        ZipBatchedCoordinator<T, R> coordinator = new ZipBatchedCoordinator<T, R>(s, zipper, count,
+                batchSize, Math.max(bufferSize, batchSize), delayError);
+
+        s.onSubscribe(coordinator);
+
+        coordinator.subscribe(a, count);
+    }
+
+    static final class ZipBatchedCoordinator<T, R>
+    extends AtomicInteger
+    implements Subscription {
+
+        private static final long serialVersionUID = 6318342427596522370L;
+
+        final Subscriber<? super R> actual;
+
+        final ZipBatchedSubscriber<T>[] subscribers;
+
+        final Function<? super Object[][], ? extends Iterable<? extends R>> zipper;
+
+        final int batchSize;
+
+        final AtomicLong requested;
+
+        final AtomicThrowable errors;
+
+        final boolean delayErrors;
+
+        /** The columns being filled, accessed only by the draining thread. */
+        final Object[][] columns;
+
+        /** The number of items in each column, accessed only by the draining thread. */
+        final int[] filled;
+
+        /** The results of the current batch, accessed only by the draining thread. */
+        Iterator<? extends R> current;
+
+        /** Set when a source ran out of items and no more rows can be formed. */
+        boolean finished;
+
+        volatile boolean cancelled;
+
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        ZipBatchedCoordinator(Subscriber<? super R> actual,
+                Function<? super Object[][], ? extends Iterable<? extends R>> zipper,
+                int n, int batchSize, int prefetch, boolean delayErrors) {
+            this.actual = actual;
+            this.zipper = zipper;
+            this.batchSize = batchSize;
+            this.delayErrors = delayErrors;
+            ZipBatchedSubscriber<T>[] a = new ZipBatchedSubscriber[n];
+            for (int i = 0; i < n; i++) {
+                a[i] = new ZipBatchedSubscriber<T>(this, prefetch);
+            }
+            this.subscribers = a;
+            this.columns = new Object[n][batchSize];
+            this.filled = new int[n];
+            this.requested = new AtomicLong();
+            this.errors = new AtomicThrowable();
+        }
+
+        void subscribe(Publisher<? extends T>[] sources, int n) {
+            ZipBatchedSubscriber<T>[] a = subscribers;
+            for (int i = 0; i < n; i++) {
+                if (cancelled || (!delayErrors && errors.get() != null)) {
+                    return;
+                }
+                sources[i].subscribe(a[i]);
+            }
+        }
+
+        @Override
+        public void request(long n) {
+            if (SubscriptionHelper.validate(n)) {
+                BackpressureHelper.add(requested, n);
+                drain();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            if (!cancelled) {
+                cancelled = true;
+
+                cancelAll();
+
+                if (getAndIncrement() == 0) {
+                    clear();
+                }
+            }
+        }
+
+        void error(ZipBatchedSubscriber<T> inner, Throwable e) {
+            if (errors.addThrowable(e)) {
+                inner.done = true;
+                drain();
+            } else {
+                RxJavaPlugins.onError(e);
+            }
+        }
+
+        void cancelAll() {
+            for (ZipBatchedSubscriber<T> s : subscribers) {
+                s.cancel();
+            }
+        }
+
+        void clear() {
+            current = null;
+            for (Object[] c : columns) {
+                Arrays.fill(c, null);
+            }
+        }
+
+        void fail(Throwable ex) {
+            cancelAll();
+            clear();
+            errors.addThrowable(ex);
+            actual.onError(errors.terminate());
+        }
+
+        /**
+         * Moves the available items into the columns and, if every column has at least one
+         * item, hands the complete rows to the zipper.
+         * @return the results of the batch, null if no row is complete
+         * @throws Exception if polling a source or the zipper failed
+         */
+        Iterator<? extends R> nextBatch() throws Exception {
+            final ZipBatchedSubscriber<T>[] qs = subscribers;
+            final Object[][] cols = columns;
+            final int[] f = filled;
+            final int n = qs.length;
+            final int max = batchSize;
+
+            int rows = max;
+            int exhausted = -1;
+
+            for (int j = 0; j < n; j++) {
+                ZipBatchedSubscriber<T> inner = qs[j];
+                Object[] c = cols[j];
+                int k = f[j];
+                if (k != max) {
+                    boolean d = inner.done;
+                    SimpleQueue<T> q = inner.queue;
+                    if (q != null) {
+                        while (k != max) {
+                            T v = q.poll();
+                            if (v == null) {
+                                break;
+                            }
+                            c[k++] = v;
+                        }
+                    }
+                    if (k != max && d) {
+                        if (exhausted < 0 || k < f[exhausted]) {
+                            exhausted = j;
+                        }
+                    }
+                    f[j] = k;
+                }
+                rows = Math.min(rows, k);
+            }
+
+            if (exhausted >= 0 && f[exhausted] == rows) {
+                finished = true;
+            }
+
+            if (rows == 0) {
+                return null;
+            }
+
+            Object[][] batch = new Object[n][];
+            for (int j = 0; j < n; j++) {
+                Object[] c = cols[j];
+                int k = f[j];
+                Object[] next = new Object[max];
+                if (rows == max) {
+                    batch[j] = c;
+                } else {
+                    batch[j] = Arrays.copyOf(c, rows);
+                    if (k != rows) {
+                        System.arraycopy(c, rows, next, 0, k - rows);
+                    }
+                }
+                cols[j] = next;
+                f[j] = k - rows;
+                qs[j].request(rows);
+            }
+
+            Iterable<? extends R> results = ObjectHelper.requireNonNull(zipper.apply(batch), "The zipper returned a null Iterable");
+            return results.iterator();
+        }
+
+        void drain() {
+
+            if (getAndIncrement() != 0) {
+                return;
+            }
+
+            final Subscriber<? super R> a = actual;
+
+            int missed = 1;
+
+            for (;;) {
+
+                long r = requested.get();
+                long e = 0L;
+
+                for (;;) {
+                    if (cancelled) {
+                        clear();
+                        return;
+                    }
+
+                    if (!delayErrors && errors.get() != null) {
+                        cancelAll();
+                        clear();
+                        a.onError(errors.terminate());
+                        return;
+                    }
+
+                    Iterator<? extends R> it = current;
+
+                    if (it == null) {
+                        if (finished) {
+                            cancelAll();
+                            clear();
+                            Throwable ex = errors.terminate();
+                            if (ex != null) {
+                                a.onError(ex);
+                            } else {
+                                a.onComplete();
+                            }
+                            return;
+                        }
+
+                        if (e == r) {
+                            break;
+                        }
+
+                        boolean has;
+                        try {
+                            it = nextBatch();
+                            has = it != null && it.hasNext();
+                        } catch (Throwable ex) {
+                            Exceptions.throwIfFatal(ex);
+                            fail(ex);
+                            return;
+                        }
+
+                        if (it == null) {
+                            if (finished) {
+                                continue;
+                            }
+                            break;
+                        }
+                        if (!has) {
+                            continue;
+                        }
+                        current = it;
+                    }
+
+                    while (e != r) {
+                        R v;
+                        try {
+                            v = ObjectHelper.requireNonNull(it.next(), "The zipper's Iterable returned a null value");
+                        } catch (Throwable ex) {
+                            Exceptions.throwIfFatal(ex);
+                            fail(ex);
+                            return;
+                        }
+
+                        a.onNext(v);
+
+                        if (cancelled) {
+                            clear();
+                            return;
+                        }
+
+                        e++;
+
+                        boolean has;
+                        try {
+                            has = it.hasNext();
+                        } catch (Throwable ex) {
+                            Exceptions.throwIfFatal(ex);
+                            fail(ex);
+                            return;
+                        }
+
+                        if (!has) {
+                            current = null;
+                            break;
+                        }
+                    }
+
+                    if (e == r && current != null) {
+                        break;
+                    }
+                }
+
+                if (e != 0L && r != Long.MAX_VALUE) {
+                    requested.addAndGet(-e);
+                }
+
+                missed = addAndGet(-missed);
+                if (missed == 0) {
+                    break;
+                }
+            }
+        }
+    }
+
+    static final class ZipBatchedSubscriber<T> extends AtomicReference<Subscription> implements Subscriber<T>, Subscription {
+
+        private static final long serialVersionUID = -1887467012584016427L;
+
+        final ZipBatchedCoordinator<T, ?> parent;
+
+        final int prefetch;
+
+        final int limit;
+
+        SimpleQueue<T> queue;
+
+        long produced;
+
+        volatile boolean done;
+
+        int sourceMode;
+
+        ZipBatchedSubscriber(ZipBatchedCoordinator<T, ?> parent, int prefetch) {
+            this.parent = parent;
+            this.prefetch = prefetch;
+            this.limit = prefetch - (prefetch >> 2);
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public void onSubscribe(Subscription s) {
+            if (SubscriptionHelper.setOnce(this, s)) {
+                if (s instanceof QueueSubscription) {
+                    QueueSubscription<T> f = (QueueSubscription<T>) s;
+
+                    int m = f.requestFusion(QueueSubscription.ANY);
+
+                    if (m == QueueSubscription.SYNC) {
+                        sourceMode = m;
+                        queue = f;
+                        done = true;
+                        parent.drain();
+                        return;
+                    }
+                    if (m == QueueSubscription.ASYNC) {
+                        sourceMode = m;
+                        queue = f;
+                        s.request(prefetch);
+                        return;
+                    }
+                }
+
+                queue = new SpscArrayQueue<T>(prefetch);
+
+                s.request(prefetch);
+            }
+        }
+
+        @Override
+        public void onNext(T t) {
+            if (sourceMode != QueueSubscription.ASYNC) {
+                queue.offer(t);
+            }
+            parent.drain();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            parent.error(this, t);
+        }
+
+        @Override
+        public void onComplete() {
+            done = true;
+            parent.drain();
+        }
+
+        @Override
+        public void cancel() {
+            SubscriptionHelper.cancel(this);
+        }
+
+        @Override
+        public void request(long n) {
+            if (sourceMode != QueueSubscription.SYNC) {
+                long p = produced + n;
+                if (p >= limit) {
+                    produced = 0L;
+                    get().request(p);
+                } else {
+                    produced = p;
+                }
+            }
+        }
+    }
+}
@@ -16,11 +16,13 @@ package custom.reactivex.internal.operators.observable;
 import custom.reactivex.*;
 import custom.reactivex.disposables.Disposable;
 import custom.reactivex.exceptions.Exceptions;
+import custom.reactivex.functions.Consumer;
 import custom.reactivex.internal.disposables.DisposableHelper;
 import custom.reactivex.internal.fuseable.*;
 import custom.reactivex.internal.observers.BasicIntQueueDisposable;
 import custom.reactivex.internal.queue.SpscLinkedArrayQueue;
-import custom.reactivex.internal.schedulers.TrampolineScheduler;
+import custom.reactivex.internal.schedulers.*;
+import custom.reactivex.internal.util.ExceptionHelper;
 import custom.reactivex.plugins.RxJavaPlugins;
 
 public final class ObservableObserveOn<T> extends AbstractObservableWithUpstream<T, T> {
@@ -46,7 +48,7 @@ public final class ObservableObserveOn<T> extends AbstractObservableWithUpstream
     }
 
     static final class ObserveOnObserver<T> extends BasicIntQueueDisposable<T>
-    implements Observer<T>, Runnable {
+    implements Observer<T>, Runnable, Consumer<T> {
 
         private static final long serialVersionUID = 6576896619930983584L;
         final Observer<? super T> actual;
@@ -56,6 +58,9 @@ public final class ObservableObserveOn<T> extends AbstractObservableWithUpstream
 
         SimpleQueue<T> queue;
 
+        /** The own queue if the upstream is not fused, drained in batches. */
+        SpscLinkedArrayQueue<T> batchQueue;
+
         Disposable s;
 
         Throwable error;
@@ -100,7 +105,9 @@ public final class ObservableObserveOn<T> extends AbstractObservableWithUpstream
                     }
                 }
 
-                queue = new SpscLinkedArrayQueue<T>(bufferSize);
+                SpscLinkedArrayQueue<T> q = new SpscLinkedArrayQueue<T>(bufferSize, true);
+                batchQueue = q;
+                queue = q;
 
                 actual.onSubscribe(this);
             }
@@ -157,7 +164,12 @@ public final class ObservableObserveOn<T> extends AbstractObservableWithUpstream
 
         void schedule() {
             if (getAndIncrement() == 0) {
-                worker.schedule(this);
+                Scheduler.Worker w = worker;
+                if (w instanceof RecyclingWorker) {
+                    ((RecyclingWorker)w).scheduleRecycled(this);
+                } else {
+                    w.schedule(this);
+                }
             }
         }
 
@@ -205,6 +217,56 @@ public final class ObservableObserveOn<T> extends AbstractObservableWithUpstream
             }
         }
 
+        /**
+         * Drains the own queue in batches of up to bufferSize items so the consumer
+         * index is published once per batch instead of once per item.
+         */
+        void drainBatched() {
+            int missed = 1;
+
+            final SpscLinkedArrayQueue<T> q = batchQueue;
+            final Observer<? super T> a = actual;
+            final int batch = bufferSize;
+
+            for (;;) {
+                if (checkTerminated(done, q.isEmpty(), a)) {
+                    return;
+                }
+
+                for (;;) {
+                    boolean d = done;
+                    int n;
+
+                    try {
+                        n = q.drain(this, batch);
+                    } catch (Throwable ex) {
+                        throw ExceptionHelper.wrapOrThrow(ex);
+                    }
+                    boolean empty = n == 0;
+
+                    if (checkTerminated(d, empty, a)) {
+                        return;
+                    }
+
+                    if (empty) {
+                        break;
+                    }
+                }
+
+                missed = addAndGet(-missed);
+                if (missed == 0) {
+                    break;
+                }
+            }
+        }
+
+        @Override
+        public void accept(T t) {
+            if (!cancelled) {
+                actual.onNext(t);
+            }
+        }
+
         void drainFused() {
             int missed = 1;
 
@@ -246,6 +308,8 @@ public final class ObservableObserveOn<T> extends AbstractObservableWithUpstream
         public void run() {
             if (outputFused) {
                 drainFused();
+            } else if (batchQueue != null) {
+                drainBatched();
             } else {
                 drainNormal();
             }
@@ -0,0 +1,99 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package custom.reactivex.internal.operators.observable;
+
+import custom.reactivex.*;
+import custom.reactivex.disposables.Disposable;
+import custom.reactivex.exceptions.AssemblyTraceException;
+import custom.reactivex.internal.disposables.DisposableHelper;
+import custom.reactivex.internal.util.AssemblySites;
+
+/**
+ * Attaches the call site where the upstream Observable was assembled to the errors passing through.
+ * @param <T> the value type
+ */
+public final class ObservableOnAssembly<T> extends AbstractObservableWithUpstream<T, T> {
+
+    /** Captured during assembly, its stack trace is materialized only if an error passes through. */
+    final Throwable capture;
+
+    volatile AssemblyTraceException site;
+
+    public ObservableOnAssembly(ObservableSource<T> source, Throwable capture) {
+        super(source);
+        this.capture = capture;
+    }
+
+    @Override
+    protected void subscribeActual(Observer<? super T> o) {
+        source.subscribe(new OnAssemblyObserver<T>(o, this));
+    }
+
+    AssemblyTraceException site() {
+        AssemblyTraceException a = site;
+        if (a == null) {
+            a = AssemblySites.site(capture);
+            site = a;
+        }
+        return a;
+    }
+
+    static final class OnAssemblyObserver<T> implements Observer<T>, Disposable {
+
+        final Observer<? super T> actual;
+
+        final ObservableOnAssembly<T> parent;
+
+        Disposable d;
+
+        OnAssemblyObserver(Observer<? super T> actual, ObservableOnAssembly<T> parent) {
+            this.actual = actual;
+            this.parent = parent;
+        }
+
+        @Override
+        public void dispose() {
+            d.dispose();
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return d.isDisposed();
+        }
+
+        @Override
+        public void onSubscribe(Disposable d) {
+            if (DisposableHelper.validate(this.d, d)) {
+                this.d = d;
+                actual.onSubscribe(this);
+            }
+        }
+
+        @Override
+        public void onNext(T t) {
+            actual.onNext(t);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            AssemblySites.attach(t, parent.site());
+            actual.onError(t);
+        }
+
+        @Override
+        public void onComplete() {
+            actual.onComplete();
+        }
+    }
+}
@@ -13,18 +13,25 @@
 
 package custom.reactivex.internal.operators.observable;
 
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.*;
-import java.util.concurrent.locks.ReentrantLock;
 
 import custom.reactivex.*;
-import custom.reactivex.disposables.*;
+import custom.reactivex.disposables.Disposable;
 import custom.reactivex.functions.Consumer;
 import custom.reactivex.internal.disposables.DisposableHelper;
 import custom.reactivex.observables.ConnectableObservable;
+import custom.reactivex.plugins.RxJavaPlugins;
 
 /**
  * Returns an observable sequence that stays connected to the source as long as
  * there is at least one subscription to the observable sequence.
+ * <p>
+ * The connection and its observer count are managed without locks: each connection
+ * holds its state in a single atomic long, the number of observers in the lower half
+ * and, in the upper half, a generation counter incremented whenever the count drops to zero.
+ * If a grace period is specified, the disconnect is delayed and only happens if the
+ * connection is still in the same idle generation by then.
  *
  * @param <T>
  *            the value type
@@ -33,173 +40,247 @@ public final class ObservableRefCount<T> extends AbstractObservableWithUpstream<
 
     final ConnectableObservable<? extends T> source;
 
-    volatile CompositeDisposable baseDisposable = new CompositeDisposable();
+    final long timeout;
 
-    final AtomicInteger subscriptionCount = new AtomicInteger();
+    final TimeUnit unit;
+
+    final Scheduler scheduler;
+
+    final AtomicReference<RefConnection> current;
 
     /**
-     * Use this lock for every subscription and disconnect action.
+     * Constructor.
+     *
+     * @param source
+     *            observable to apply ref count to
      */
-    final ReentrantLock lock = new ReentrantLock();
+    public ObservableRefCount(ConnectableObservable<T> source) {
+        this(source, 0L, TimeUnit.NANOSECONDS, null);
+    }
 
     /**
      * Constructor.
      *
      * @param source
      *            observable to apply ref count to
+     * @param timeout
+     *            the time to wait before disconnecting after the last observer disposed,
+     *            zero to disconnect immediately
+     * @param unit
+     *            the time unit of the timeout
+     * @param scheduler
+     *            the scheduler to wait on, may be null if the timeout is zero
      */
-    public ObservableRefCount(ConnectableObservable<T> source) {
+    public ObservableRefCount(ConnectableObservable<T> source, long timeout, TimeUnit unit, Scheduler scheduler) {
         super(source);
         this.source = source;
+        this.timeout = timeout;
+        this.unit = unit;
+        this.scheduler = scheduler;
+        this.current = new AtomicReference<RefConnection>();
     }
 
     @Override
-    public void subscribeActual(final Observer<? super T> subscriber) {
-
-        lock.lock();
-        if (subscriptionCount.incrementAndGet() == 1) {
-
-            final AtomicBoolean writeLocked = new AtomicBoolean(true);
-
-            try {
-                // need to use this overload of connect to ensure that
-                // baseDisposable is set in the case that source is a
-                // synchronous Observable
-                source.connect(onSubscribe(subscriber, writeLocked));
-            } finally {
-                // need to cover the case where the source is subscribed to
-                // outside of this class thus preventing the Action1 passed
-                // to source.connect above being called
-                if (writeLocked.get()) {
-                    // Action1 passed to source.connect was not called
-                    lock.unlock();
+    public void subscribeActual(final Observer<? super T> observer) {
+        RefConnection conn;
+        for (;;) {
+            conn = current.get();
+            if (conn == null) {
+                conn = new RefConnection();
+                if (!current.compareAndSet(null, conn)) {
+                    continue;
                 }
             }
-        } else {
-            try {
-                // ready to subscribe to source so do it
-                doSubscribe(subscriber, baseDisposable);
-            } finally {
-                // release the read lock
-                lock.unlock();
+            long s = conn.get();
+            if (s == RefConnection.TERMINATED) {
+                current.compareAndSet(conn, null);
+                continue;
+            }
+            if (conn.compareAndSet(s, s + 1)) {
+                if ((int)s == 0) {
+                    Disposable d = conn.timer.get();
+                    if (d != null) {
+                        d.dispose();
+                    }
+                }
+                break;
             }
         }
 
+        source.subscribe(new RefCountObserver<T>(observer, this, conn));
+
+        if (!conn.connectStarted.get() && conn.connectStarted.compareAndSet(false, true)) {
+            source.connect(conn);
+        }
     }
 
-    private Consumer<Disposable> onSubscribe(final Observer<? super T> observer,
-            final AtomicBoolean writeLocked) {
-        return  new Consumer<Disposable>() {
-            @Override
-            public void accept(Disposable subscription) {
-                try {
-                    baseDisposable.add(subscription);
-                    // ready to subscribe to source so do it
-                    doSubscribe(observer, baseDisposable);
-                } finally {
-                    // release the write lock
-                    lock.unlock();
-                    writeLocked.set(false);
+    void cancel(RefConnection conn) {
+        for (;;) {
+            long s = conn.get();
+            if (s == RefConnection.TERMINATED) {
+                return;
+            }
+            if ((int)s == 1) {
+                if (timeout == 0L) {
+                    if (conn.compareAndSet(s, RefConnection.TERMINATED)) {
+                        disconnect(conn);
+                        return;
+                    }
+                } else {
+                    long idle = RefConnection.nextGeneration(s);
+                    if (conn.compareAndSet(s, idle)) {
+                        DisposableHelper.replace(conn.timer,
+                                scheduler.scheduleDirect(new DisconnectTask(this, conn, idle), timeout, unit));
+                        return;
+                    }
                 }
+            } else if (conn.compareAndSet(s, s - 1)) {
+                return;
             }
-        };
+        }
     }
 
-    void doSubscribe(final Observer<? super T> observer, final CompositeDisposable currentBase) {
-        // handle disposing from the base CompositeDisposable
-        Disposable d = disconnect(currentBase);
+    void timeout(RefConnection conn, long idle) {
+        if (conn.compareAndSet(idle, RefConnection.TERMINATED)) {
+            disconnect(conn);
+        }
+    }
 
-        ConnectionObserver s = new ConnectionObserver(observer, currentBase, d);
-        observer.onSubscribe(s);
+    void terminated(RefConnection conn) {
+        if (conn.getAndSet(RefConnection.TERMINATED) != RefConnection.TERMINATED) {
+            disconnect(conn);
+        }
+    }
 
-        source.subscribe(s);
+    void disconnect(RefConnection conn) {
+        current.compareAndSet(conn, null);
+        DisposableHelper.dispose(conn.timer);
+        DisposableHelper.dispose(conn.connection);
     }
 
-    private Disposable disconnect(final CompositeDisposable current) {
-        return Disposables.fromRunnable(new Runnable() {
-            @Override
-            public void run() {
-                lock.lock();
-                try {
-                    if (baseDisposable == current) {
-                        if (subscriptionCount.decrementAndGet() == 0) {
-                            baseDisposable.dispose();
-                            // need a new baseDisposable because once
-                            // disposed stays that way
-                            baseDisposable = new CompositeDisposable();
-                        }
-                    }
-                } finally {
-                    lock.unlock();
-                }
+    static final class RefConnection extends AtomicLong implements Consumer<Disposable> {
+
+        private static final long serialVersionUID = -4552101107598366241L;
+
+        /** The connection has been or is being disconnected and can't be reused. */
+        static final long TERMINATED = -1L;
+
+        static final long COUNT_MASK = 0xFFFFFFFFL;
+
+        static final long GENERATION_MASK = 0x7FFFFFFFL;
+
+        /** Holds the connection's Disposable once connect() produced it. */
+        final AtomicReference<Disposable> connection;
+
+        final AtomicReference<Disposable> timer;
+
+        final AtomicBoolean connectStarted;
+
+        RefConnection() {
+            this.connection = new AtomicReference<Disposable>();
+            this.timer = new AtomicReference<Disposable>();
+            this.connectStarted = new AtomicBoolean();
+        }
+
+        /**
+         * Returns the state with zero observers and the generation following the one in the given state.
+         * @param state the current state
+         * @return the idle state of the next generation
+         */
+        static long nextGeneration(long state) {
+            return (((state >>> 32) + 1) & GENERATION_MASK) << 32;
+        }
+
+        @Override
+        public void accept(Disposable d) throws Exception {
+            if (!DisposableHelper.replace(connection, d)) {
+                return;
             }
-        });
+            if (get() == TERMINATED) {
+                DisposableHelper.dispose(connection);
+            }
+        }
     }
 
-    final class ConnectionObserver
-    extends AtomicReference<Disposable>
-    implements Observer<T>, Disposable {
+    static final class DisconnectTask implements Runnable {
+        final ObservableRefCount<?> parent;
 
-        private static final long serialVersionUID = 3813126992133394324L;
+        final RefConnection conn;
 
-        final Observer<? super T> subscriber;
-        final CompositeDisposable currentBase;
-        final Disposable resource;
+        final long idle;
 
-        ConnectionObserver(Observer<? super T> subscriber,
-                CompositeDisposable currentBase, Disposable resource) {
-            this.subscriber = subscriber;
-            this.currentBase = currentBase;
-            this.resource = resource;
+        DisconnectTask(ObservableRefCount<?> parent, RefConnection conn, long idle) {
+            this.parent = parent;
+            this.conn = conn;
+            this.idle = idle;
         }
 
         @Override
-        public void onSubscribe(Disposable s) {
-            DisposableHelper.setOnce(this, s);
+        public void run() {
+            parent.timeout(conn, idle);
+        }
+    }
+
+    static final class RefCountObserver<T> extends AtomicBoolean implements Observer<T>, Disposable {
+
+        private static final long serialVersionUID = -7419642935409022375L;
+
+        final Observer<? super T> actual;
+
+        final ObservableRefCount<T> parent;
+
+        final RefConnection conn;
+
+        Disposable d;
+
+        RefCountObserver(Observer<? super T> actual, ObservableRefCount<T> parent, RefConnection conn) {
+            this.actual = actual;
+            this.parent = parent;
+            this.conn = conn;
         }
 
         @Override
-        public void onError(Throwable e) {
-            cleanup();
-            subscriber.onError(e);
+        public void onSubscribe(Disposable d) {
+            if (DisposableHelper.validate(this.d, d)) {
+                this.d = d;
+                actual.onSubscribe(this);
+            }
         }
 
         @Override
         public void onNext(T t) {
-            subscriber.onNext(t);
+            actual.onNext(t);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            if (compareAndSet(false, true)) {
+                parent.terminated(conn);
+                actual.onError(t);
+            } else {
+                RxJavaPlugins.onError(t);
+            }
         }
 
         @Override
         public void onComplete() {
-            cleanup();
-            subscriber.onComplete();
+            if (compareAndSet(false, true)) {
+                parent.terminated(conn);
+                actual.onComplete();
+            }
         }
 
         @Override
         public void dispose() {
-            DisposableHelper.dispose(this);
-            resource.dispose();
+            d.dispose();
+            if (compareAndSet(false, true)) {
+                parent.cancel(conn);
+            }
         }
 
         @Override
         public boolean isDisposed() {
-            return DisposableHelper.isDisposed(get());
-        }
-
-        void cleanup() {
-            // on error or completion we need to dispose the base CompositeDisposable
-            // and set the subscriptionCount to 0
-            lock.lock();
-            try {
-                if (baseDisposable == currentBase) {
-                    baseDisposable.dispose();
-                    baseDisposable = new CompositeDisposable();
-                    subscriptionCount.set(0);
-                }
-            } finally {
-                lock.unlock();
-            }
+            return d.isDisposed();
         }
     }
-
-}
\ No newline at end of file
+}
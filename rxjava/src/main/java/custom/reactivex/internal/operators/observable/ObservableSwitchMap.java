@@ -13,18 +13,30 @@
 
 package custom.reactivex.internal.operators.observable;
 
+import java.util.concurrent.Callable;
 import java.util.concurrent.atomic.*;
 
 import custom.reactivex.*;
 import custom.reactivex.disposables.Disposable;
 import custom.reactivex.exceptions.Exceptions;
 import custom.reactivex.functions.Function;
-import custom.reactivex.internal.disposables.DisposableHelper;
+import custom.reactivex.internal.disposables.*;
 import custom.reactivex.internal.functions.ObjectHelper;
 import custom.reactivex.internal.queue.*;
 import custom.reactivex.internal.util.AtomicThrowable;
 import custom.reactivex.plugins.RxJavaPlugins;
 
+/**
+ * Maps each upstream item to an ObservableSource and relays the items of the latest one.
+ * <p>
+ * Inner {@code Callable} sources, such as {@code just} or {@code fromCallable}, are called
+ * synchronously instead of being subscribed to. The queue of an inner source is allocated
+ * when its first item arrives and is reused by the next inner source once the inner source
+ * terminated and its queue was drained.
+ *
+ * @param <T> the upstream value type
+ * @param <R> the output value type
+ */
 public final class ObservableSwitchMap<T, R> extends AbstractObservableWithUpstream<T, R> {
     final Function<? super T, ? extends ObservableSource<? extends R>> mapper;
     final int bufferSize;
@@ -69,6 +81,9 @@ public final class ObservableSwitchMap<T, R> extends AbstractObservableWithUpstr
 
         final AtomicReference<SwitchMapInnerObserver<T, R>> active = new AtomicReference<SwitchMapInnerObserver<T, R>>();
 
+        /** The emptied queue of a terminated inner, to be reused by the next inner. */
+        final AtomicReference<SpscLinkedArrayQueue<R>> spare = new AtomicReference<SpscLinkedArrayQueue<R>>();
+
         static final SwitchMapInnerObserver<Object, Object> CANCELLED;
         static {
             CANCELLED = new SwitchMapInnerObserver<Object, Object>(null, -1L, 1);
@@ -95,6 +110,7 @@ public final class ObservableSwitchMap<T, R> extends AbstractObservableWithUpstr
             }
         }
 
+        @SuppressWarnings("unchecked")
         @Override
         public void onNext(T t) {
             long c = unique + 1;
@@ -123,12 +139,46 @@ public final class ObservableSwitchMap<T, R> extends AbstractObservableWithUpstr
                     break;
                 }
                 if (active.compareAndSet(inner, nextInner)) {
-                    p.subscribe(nextInner);
+                    if (p instanceof Callable) {
+                        subscribeScalar((Callable<? extends R>)p, nextInner);
+                    } else {
+                        p.subscribe(nextInner);
+                    }
                     break;
                 }
             }
         }
 
+        void subscribeScalar(Callable<? extends R> p, SwitchMapInnerObserver<T, R> inner) {
+            R v;
+            try {
+                v = p.call();
+            } catch (Throwable e) {
+                Exceptions.throwIfFatal(e);
+                EmptyDisposable.error(e, inner);
+                return;
+            }
+
+            if (v != null) {
+                inner.onNext(v);
+            }
+            inner.onComplete();
+        }
+
+        /**
+         * Removes the terminated and drained inner and keeps its queue for reuse.
+         * @param inner the inner to remove
+         */
+        void retire(SwitchMapInnerObserver<T, R> inner) {
+            if (active.compareAndSet(inner, null)) {
+                SpscLinkedArrayQueue<R> q = inner.queue;
+                if (q != null) {
+                    q.clear();
+                    spare.lazySet(q);
+                }
+            }
+        }
+
         @Override
         public void onError(Throwable t) {
             if (done || !errors.addThrowable(t)) {
@@ -218,13 +268,14 @@ public final class ObservableSwitchMap<T, R> extends AbstractObservableWithUpstr
                 SwitchMapInnerObserver<T, R> inner = active.get();
 
                 if (inner != null) {
+                    boolean innerDone = inner.done;
                     SpscLinkedArrayQueue<R> q = inner.queue;
 
-                    if (inner.done) {
-                        boolean empty = q.isEmpty();
+                    if (innerDone) {
+                        boolean empty = q == null || q.isEmpty();
                         if (delayErrors) {
                             if (empty) {
-                                active.compareAndSet(inner, null);
+                                retire(inner);
                                 continue;
                             }
                         } else {
@@ -234,50 +285,52 @@ public final class ObservableSwitchMap<T, R> extends AbstractObservableWithUpstr
                                 return;
                             }
                             if (empty) {
-                                active.compareAndSet(inner, null);
+                                retire(inner);
                                 continue;
                             }
                         }
                     }
 
-                    boolean retry = false;
-
-                    for (;;) {
-                        if (cancelled) {
-                            return;
-                        }
-                        if (inner != active.get()) {
-                            retry = true;
-                            break;
-                        }
+                    if (q != null) {
+                        boolean retry = false;
 
-                        if (!delayErrors) {
-                            Throwable ex = errors.get();
-                            if (ex != null) {
-                                a.onError(errors.terminate());
+                        for (;;) {
+                            if (cancelled) {
                                 return;
                             }
-                        }
+                            if (inner != active.get()) {
+                                retry = true;
+                                break;
+                            }
 
-                        boolean d = inner.done;
-                        R v = q.poll();
-                        boolean empty = v == null;
+                            if (!delayErrors) {
+                                Throwable ex = errors.get();
+                                if (ex != null) {
+                                    a.onError(errors.terminate());
+                                    return;
+                                }
+                            }
 
-                        if (d && empty) {
-                            active.compareAndSet(inner, null);
-                            retry = true;
-                            break;
-                        }
+                            boolean d = inner.done;
+                            R v = q.poll();
+                            boolean empty = v == null;
 
-                        if (empty) {
-                            break;
-                        }
+                            if (d && empty) {
+                                retire(inner);
+                                retry = true;
+                                break;
+                            }
 
-                        a.onNext(v);
-                    }
+                            if (empty) {
+                                break;
+                            }
+
+                            a.onNext(v);
+                        }
 
-                    if (retry) {
-                        continue;
+                        if (retry) {
+                            continue;
+                        }
                     }
                 }
 
@@ -306,14 +359,16 @@ public final class ObservableSwitchMap<T, R> extends AbstractObservableWithUpstr
         private static final long serialVersionUID = 3837284832786408377L;
         final SwitchMapObserver<T, R> parent;
         final long index;
-        final SpscLinkedArrayQueue<R> queue;
+        final int bufferSize;
+
+        volatile SpscLinkedArrayQueue<R> queue;
 
         volatile boolean done;
 
         SwitchMapInnerObserver(SwitchMapObserver<T, R> parent, long index, int bufferSize) {
             this.parent = parent;
             this.index = index;
-            this.queue = new SpscLinkedArrayQueue<R>(bufferSize);
+            this.bufferSize = bufferSize;
         }
 
         @Override
@@ -323,9 +378,18 @@ public final class ObservableSwitchMap<T, R> extends AbstractObservableWithUpstr
 
         @Override
         public void onNext(R t) {
-            if (index == parent.unique) {
-                queue.offer(t);
-                parent.drain();
+            SwitchMapObserver<T, R> p = parent;
+            if (index == p.unique) {
+                SpscLinkedArrayQueue<R> q = queue;
+                if (q == null) {
+                    q = p.spare.getAndSet(null);
+                    if (q == null) {
+                        q = new SpscLinkedArrayQueue<R>(bufferSize);
+                    }
+                    queue = q;
+                }
+                q.offer(t);
+                p.drain();
             }
         }
 
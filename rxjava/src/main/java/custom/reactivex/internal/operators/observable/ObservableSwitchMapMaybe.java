@@ -0,0 +1,282 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package custom.reactivex.internal.operators.observable;
+
+import java.util.concurrent.atomic.*;
+
+import custom.reactivex.*;
+import custom.reactivex.disposables.Disposable;
+import custom.reactivex.exceptions.Exceptions;
+import custom.reactivex.functions.Function;
+import custom.reactivex.internal.disposables.DisposableHelper;
+import custom.reactivex.internal.functions.ObjectHelper;
+import custom.reactivex.internal.util.AtomicThrowable;
+import custom.reactivex.plugins.RxJavaPlugins;
+
+/**
+ * Maps upstream values into MaybeSources and relays the success value of the latest one,
+ * disposing the previous MaybeSource when a new upstream value arrives.
+ * <p>
+ * Unlike switchMap, no queue is needed per inner source as each holds at most one value.
+ * @param <T> the source value type
+ * @param <R> the result value type
+ */
+public final class ObservableSwitchMapMaybe<T, R> extends AbstractObservableWithUpstream<T, R> {
+
+    final Function<? super T, ? extends MaybeSource<? extends R>> mapper;
+
+    final boolean delayErrors;
+
+    public ObservableSwitchMapMaybe(ObservableSource<T> source,
+            Function<? super T, ? extends MaybeSource<? extends R>> mapper,
+            boolean delayErrors) {
+        super(source);
+        this.mapper = mapper;
+        this.delayErrors = delayErrors;
+    }
+
+    @Override
+    protected void subscribeActual(Observer<? super R> s) {
+        source.subscribe(new SwitchMapMaybeMainObserver<T, R>(s, mapper, delayErrors));
+    }
+
+    static final class SwitchMapMaybeMainObserver<T, R> extends AtomicInteger
+    implements Observer<T>, Disposable {
+
+        private static final long serialVersionUID = -5402190102429853762L;
+
+        final Observer<? super R> actual;
+
+        final Function<? super T, ? extends MaybeSource<? extends R>> mapper;
+
+        final boolean delayErrors;
+
+        final AtomicThrowable errors;
+
+        final AtomicReference<SwitchMapMaybeObserver<R>> inner;
+
+        static final SwitchMapMaybeObserver<Object> INNER_DISPOSED =
+                new SwitchMapMaybeObserver<Object>(null);
+
+        Disposable s;
+
+        volatile boolean done;
+
+        volatile boolean cancelled;
+
+        SwitchMapMaybeMainObserver(Observer<? super R> actual,
+                Function<? super T, ? extends MaybeSource<? extends R>> mapper,
+                        boolean delayErrors) {
+            this.actual = actual;
+            this.mapper = mapper;
+            this.delayErrors = delayErrors;
+            this.errors = new AtomicThrowable();
+            this.inner = new AtomicReference<SwitchMapMaybeObserver<R>>();
+        }
+
+        @Override
+        public void onSubscribe(Disposable s) {
+            if (DisposableHelper.validate(this.s, s)) {
+                this.s = s;
+                actual.onSubscribe(this);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public void onNext(T t) {
+            SwitchMapMaybeObserver<R> current = inner.get();
+            if (current != null) {
+                current.dispose();
+            }
+
+            MaybeSource<? extends R> ms;
+
+            try {
+                ms = ObjectHelper.requireNonNull(mapper.apply(t), "The mapper returned a null MaybeSource");
+            } catch (Throwable ex) {
+                Exceptions.throwIfFatal(ex);
+                s.dispose();
+                inner.getAndSet((SwitchMapMaybeObserver<R>)INNER_DISPOSED);
+                onError(ex);
+                return;
+            }
+
+            SwitchMapMaybeObserver<R> observer = new SwitchMapMaybeObserver<R>(this);
+
+            for (;;) {
+                current = inner.get();
+                if (current == INNER_DISPOSED) {
+                    break;
+                }
+                if (inner.compareAndSet(current, observer)) {
+                    ms.subscribe(observer);
+                    break;
+                }
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            if (errors.addThrowable(t)) {
+                if (!delayErrors) {
+                    disposeInner();
+                }
+                done = true;
+                drain();
+            } else {
+                RxJavaPlugins.onError(t);
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            done = true;
+            drain();
+        }
+
+        @SuppressWarnings("unchecked")
+        void disposeInner() {
+            SwitchMapMaybeObserver<R> current = inner.getAndSet((SwitchMapMaybeObserver<R>)INNER_DISPOSED);
+            if (current != null && current != INNER_DISPOSED) {
+                current.dispose();
+            }
+        }
+
+        @Override
+        public void dispose() {
+            cancelled = true;
+            s.dispose();
+            disposeInner();
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return cancelled;
+        }
+
+        void innerError(SwitchMapMaybeObserver<R> sender, Throwable ex) {
+            if (inner.compareAndSet(sender, null)) {
+                if (errors.addThrowable(ex)) {
+                    if (!delayErrors) {
+                        s.dispose();
+                        disposeInner();
+                    }
+                    drain();
+                    return;
+                }
+            }
+            RxJavaPlugins.onError(ex);
+        }
+
+        void innerComplete(SwitchMapMaybeObserver<R> sender) {
+            if (inner.compareAndSet(sender, null)) {
+                drain();
+            }
+        }
+
+        void drain() {
+            if (getAndIncrement() != 0) {
+                return;
+            }
+
+            int missed = 1;
+            Observer<? super R> a = actual;
+            AtomicThrowable errs = errors;
+            AtomicReference<SwitchMapMaybeObserver<R>> inr = inner;
+
+            for (;;) {
+
+                for (;;) {
+                    if (cancelled) {
+                        return;
+                    }
+
+                    if (errs.get() != null) {
+                        if (!delayErrors) {
+                            a.onError(errs.terminate());
+                            return;
+                        }
+                    }
+
+                    boolean d = done;
+                    SwitchMapMaybeObserver<R> current = inr.get();
+                    boolean empty = current == null || current == INNER_DISPOSED;
+
+                    if (d && empty) {
+                        Throwable ex = errs.terminate();
+                        if (ex != null) {
+                            a.onError(ex);
+                        } else {
+                            a.onComplete();
+                        }
+                        return;
+                    }
+
+                    if (empty || current.item == null) {
+                        break;
+                    }
+
+                    inr.compareAndSet(current, null);
+
+                    a.onNext(current.item);
+                }
+
+                missed = addAndGet(-missed);
+                if (missed == 0) {
+                    break;
+                }
+            }
+        }
+
+        static final class SwitchMapMaybeObserver<R>
+        extends AtomicReference<Disposable> implements MaybeObserver<R> {
+
+            private static final long serialVersionUID = 8042919737683345351L;
+
+            final SwitchMapMaybeMainObserver<?, R> parent;
+
+            volatile R item;
+
+            SwitchMapMaybeObserver(SwitchMapMaybeMainObserver<?, R> parent) {
+                this.parent = parent;
+            }
+
+            @Override
+            public void onSubscribe(Disposable d) {
+                DisposableHelper.setOnce(this, d);
+            }
+
+            @Override
+            public void onSuccess(R t) {
+                item = t;
+                parent.drain();
+            }
+
+            @Override
+            public void onError(Throwable e) {
+                parent.innerError(this, e);
+            }
+
+            @Override
+            public void onComplete() {
+                parent.innerComplete(this);
+            }
+
+            void dispose() {
+                DisposableHelper.dispose(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,286 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package custom.reactivex.internal.operators.observable;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+import custom.reactivex.*;
+import custom.reactivex.Observer;
+import custom.reactivex.disposables.Disposable;
+import custom.reactivex.exceptions.Exceptions;
+import custom.reactivex.functions.*;
+import custom.reactivex.internal.disposables.*;
+import custom.reactivex.internal.functions.ObjectHelper;
+import custom.reactivex.internal.queue.MpscLinkedQueue;
+import custom.reactivex.internal.observers.QueueDrainObserver;
+import custom.reactivex.internal.util.QueueDrainHelper;
+
+/**
+ * Aggregates the items of each {@code timespan} long pane into a pane state and, at the end of
+ * every pane, emits the result computed from the last {@code paneCount} pane states.
+ * <p>
+ * Each item is accumulated into exactly one pane state and only the pane states are retained,
+ * so the memory used doesn't depend on the number of items. The pane states handed to the
+ * finisher are no longer accumulated into and must not be modified by it.
+ *
+ * @param <T> the upstream value type
+ * @param <P> the pane state type
+ * @param <R> the result type
+ */
+public final class ObservableWindowedAggregate<T, P, R> extends AbstractObservableWithUpstream<T, R> {
+
+    final long timespan;
+    final TimeUnit unit;
+    final Scheduler scheduler;
+    final int paneCount;
+    final Callable<P> paneSupplier;
+    final BiFunction<P, ? super T, P> accumulator;
+    final Function<? super List<P>, ? extends R> finisher;
+
+    public ObservableWindowedAggregate(ObservableSource<T> source, long timespan, TimeUnit unit, Scheduler scheduler,
+            int paneCount, Callable<P> paneSupplier, BiFunction<P, ? super T, P> accumulator,
+            Function<? super List<P>, ? extends R> finisher) {
+        super(source);
+        this.timespan = timespan;
+        this.unit = unit;
+        this.scheduler = scheduler;
+        this.paneCount = paneCount;
+        this.paneSupplier = paneSupplier;
+        this.accumulator = accumulator;
+        this.finisher = finisher;
+    }
+
+    @Override
+    protected void subscribeActual(Observer<? super R> s) {
+        source.subscribe(new WindowedAggregateObserver<T, P, R>(s, this));
+    }
+
+    static final class WindowedAggregateObserver<T, P, R>
+    extends QueueDrainObserver<T, R, R> implements Runnable, Disposable {
+        final long timespan;
+        final TimeUnit unit;
+        final Scheduler scheduler;
+        final Callable<P> paneSupplier;
+        final BiFunction<P, ? super T, P> accumulator;
+        final Function<? super List<P>, ? extends R> finisher;
+
+        final AtomicReference<Disposable> timer = new AtomicReference<Disposable>();
+
+        Disposable s;
+
+        /** The ring of pane states, null once terminated; guarded by this. */
+        Object[] panes;
+
+        /** The index of the pane being accumulated into; guarded by this. */
+        int current;
+
+        WindowedAggregateObserver(Observer<? super R> actual, ObservableWindowedAggregate<T, P, R> parent) {
+            super(actual, new MpscLinkedQueue<R>());
+            this.timespan = parent.timespan;
+            this.unit = parent.unit;
+            this.scheduler = parent.scheduler;
+            this.paneSupplier = parent.paneSupplier;
+            this.accumulator = parent.accumulator;
+            this.finisher = parent.finisher;
+            this.panes = new Object[parent.paneCount];
+        }
+
+        @Override
+        public void onSubscribe(Disposable s) {
+            if (DisposableHelper.validate(this.s, s)) {
+                this.s = s;
+
+                P p;
+
+                try {
+                    p = ObjectHelper.requireNonNull(paneSupplier.call(), "The paneSupplier returned a null pane");
+                } catch (Throwable e) {
+                    Exceptions.throwIfFatal(e);
+                    dispose();
+                    EmptyDisposable.error(e, actual);
+                    return;
+                }
+
+                synchronized (this) {
+                    panes[0] = p;
+                }
+
+                actual.onSubscribe(this);
+
+                if (!cancelled) {
+                    Disposable d = scheduler.schedulePeriodicallyDirect(this, timespan, timespan, unit);
+                    if (!timer.compareAndSet(null, d)) {
+                        d.dispose();
+                    }
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public void onNext(T t) {
+            Throwable ex;
+            synchronized (this) {
+                Object[] ps = panes;
+                if (ps == null) {
+                    return;
+                }
+                int i = current;
+                try {
+                    ps[i] = ObjectHelper.requireNonNull(accumulator.apply((P)ps[i], t), "The accumulator returned a null pane");
+                    return;
+                } catch (Throwable e) {
+                    Exceptions.throwIfFatal(e);
+                    panes = null;
+                    ex = e;
+                }
+            }
+            fail(ex);
+        }
+
+        void fail(Throwable e) {
+            DisposableHelper.dispose(timer);
+            s.dispose();
+            actual.onError(e);
+        }
+
+        /**
+         * Returns the pane states oldest first; must be called while holding this.
+         * @param ps the pane ring
+         * @return the list of pane states
+         */
+        @SuppressWarnings("unchecked")
+        List<P> snapshot(Object[] ps) {
+            int n = ps.length;
+            List<P> list = new ArrayList<P>(n);
+            int c = current;
+            for (int i = 1; i <= n; i++) {
+                Object o = ps[(c + i) % n];
+                if (o != null) {
+                    list.add((P)o);
+                }
+            }
+            return list;
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            DisposableHelper.dispose(timer);
+            synchronized (this) {
+                panes = null;
+            }
+            actual.onError(t);
+        }
+
+        @Override
+        public void onComplete() {
+            DisposableHelper.dispose(timer);
+            List<P> list;
+            synchronized (this) {
+                Object[] ps = panes;
+                if (ps == null) {
+                    return;
+                }
+                list = snapshot(ps);
+                panes = null;
+            }
+
+            R r;
+            try {
+                r = ObjectHelper.requireNonNull(finisher.apply(list), "The finisher returned a null value");
+            } catch (Throwable e) {
+                Exceptions.throwIfFatal(e);
+                actual.onError(e);
+                return;
+            }
+
+            queue.offer(r);
+            done = true;
+            if (enter()) {
+                QueueDrainHelper.drainLoop(queue, actual, false, this, this);
+            }
+        }
+
+
+        @Override
+        public void run() {
+            P next;
+
+            try {
+                next = ObjectHelper.requireNonNull(paneSupplier.call(), "The paneSupplier returned a null pane");
+            } catch (Throwable e) {
+                Exceptions.throwIfFatal(e);
+                synchronized (this) {
+                    panes = null;
+                }
+                fail(e);
+                return;
+            }
+
+            List<P> list;
+
+            synchronized (this) {
+                Object[] ps = panes;
+                if (ps == null) {
+                    list = null;
+                } else {
+                    list = snapshot(ps);
+                    int c = current + 1;
+                    if (c == ps.length) {
+                        c = 0;
+                    }
+                    ps[c] = next;
+                    current = c;
+                }
+            }
+
+            if (list == null) {
+                DisposableHelper.dispose(timer);
+                return;
+            }
+
+            R r;
+            try {
+                r = ObjectHelper.requireNonNull(finisher.apply(list), "The finisher returned a null value");
+            } catch (Throwable e) {
+                Exceptions.throwIfFatal(e);
+                synchronized (this) {
+                    panes = null;
+                }
+                fail(e);
+                return;
+            }
+
+            fastPathEmit(r, false, this);
+        }
+
+        @Override
+        public void accept(Observer<? super R> a, R v) {
+            actual.onNext(v);
+        }
+
+        @Override
+        public void dispose() {
+            DisposableHelper.dispose(timer);
+            s.dispose();
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return timer.get() == DisposableHelper.DISPOSED;
+        }
+    }
+}
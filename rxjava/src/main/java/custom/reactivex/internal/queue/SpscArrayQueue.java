@@ -18,10 +18,12 @@
 
 package custom.reactivex.internal.queue;
 
+import java.util.concurrent.Callable;
 import java.util.concurrent.atomic.*;
 
+import custom.reactivex.functions.Consumer;
 import custom.reactivex.internal.fuseable.SimplePlainQueue;
-import custom.reactivex.internal.util.Pow2;
+import custom.reactivex.internal.util.*;
 
 /**
  * A Single-Producer-Single-Consumer queue backed by a pre-allocated buffer.
@@ -47,10 +49,29 @@ public final class SpscArrayQueue<E> extends AtomicReferenceArray<E> implements
     final int lookAheadStep;
 
     public SpscArrayQueue(int capacity) {
+        this(capacity, false);
+    }
+
+    /**
+     * Constructs a queue with the given capacity and optionally with the producer and
+     * consumer indexes padded to their own cache lines.
+     * <p>
+     * Padding avoids false sharing between the producer and consumer threads at the cost of
+     * extra memory; use it for queues which are continuously offered to and polled from
+     * different threads.
+     * @param capacity the capacity, rounded up to the next power of 2
+     * @param padded if true, the indexes are padded
+     */
+    public SpscArrayQueue(int capacity, boolean padded) {
         super(Pow2.roundToPowerOfTwo(capacity));
         this.mask = length() - 1;
-        this.producerIndex = new AtomicLong();
-        this.consumerIndex = new AtomicLong();
+        if (padded) {
+            this.producerIndex = new PaddedAtomicLong();
+            this.consumerIndex = new PaddedAtomicLong();
+        } else {
+            this.producerIndex = new AtomicLong();
+            this.consumerIndex = new AtomicLong();
+        }
         lookAheadStep = Math.min(capacity / 4, MAX_LOOK_AHEAD_STEP);
     }
 
@@ -96,6 +117,81 @@ public final class SpscArrayQueue<E> extends AtomicReferenceArray<E> implements
         return e;
     }
 
+    /**
+     * Removes up to {@code limit} elements from this queue and hands them to the given consumer,
+     * publishing the consumer index only once for the whole batch.
+     * <p>
+     * Should be called from the consumer thread only.
+     * @param consumer the consumer receiving the elements
+     * @param limit the maximum number of elements to remove
+     * @return the number of elements removed
+     * @throws Exception if the consumer threw
+     */
+    public int drain(Consumer<? super E> consumer, int limit) throws Exception {
+        final int mask = this.mask;
+        final long index = consumerIndex.get();
+        int n = 0;
+        try {
+            while (n < limit) {
+                final int offset = calcElementOffset(index + n, mask);
+                final E e = lvElement(offset);// LoadLoad
+                if (null == e) {
+                    break;
+                }
+                soElement(offset, null);// StoreStore
+                n++;
+                consumer.accept(e);
+            }
+        } finally {
+            if (n != 0) {
+                soConsumerIndex(index + n); // ordered store -> atomic and ordered for size()
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Adds up to {@code limit} elements obtained from the given supplier, publishing the
+     * producer index only once for the whole batch.
+     * <p>
+     * The supplier is only called if there is room for its element and the filling stops
+     * if it returns null. Should be called from the producer thread only.
+     * @param supplier the supplier of the elements
+     * @param limit the maximum number of elements to add
+     * @return the number of elements added
+     * @throws Exception if the supplier threw
+     */
+    public int fill(Callable<? extends E> supplier, int limit) throws Exception {
+        final int mask = this.mask;
+        final int step = lookAheadStep;
+        final long index = producerIndex.get();
+        int n = 0;
+        try {
+            while (n < limit) {
+                final long i = index + n;
+                final int offset = calcElementOffset(i, mask);
+                if (i >= producerLookAhead) {
+                    if (null == lvElement(calcElementOffset(i + step, mask))) { // LoadLoad
+                        producerLookAhead = i + step;
+                    } else if (null != lvElement(offset)) {
+                        break;
+                    }
+                }
+                final E e = supplier.call();
+                if (null == e) {
+                    break;
+                }
+                soElement(offset, e); // StoreStore
+                n++;
+            }
+        } finally {
+            if (n != 0) {
+                soProducerIndex(index + n); // ordered store -> atomic and ordered for size()
+            }
+        }
+        return n;
+    }
+
     @Override
     public boolean isEmpty() {
         return producerIndex.get() == consumerIndex.get();
@@ -18,10 +18,12 @@
 
 package custom.reactivex.internal.queue;
 
+import java.util.concurrent.Callable;
 import java.util.concurrent.atomic.*;
 
+import custom.reactivex.functions.Consumer;
 import custom.reactivex.internal.fuseable.SimplePlainQueue;
-import custom.reactivex.internal.util.Pow2;
+import custom.reactivex.internal.util.*;
 
 /**
  * A single-producer single-consumer array-backed queue which can allocate new arrays in case the consumer is slower
@@ -30,7 +32,7 @@ import custom.reactivex.internal.util.Pow2;
  */
 public final class SpscLinkedArrayQueue<T> implements SimplePlainQueue<T> {
     static final int MAX_LOOK_AHEAD_STEP = Integer.getInteger("jctools.spsc.max.lookahead.step", 4096);
-    final AtomicLong producerIndex = new AtomicLong();
+    final AtomicLong producerIndex;
 
     int producerLookAheadStep;
     long producerLookAhead;
@@ -40,11 +42,32 @@ public final class SpscLinkedArrayQueue<T> implements SimplePlainQueue<T> {
     AtomicReferenceArray<Object> producerBuffer;
     final int consumerMask;
     AtomicReferenceArray<Object> consumerBuffer;
-    final AtomicLong consumerIndex = new AtomicLong();
+    final AtomicLong consumerIndex;
 
     private static final Object HAS_NEXT = new Object();
 
     public SpscLinkedArrayQueue(final int bufferSize) {
+        this(bufferSize, false);
+    }
+
+    /**
+     * Constructs a queue with the given island size and optionally with the producer and
+     * consumer indexes padded to their own cache lines.
+     * <p>
+     * Padding avoids false sharing between the producer and consumer threads at the cost of
+     * extra memory; use it for queues which are continuously offered to and polled from
+     * different threads.
+     * @param bufferSize the size of each island, rounded up to the next power of 2
+     * @param padded if true, the indexes are padded
+     */
+    public SpscLinkedArrayQueue(final int bufferSize, boolean padded) {
+        if (padded) {
+            producerIndex = new PaddedAtomicLong();
+            consumerIndex = new PaddedAtomicLong();
+        } else {
+            producerIndex = new AtomicLong();
+            consumerIndex = new AtomicLong();
+        }
         int p2capacity = Pow2.roundToPowerOfTwo(Math.max(8, bufferSize));
         int mask = p2capacity - 1;
         AtomicReferenceArray<Object> buffer = new AtomicReferenceArray<Object>(p2capacity + 1);
@@ -85,6 +108,7 @@ public final class SpscLinkedArrayQueue<T> implements SimplePlainQueue<T> {
                 return writeToQueue(buffer, e, index, offset);
             } else {
                 resize(buffer, index, offset, e, mask); // add a buffer and link old to new
+                soProducerIndex(index + 1);// this ensures correctness on 32bit platforms
                 return true;
             }
         }
@@ -106,7 +130,51 @@ public final class SpscLinkedArrayQueue<T> implements SimplePlainQueue<T> {
         soNext(oldBuffer, newBuffer);
         soElement(oldBuffer, offset, HAS_NEXT); // new buffer is visible after element is
                                                                  // inserted
-        soProducerIndex(currIndex + 1);// this ensures correctness on 32bit platforms
+    }
+
+    /**
+     * Adds up to {@code limit} elements obtained from the given supplier, publishing the
+     * producer index only once for the whole batch.
+     * <p>
+     * The filling stops if the supplier returns null. This implementation is correct for
+     * single producer thread use only.
+     * @param supplier the supplier of the elements
+     * @param limit the maximum number of elements to add
+     * @return the number of elements added
+     * @throws Exception if the supplier threw
+     */
+    public int fill(Callable<? extends T> supplier, int limit) throws Exception {
+        final int mask = producerMask;
+        final int lookAheadStep = producerLookAheadStep;
+        final long index = lpProducerIndex();
+        int n = 0;
+        try {
+            while (n < limit) {
+                final T e = supplier.call();
+                if (null == e) {
+                    break;
+                }
+                final AtomicReferenceArray<Object> buffer = producerBuffer;
+                final long i = index + n;
+                final int offset = calcWrappedOffset(i, mask);
+                if (i >= producerLookAhead) {
+                    if (null == lvElement(buffer, calcWrappedOffset(i + lookAheadStep, mask))) { // LoadLoad
+                        producerLookAhead = i + lookAheadStep - 1;
+                    } else if (null != lvElement(buffer, calcWrappedOffset(i + 1, mask))) {
+                        resize(buffer, i, offset, e, mask);
+                        n++;
+                        continue;
+                    }
+                }
+                soElement(buffer, offset, e);// StoreStore
+                n++;
+            }
+        } finally {
+            if (n != 0) {
+                soProducerIndex(index + n);// this ensures correctness on 32bit platforms
+            }
+        }
+        return n;
     }
 
     private void soNext(AtomicReferenceArray<Object> curr, AtomicReferenceArray<Object> next) {
@@ -154,6 +222,46 @@ public final class SpscLinkedArrayQueue<T> implements SimplePlainQueue<T> {
         return n;
     }
 
+    /**
+     * Removes up to {@code limit} elements from this queue and hands them to the given consumer,
+     * publishing the consumer index only once for the whole batch.
+     * <p>
+     * This implementation is correct for single consumer thread use only.
+     * @param consumer the consumer receiving the elements
+     * @param limit the maximum number of elements to remove
+     * @return the number of elements removed
+     * @throws Exception if the consumer threw
+     */
+    @SuppressWarnings("unchecked")
+    public int drain(Consumer<? super T> consumer, int limit) throws Exception {
+        AtomicReferenceArray<Object> buffer = consumerBuffer;
+        final long index = lpConsumerIndex();
+        final int mask = consumerMask;
+        int n = 0;
+        try {
+            while (n < limit) {
+                final int offset = calcWrappedOffset(index + n, mask);
+                Object e = lvElement(buffer, offset);// LoadLoad
+                if (e == HAS_NEXT) {
+                    buffer = lvNext(buffer);
+                    consumerBuffer = buffer;
+                    e = lvElement(buffer, offset);// LoadLoad
+                }
+                if (null == e) {
+                    break;
+                }
+                soElement(buffer, offset, null);// StoreStore
+                n++;
+                consumer.accept((T)e);
+            }
+        } finally {
+            if (n != 0) {
+                soConsumerIndex(index + n);// this ensures correctness on 32bit platforms
+            }
+        }
+        return n;
+    }
+
     @SuppressWarnings("unchecked")
     public T peek() {
         final AtomicReferenceArray<Object> buffer = consumerBuffer;
@@ -142,7 +142,7 @@ public final class ComputationScheduler extends Scheduler {
     }
 
 
-    static final class EventLoopWorker extends Scheduler.Worker {
+    static final class EventLoopWorker extends Scheduler.Worker implements RecyclingWorker {
         private final ListCompositeDisposable serial;
         private final CompositeDisposable timed;
         private final ListCompositeDisposable both;
@@ -180,6 +180,14 @@ public final class ComputationScheduler extends Scheduler {
 
             return poolWorker.scheduleActual(action, 0, null, serial);
         }
+
+        @Override
+        public void scheduleRecycled(Runnable action) {
+            if (!disposed) {
+                poolWorker.scheduleRecycled(action, serial);
+            }
+        }
+
         @Override
         public Disposable schedule(Runnable action, long delayTime, TimeUnit unit) {
             if (disposed) {
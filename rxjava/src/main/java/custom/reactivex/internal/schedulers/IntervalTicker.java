@@ -0,0 +1,207 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package custom.reactivex.internal.schedulers;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import custom.reactivex.Scheduler;
+import custom.reactivex.disposables.Disposable;
+import custom.reactivex.exceptions.Exceptions;
+import custom.reactivex.internal.disposables.DisposableHelper;
+import custom.reactivex.plugins.RxJavaPlugins;
+
+/**
+ * Runs any number of registered tasks from a single periodic task per Scheduler and period.
+ * <p>
+ * The periodic task is started when the first task registers and is cancelled once the
+ * last one unregisters; registering afterwards starts a new periodic task. The registered
+ * tasks are run one after the other on the thread of the periodic task.
+ */
+public final class IntervalTicker extends AtomicReference<Runnable[]> implements Runnable {
+
+    private static final long serialVersionUID = -5437462397472367371L;
+
+    static final Runnable[] EMPTY = new Runnable[0];
+
+    static final Runnable[] TERMINATED = new Runnable[0];
+
+    static final ConcurrentMap<TickerKey, IntervalTicker> TICKERS = new ConcurrentHashMap<TickerKey, IntervalTicker>();
+
+    final TickerKey key;
+
+    final AtomicReference<Disposable> task;
+
+    IntervalTicker(TickerKey key) {
+        this.key = key;
+        this.task = new AtomicReference<Disposable>();
+        lazySet(EMPTY);
+    }
+
+    /**
+     * Registers a task to be run periodically by the shared periodic task of the given
+     * Scheduler and period.
+     * @param scheduler the scheduler to run the periodic task on
+     * @param period the period, non-negative
+     * @param unit the time unit of the period
+     * @param run the task to run periodically
+     * @return the Disposable that unregisters the task
+     */
+    public static Disposable register(Scheduler scheduler, long period, TimeUnit unit, Runnable run) {
+        TickerKey key = new TickerKey(scheduler, unit.toNanos(period));
+        for (;;) {
+            IntervalTicker ticker = TICKERS.get(key);
+            boolean start = false;
+            if (ticker == null) {
+                ticker = new IntervalTicker(key);
+                IntervalTicker current = TICKERS.putIfAbsent(key, ticker);
+                if (current != null) {
+                    ticker = current;
+                } else {
+                    start = true;
+                }
+            }
+            if (ticker.add(run)) {
+                if (start) {
+                    ticker.start();
+                }
+                return new TickerRegistration(ticker, run);
+            }
+            // the last task has just left this ticker
+            TICKERS.remove(key, ticker);
+        }
+    }
+
+    void start() {
+        long p = key.period;
+        DisposableHelper.setOnce(task, key.scheduler.schedulePeriodicallyDirect(this, p, p, TimeUnit.NANOSECONDS));
+    }
+
+    boolean add(Runnable run) {
+        for (;;) {
+            Runnable[] a = get();
+            if (a == TERMINATED) {
+                return false;
+            }
+            int n = a.length;
+            Runnable[] b = new Runnable[n + 1];
+            System.arraycopy(a, 0, b, 0, n);
+            b[n] = run;
+            if (compareAndSet(a, b)) {
+                return true;
+            }
+        }
+    }
+
+    void remove(Runnable run) {
+        for (;;) {
+            Runnable[] a = get();
+            int n = a.length;
+            if (n == 0) {
+                return;
+            }
+            int j = -1;
+            for (int i = 0; i < n; i++) {
+                if (a[i] == run) {
+                    j = i;
+                    break;
+                }
+            }
+
+            if (j < 0) {
+                return;
+            }
+
+            Runnable[] b;
+            if (n == 1) {
+                b = TERMINATED;
+            } else {
+                b = new Runnable[n - 1];
+                System.arraycopy(a, 0, b, 0, j);
+                System.arraycopy(a, j + 1, b, j, n - j - 1);
+            }
+            if (compareAndSet(a, b)) {
+                if (b == TERMINATED) {
+                    DisposableHelper.dispose(task);
+                    TICKERS.remove(key, this);
+                }
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        for (Runnable r : get()) {
+            try {
+                r.run();
+            } catch (Throwable ex) {
+                Exceptions.throwIfFatal(ex);
+                remove(r);
+                RxJavaPlugins.onError(ex);
+            }
+        }
+    }
+
+    static final class TickerKey {
+        final Scheduler scheduler;
+
+        final long period;
+
+        TickerKey(Scheduler scheduler, long period) {
+            this.scheduler = scheduler;
+            this.period = period;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(scheduler) + (int)(period ^ (period >>> 32));
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj instanceof TickerKey) {
+                TickerKey o = (TickerKey) obj;
+                return scheduler == o.scheduler && period == o.period;
+            }
+            return false;
+        }
+    }
+
+    static final class TickerRegistration extends AtomicBoolean implements Disposable {
+
+        private static final long serialVersionUID = 4377123476133263932L;
+
+        final IntervalTicker ticker;
+
+        final Runnable run;
+
+        TickerRegistration(IntervalTicker ticker, Runnable run) {
+            this.ticker = ticker;
+            this.run = run;
+        }
+
+        @Override
+        public void dispose() {
+            if (compareAndSet(false, true)) {
+                ticker.remove(run);
+            }
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return get();
+        }
+    }
+}
@@ -16,6 +16,7 @@
 
 package custom.reactivex.internal.schedulers;
 
+import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.*;
 
@@ -25,6 +26,11 @@ import custom.reactivex.internal.disposables.EmptyDisposable;
 
 /**
  * Scheduler that creates and caches a set of thread pools and reuses them if possible.
+ * <p>
+ * Released thread pools are reused most recently released first, so the reused thread likely
+ * has a warm cache, and evicted least recently released first once idle for the keep-alive time.
+ * If the number of threads is bounded and all of them are in use, new workers share the thread
+ * with the least workers and their tasks queue up behind the tasks of the other workers.
  */
 public final class IoScheduler extends Scheduler {
     private static final String WORKER_THREAD_NAME_PREFIX = "RxCachedThreadScheduler";
@@ -33,18 +39,35 @@ public final class IoScheduler extends Scheduler {
     private static final String EVICTOR_THREAD_NAME_PREFIX = "RxCachedWorkerPoolEvictor";
     static final RxThreadFactory EVICTOR_THREAD_FACTORY;
 
-    private static final long KEEP_ALIVE_TIME = 60;
+    /** The name of the system property for setting the keep-alive time, in seconds, of the idle threads. */
+    private static final String KEY_KEEP_ALIVE_TIME = "rx2.io-keep-alive";
+    private static final long KEEP_ALIVE_TIME;
     private static final TimeUnit KEEP_ALIVE_UNIT = TimeUnit.SECONDS;
 
+    /** The name of the system property for setting the maximum number of threads of this Scheduler. */
+    private static final String KEY_MAX_THREADS = "rx2.io-max-threads";
+    static final int MAX_THREADS;
+
     static final ThreadWorker SHUTDOWN_THREAD_WORKER;
     final AtomicReference<CachedWorkerPool> pool;
 
+    final long keepAliveTime;
+
+    final TimeUnit keepAliveUnit;
+
+    final int maxThreads;
+
     /** The name of the system property for setting the thread priority for this Scheduler. */
     private static final String KEY_IO_PRIORITY = "rx2.io-priority";
 
     static final CachedWorkerPool NONE;
     static {
-        NONE = new CachedWorkerPool(0, null);
+        KEEP_ALIVE_TIME = Math.max(1L, Long.getLong(KEY_KEEP_ALIVE_TIME, 60L));
+
+        int max = Integer.getInteger(KEY_MAX_THREADS, 0);
+        MAX_THREADS = max > 0 ? max : Integer.MAX_VALUE;
+
+        NONE = new CachedWorkerPool(0, null, Integer.MAX_VALUE);
         NONE.shutdown();
 
         SHUTDOWN_THREAD_WORKER = new ThreadWorker(new RxThreadFactory("RxCachedThreadSchedulerShutdown"));
@@ -60,15 +83,21 @@ public final class IoScheduler extends Scheduler {
 
     static final class CachedWorkerPool implements Runnable {
         private final long keepAliveTime;
-        private final ConcurrentLinkedQueue<ThreadWorker> expiringWorkerQueue;
+        /** The released workers, the most recently released first; guarded by itself. */
+        private final ArrayDeque<ThreadWorker> expiringWorkerQueue;
         final CompositeDisposable allWorkers;
         private final ScheduledExecutorService evictorService;
         private final Future<?> evictorTask;
+        final int maxThreads;
+        /** The workers alive if the number of threads is bounded; guarded by this. */
+        final List<ThreadWorker> liveWorkers;
 
-        CachedWorkerPool(long keepAliveTime, TimeUnit unit) {
+        CachedWorkerPool(long keepAliveTime, TimeUnit unit, int maxThreads) {
             this.keepAliveTime = unit != null ? unit.toNanos(keepAliveTime) : 0L;
-            this.expiringWorkerQueue = new ConcurrentLinkedQueue<ThreadWorker>();
+            this.expiringWorkerQueue = new ArrayDeque<ThreadWorker>();
             this.allWorkers = new CompositeDisposable();
+            this.maxThreads = maxThreads;
+            this.liveWorkers = maxThreads != Integer.MAX_VALUE ? new ArrayList<ThreadWorker>() : null;
 
             ScheduledExecutorService evictor = null;
             Future<?> task = null;
@@ -89,37 +118,98 @@ public final class IoScheduler extends Scheduler {
             if (allWorkers.isDisposed()) {
                 return SHUTDOWN_THREAD_WORKER;
             }
-            while (!expiringWorkerQueue.isEmpty()) {
-                ThreadWorker threadWorker = expiringWorkerQueue.poll();
-                if (threadWorker != null) {
+            ArrayDeque<ThreadWorker> q = expiringWorkerQueue;
+            for (;;) {
+                ThreadWorker threadWorker;
+                synchronized (q) {
+                    threadWorker = q.pollFirst();
+                }
+                if (threadWorker == null) {
+                    break;
+                }
+                if (threadWorker.acquire()) {
                     return threadWorker;
                 }
             }
 
+            if (liveWorkers != null) {
+                return getBounded();
+            }
+
             // No cached worker found, so create a new one.
             ThreadWorker w = new ThreadWorker(WORKER_THREAD_FACTORY);
+            w.acquire();
             allWorkers.add(w);
             return w;
         }
 
+        synchronized ThreadWorker getBounded() {
+            List<ThreadWorker> live = liveWorkers;
+            if (live.size() < maxThreads) {
+                ThreadWorker w = new ThreadWorker(WORKER_THREAD_FACTORY);
+                w.acquire();
+                live.add(w);
+                allWorkers.add(w);
+                return w;
+            }
+            // all threads are alive; share the one with the least users; evicted workers
+            // are removed from the list while holding this, so acquire can't fail
+            ThreadWorker best = live.get(0);
+            int min = best.users.get();
+            for (int i = 1; i < live.size() && min != 0; i++) {
+                ThreadWorker w = live.get(i);
+                int u = w.users.get();
+                if (u < min) {
+                    best = w;
+                    min = u;
+                }
+            }
+            best.acquire();
+            return best;
+        }
+
         void release(ThreadWorker threadWorker) {
-            // Refresh expire time before putting worker back in pool
-            threadWorker.setExpirationTime(now() + keepAliveTime);
+            if (threadWorker.users.decrementAndGet() == 0) {
+                // Refresh expire time before putting worker back in pool
+                threadWorker.setExpirationTime(now() + keepAliveTime);
 
-            expiringWorkerQueue.offer(threadWorker);
+                ArrayDeque<ThreadWorker> q = expiringWorkerQueue;
+                synchronized (q) {
+                    q.offerFirst(threadWorker);
+                }
+            }
         }
 
         void evictExpiredWorkers() {
-            if (!expiringWorkerQueue.isEmpty()) {
+            ArrayDeque<ThreadWorker> q = expiringWorkerQueue;
+            synchronized (q) {
+                if (q.isEmpty()) {
+                    return;
+                }
                 long currentTimestamp = now();
 
-                for (ThreadWorker threadWorker : expiringWorkerQueue) {
+                Iterator<ThreadWorker> it = q.descendingIterator();
+                while (it.hasNext()) {
+                    ThreadWorker threadWorker = it.next();
                     if (threadWorker.getExpirationTime() <= currentTimestamp) {
-                        if (expiringWorkerQueue.remove(threadWorker)) {
+                        boolean evicted;
+                        if (liveWorkers != null) {
+                            synchronized (this) {
+                                evicted = threadWorker.evict();
+                                if (evicted) {
+                                    liveWorkers.remove(threadWorker);
+                                }
+                            }
+                        } else {
+                            evicted = threadWorker.evict();
+                        }
+                        // a worker in use again is offered again when released
+                        it.remove();
+                        if (evicted) {
                             allWorkers.remove(threadWorker);
                         }
                     } else {
-                        // Queue is ordered with the worker that will expire first in the beginning, so when we
+                        // The tail holds the worker released the longest time ago, so when we
                         // find a non-expired worker we can stop evicting.
                         break;
                     }
@@ -143,13 +233,26 @@ public final class IoScheduler extends Scheduler {
     }
 
     public IoScheduler() {
+        this(MAX_THREADS, KEEP_ALIVE_TIME, KEEP_ALIVE_UNIT);
+    }
+
+    /**
+     * Constructs an IoScheduler with the given limits.
+     * @param maxThreads the maximum number of threads, {@code Integer.MAX_VALUE} for unbounded
+     * @param keepAliveTime the time an unused thread is kept alive
+     * @param keepAliveUnit the time unit of {@code keepAliveTime}
+     */
+    public IoScheduler(int maxThreads, long keepAliveTime, TimeUnit keepAliveUnit) {
+        this.maxThreads = maxThreads;
+        this.keepAliveTime = keepAliveTime;
+        this.keepAliveUnit = keepAliveUnit;
         this.pool = new AtomicReference<CachedWorkerPool>(NONE);
         start();
     }
 
     @Override
     public void start() {
-        CachedWorkerPool update = new CachedWorkerPool(KEEP_ALIVE_TIME, KEEP_ALIVE_UNIT);
+        CachedWorkerPool update = new CachedWorkerPool(keepAliveTime, keepAliveUnit, maxThreads);
         if (!pool.compareAndSet(NONE, update)) {
             update.shutdown();
         }
@@ -177,7 +280,7 @@ public final class IoScheduler extends Scheduler {
         return pool.get().allWorkers.size();
     }
 
-    static final class EventLoopWorker extends Scheduler.Worker {
+    static final class EventLoopWorker extends Scheduler.Worker implements RecyclingWorker {
         private final CompositeDisposable tasks;
         private final CachedWorkerPool pool;
         private final ThreadWorker threadWorker;
@@ -220,14 +323,50 @@ public final class IoScheduler extends Scheduler {
 
             return threadWorker.scheduleActual(action, delayTime, unit, tasks);
         }
+
+        @Override
+        public void scheduleRecycled(Runnable action) {
+            if (!tasks.isDisposed()) {
+                threadWorker.scheduleRecycled(action, tasks);
+            }
+        }
     }
 
     static final class ThreadWorker extends NewThreadWorker {
         private long expirationTime;
 
+        /** The number of EventLoopWorkers using this worker, negative once evicted. */
+        final AtomicInteger users;
+
         ThreadWorker(ThreadFactory threadFactory) {
             super(threadFactory);
             this.expirationTime = 0L;
+            this.users = new AtomicInteger();
+        }
+
+        /**
+         * Adds a user unless this worker was evicted.
+         * @return true if successful
+         */
+        boolean acquire() {
+            AtomicInteger u = users;
+            for (;;) {
+                int n = u.get();
+                if (n < 0) {
+                    return false;
+                }
+                if (u.compareAndSet(n, n + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Marks this worker as evicted if it has no users.
+         * @return true if successful
+         */
+        boolean evict() {
+            return users.compareAndSet(0, -1);
         }
 
         public long getExpirationTime() {
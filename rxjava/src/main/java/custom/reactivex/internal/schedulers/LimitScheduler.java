@@ -0,0 +1,371 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package custom.reactivex.internal.schedulers;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.*;
+
+import custom.reactivex.Scheduler;
+import custom.reactivex.disposables.Disposable;
+import custom.reactivex.internal.disposables.EmptyDisposable;
+import custom.reactivex.internal.queue.MpscLinkedQueue;
+import custom.reactivex.plugins.RxJavaPlugins;
+
+/**
+ * Scheduler that limits the number of concurrently running tasks and the rate
+ * at which tasks are started on an underlying Scheduler.
+ * <p>
+ * Tasks of all workers are queued in a shared pending queue which is drained by whichever
+ * thread wins the work-in-progress counter. A task is dispatched to its worker's underlying
+ * {@link Scheduler.Worker} when both a concurrency permit and a rate token (token bucket of
+ * {@code maxPerSecond} capacity, refilled continuously) are available. Unlike
+ * {@link SchedulerWhen}, no {@code Completable}s or processors are involved per task.
+ */
+public final class LimitScheduler extends Scheduler {
+
+    static final long ONE_SECOND_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    final Scheduler actual;
+
+    final int maxConcurrency;
+
+    final int maxPerSecond;
+
+    /** The time it takes to generate one rate token. */
+    final long tokenInterval;
+
+    final MpscLinkedQueue<LimitTask> queue;
+
+    final AtomicInteger wip;
+
+    /** The number of dispatched but not yet finished tasks. */
+    final AtomicInteger active;
+
+    final Runnable drainTask;
+
+    /** Available rate tokens, accessed only by the draining thread. */
+    long tokens;
+
+    /** The last time tokens were refilled, accessed only by the draining thread. */
+    long lastRefill;
+
+    /** The task waiting for a permit or token, accessed only by the draining thread. */
+    LimitTask head;
+
+    /** The pending refill timer, accessed only by the draining thread. */
+    Disposable refillTimer;
+
+    volatile boolean timerPending;
+
+    public LimitScheduler(Scheduler actual, int maxConcurrency, int maxPerSecond) {
+        this.actual = actual;
+        this.maxConcurrency = maxConcurrency;
+        this.maxPerSecond = maxPerSecond;
+        this.queue = new MpscLinkedQueue<LimitTask>();
+        this.wip = new AtomicInteger();
+        this.active = new AtomicInteger();
+        this.tokenInterval = Math.max(1L, ONE_SECOND_NANOS / maxPerSecond);
+        this.tokens = maxPerSecond;
+        this.lastRefill = System.nanoTime();
+        this.drainTask = new Runnable() {
+            @Override
+            public void run() {
+                timerPending = false;
+                drain();
+            }
+        };
+    }
+
+    @Override
+    public Worker createWorker() {
+        return new LimitWorker(this, actual.createWorker());
+    }
+
+    @Override
+    public long now(TimeUnit unit) {
+        return actual.now(unit);
+    }
+
+    void enqueue(LimitTask task) {
+        queue.offer(task);
+        drain();
+    }
+
+    void release() {
+        active.decrementAndGet();
+        drain();
+    }
+
+    /**
+     * Refills the token bucket based on the elapsed time and returns true if
+     * a token could be taken.
+     * @return true if a token was taken
+     */
+    boolean tryTakeToken() {
+        long t = tokens;
+        long now = System.nanoTime();
+        long interval = tokenInterval;
+        long refill = (now - lastRefill) / interval;
+        if (refill != 0L) {
+            int max = maxPerSecond;
+            t += refill;
+            if (t >= max) {
+                t = max;
+                lastRefill = now;
+            } else {
+                lastRefill += refill * interval;
+            }
+        }
+        if (t == 0L) {
+            tokens = 0L;
+            return false;
+        }
+        tokens = t - 1;
+        return true;
+    }
+
+    void scheduleRefill() {
+        if (!timerPending) {
+            timerPending = true;
+            long wait = tokenInterval - (System.nanoTime() - lastRefill);
+            refillTimer = actual.scheduleDirect(drainTask, wait, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Cancels the pending refill timer as no task is waiting for a token anymore.
+     */
+    void cancelRefill() {
+        if (timerPending) {
+            timerPending = false;
+            Disposable d = refillTimer;
+            refillTimer = null;
+            if (d != null) {
+                d.dispose();
+            }
+        }
+    }
+
+    void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+
+        int missed = 1;
+        final MpscLinkedQueue<LimitTask> q = queue;
+        final int limit = maxConcurrency;
+
+        for (;;) {
+
+            for (;;) {
+                LimitTask task = head;
+                if (task == null) {
+                    task = q.poll();
+                    if (task == null) {
+                        cancelRefill();
+                        break;
+                    }
+                    head = task;
+                }
+
+                if (task.get() != LimitTask.PENDING || task.parent.disposed) {
+                    head = null;
+                    continue;
+                }
+
+                if (active.get() >= limit) {
+                    break;
+                }
+
+                if (!tryTakeToken()) {
+                    scheduleRefill();
+                    break;
+                }
+
+                head = null;
+
+                active.getAndIncrement();
+                if (!task.compareAndSet(LimitTask.PENDING, LimitTask.DISPATCHED)) {
+                    active.decrementAndGet();
+                    continue;
+                }
+
+                task.parent.dispatch(task);
+            }
+
+            missed = wip.addAndGet(-missed);
+            if (missed == 0) {
+                break;
+            }
+        }
+    }
+
+    static final class LimitWorker extends Scheduler.Worker {
+
+        final LimitScheduler scheduler;
+
+        final Scheduler.Worker actual;
+
+        /**
+         * Counts the dispatched tasks plus one for the worker itself; the underlying
+         * worker is disposed once this reaches zero so dispatched tasks always get to run
+         * and release their permit.
+         */
+        final AtomicInteger inFlight;
+
+        volatile boolean disposed;
+
+        LimitWorker(LimitScheduler scheduler, Scheduler.Worker actual) {
+            this.scheduler = scheduler;
+            this.actual = actual;
+            this.inFlight = new AtomicInteger(1);
+        }
+
+        @Override
+        public Disposable schedule(Runnable run) {
+            if (disposed) {
+                return EmptyDisposable.INSTANCE;
+            }
+
+            LimitTask task = new LimitTask(RxJavaPlugins.onSchedule(run), this);
+            scheduler.enqueue(task);
+            return task;
+        }
+
+        @Override
+        public Disposable schedule(Runnable run, long delay, TimeUnit unit) {
+            if (delay <= 0L) {
+                return schedule(run);
+            }
+            if (disposed) {
+                return EmptyDisposable.INSTANCE;
+            }
+
+            final LimitTask task = new LimitTask(RxJavaPlugins.onSchedule(run), this);
+            task.timer = scheduler.actual.scheduleDirect(new Runnable() {
+                @Override
+                public void run() {
+                    scheduler.enqueue(task);
+                }
+            }, delay, unit);
+            return task;
+        }
+
+        void dispatch(LimitTask task) {
+            AtomicInteger c = inFlight;
+            for (;;) {
+                int n = c.get();
+                if (n == 0) {
+                    // a concurrent dispose() may have released the permit already
+                    if (task.compareAndSet(LimitTask.DISPATCHED, LimitTask.DISPOSED)) {
+                        scheduler.active.decrementAndGet();
+                    }
+                    return;
+                }
+                if (c.compareAndSet(n, n + 1)) {
+                    break;
+                }
+            }
+            actual.schedule(task);
+        }
+
+        void finish() {
+            if (inFlight.decrementAndGet() == 0) {
+                actual.dispose();
+            }
+        }
+
+        @Override
+        public void dispose() {
+            if (!disposed) {
+                disposed = true;
+                finish();
+                // drop the tasks of this worker and the refill timer if only they were waiting for it
+                scheduler.drain();
+            }
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return disposed;
+        }
+    }
+
+    static final class LimitTask extends AtomicInteger implements Runnable, Disposable {
+
+        private static final long serialVersionUID = -2845364361837014562L;
+
+        static final int PENDING = 0;
+        static final int DISPATCHED = 1;
+        static final int RUNNING = 2;
+        static final int FINISHED = 3;
+        static final int DISPOSED = 4;
+
+        final Runnable run;
+
+        final LimitWorker parent;
+
+        volatile Disposable timer;
+
+        LimitTask(Runnable run, LimitWorker parent) {
+            this.run = run;
+            this.parent = parent;
+        }
+
+        @Override
+        public void run() {
+            if (compareAndSet(DISPATCHED, RUNNING)) {
+                try {
+                    if (!parent.disposed) {
+                        run.run();
+                    }
+                } finally {
+                    lazySet(FINISHED);
+                    parent.finish();
+                    parent.scheduler.release();
+                }
+            } else {
+                parent.finish();
+            }
+        }
+
+        @Override
+        public void dispose() {
+            for (;;) {
+                int s = get();
+                if (s == PENDING) {
+                    if (compareAndSet(PENDING, DISPOSED)) {
+                        Disposable d = timer;
+                        if (d != null) {
+                            d.dispose();
+                        }
+                        return;
+                    }
+                } else if (s == DISPATCHED) {
+                    if (compareAndSet(DISPATCHED, DISPOSED)) {
+                        parent.scheduler.release();
+                        return;
+                    }
+                } else {
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return get() >= FINISHED;
+        }
+    }
+}
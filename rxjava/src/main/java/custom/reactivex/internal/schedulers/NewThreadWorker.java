@@ -25,13 +25,17 @@ import custom.reactivex.plugins.RxJavaPlugins;
  * worker but doesn't perform task-tracking operations.
  *
  */
-public class NewThreadWorker extends Scheduler.Worker implements Disposable {
+public class NewThreadWorker extends Scheduler.Worker implements Disposable, RecyclingWorker {
     private final ScheduledExecutorService executor;
 
+    /** The completed task wrappers ready for reuse, null if recycling is disabled. */
+    private final TaskPool pool;
+
     volatile boolean disposed;
 
     public NewThreadWorker(ThreadFactory threadFactory) {
         executor = SchedulerPoolFactory.create(threadFactory);
+        pool = TaskPool.ENABLED ? new TaskPool() : null;
     }
 
     @Override
@@ -130,6 +134,51 @@ public class NewThreadWorker extends Scheduler.Worker implements Disposable {
         return sr;
     }
 
+    @Override
+    public void scheduleRecycled(Runnable run) {
+        if (!disposed) {
+            scheduleRecycled(run, null);
+        }
+    }
+
+    /**
+     * Schedules the given runnable for immediate execution on the underlying
+     * ScheduledExecutorService, wrapped into a ScheduledRunnable reused from an
+     * earlier completed task if recycling is enabled.
+     * @param run the runnable instance
+     * @param parent the optional tracker parent to add the ScheduledRunnable instance to before it gets scheduled
+     */
+    public void scheduleRecycled(final Runnable run, DisposableContainer parent) {
+        TaskPool p = pool;
+        if (p == null) {
+            scheduleActual(run, 0L, null, parent);
+            return;
+        }
+        Runnable decoratedRun = RxJavaPlugins.onSchedule(run);
+
+        ScheduledRunnable sr = p.acquire();
+        if (sr == null) {
+            sr = new ScheduledRunnable(decoratedRun, parent, p);
+        } else {
+            sr.reset(decoratedRun, parent);
+        }
+
+        if (parent != null) {
+            if (!parent.add(sr)) {
+                return;
+            }
+        }
+
+        try {
+            sr.setFuture(executor.submit((Callable<Object>)sr));
+        } catch (RejectedExecutionException ex) {
+            if (parent != null) {
+                parent.remove(sr);
+            }
+            RxJavaPlugins.onError(ex);
+        }
+    }
+
     @Override
     public void dispose() {
         if (!disposed) {
@@ -0,0 +1,26 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package custom.reactivex.internal.schedulers;
+
+/**
+ * A Worker that can run fire-and-forget tasks, letting it reuse the wrappers of completed tasks.
+ */
+public interface RecyclingWorker {
+    /**
+     * Schedules the task for immediate execution without handing out a Disposable for it;
+     * disposing the Worker still cancels the task.
+     * @param run the task to run
+     */
+    void scheduleRecycled(Runnable run);
+}
@@ -24,7 +24,10 @@ public final class ScheduledRunnable extends AtomicReferenceArray<Object>
 implements Runnable, Callable<Object>, Disposable {
 
     private static final long serialVersionUID = -6120223772001106981L;
-    final Runnable actual;
+    Runnable actual;
+
+    /** The pool to return this wrapper to once it completed, null if not recycled. */
+    final TaskPool pool;
 
     static final Object DISPOSED = new Object();
 
@@ -40,11 +43,27 @@ implements Runnable, Callable<Object>, Disposable {
      * @param parent the parent tracking container or null if none
      */
     public ScheduledRunnable(Runnable actual, DisposableContainer parent) {
+        this(actual, parent, null);
+    }
+
+    ScheduledRunnable(Runnable actual, DisposableContainer parent, TaskPool pool) {
         super(2);
         this.actual = actual;
+        this.pool = pool;
         this.lazySet(0, parent);
     }
 
+    /**
+     * Prepares a recycled wrapper for running the given action.
+     * @param actual the runnable to wrap, not-null (not verified)
+     * @param parent the parent tracking container or null if none
+     */
+    void reset(Runnable actual, DisposableContainer parent) {
+        this.actual = actual;
+        lazySet(FUTURE_INDEX, null);
+        lazySet(PARENT_INDEX, parent);
+    }
+
     @Override
     public Object call() {
         // Being Callable saves an allocation in ThreadPoolExecutor
@@ -63,8 +82,9 @@ implements Runnable, Callable<Object>, Disposable {
             }
         } finally {
             Object o = get(PARENT_INDEX);
+            boolean released = o == null;
             if (o != DISPOSED && o != null && compareAndSet(PARENT_INDEX, o, DONE)) {
-                ((DisposableContainer)o).delete(this);
+                released = ((DisposableContainer)o).delete(this);
             }
 
             for (;;) {
@@ -73,6 +93,13 @@ implements Runnable, Callable<Object>, Disposable {
                     break;
                 }
             }
+
+            // reuse only if neither the parent nor the scheduling thread (setFuture) can touch it anymore
+            TaskPool p = pool;
+            if (p != null && released && o != null && o != DISPOSED) {
+                actual = null;
+                p.release(this);
+            }
         }
     }
 
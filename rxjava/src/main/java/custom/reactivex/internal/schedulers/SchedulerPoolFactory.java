@@ -18,12 +18,17 @@ package custom.reactivex.internal.schedulers;
 
 import java.util.*;
 import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.*;
 
 import custom.reactivex.plugins.RxJavaPlugins;
 
 /**
  * Manages the creating of ScheduledExecutorServices and sets up purging.
+ * <p>
+ * If the {@code rx2.remove-on-cancel} system property is set to true, the ScheduledExecutorServices
+ * remove cancelled tasks from their queue right away (in O(log n) time) and are not purged periodically.
+ * The property is ignored if {@code ScheduledThreadPoolExecutor.setRemoveOnCancelPolicy} is not available
+ * (Android below API 21).
  */
 public final class SchedulerPoolFactory {
     /** Utility class. */
@@ -45,6 +50,22 @@ public final class SchedulerPoolFactory {
      */
     public static final int PURGE_PERIOD_SECONDS;
 
+    static final String REMOVE_ON_CANCEL_KEY = "rx2.remove-on-cancel";
+
+    /**
+     * Indicates the ScheduledExecutorServices created by create() remove cancelled tasks immediately.
+     */
+    public static final boolean REMOVE_ON_CANCEL;
+
+    /** The number of purge passes over the pools. */
+    static final AtomicLong PURGE_RUNS = new AtomicLong();
+
+    /** The total number of cancelled tasks removed by purging. */
+    static final AtomicLong PURGED_TASKS = new AtomicLong();
+
+    /** The total time spent purging, in nanoseconds. */
+    static final AtomicLong PURGE_NANOS = new AtomicLong();
+
     static final AtomicReference<ScheduledExecutorService> PURGE_THREAD =
             new AtomicReference<ScheduledExecutorService>();
 
@@ -54,9 +75,12 @@ public final class SchedulerPoolFactory {
             new ConcurrentHashMap<ScheduledThreadPoolExecutor, Object>();
 
     /**
-     * Starts the purge thread if not already started.
+     * Starts the purge thread if not already started and purging is enabled.
      */
     public static void start() {
+        if (!PURGE_ENABLED) {
+            return;
+        }
         for (;;) {
             ScheduledExecutorService curr = PURGE_THREAD.get();
             if (curr != null && !curr.isShutdown()) {
@@ -69,13 +93,7 @@ public final class SchedulerPoolFactory {
                     @Override
                     public void run() {
                         try {
-                            for (ScheduledThreadPoolExecutor e : new ArrayList<ScheduledThreadPoolExecutor>(POOLS.keySet())) {
-                                if (e.isShutdown()) {
-                                    POOLS.remove(e);
-                                } else {
-                                    e.purge();
-                                }
-                            }
+                            purge();
                         } catch (Throwable e) {
                             // Exceptions.throwIfFatal(e); nowhere to go
                             RxJavaPlugins.onError(e);
@@ -90,11 +108,63 @@ public final class SchedulerPoolFactory {
         }
     }
 
+    /**
+     * Purges the cancelled tasks from the queues of the live pools in one pass, skipping
+     * the pools with an empty queue, and updates the purge statistics.
+     */
+    static void purge() {
+        long start = System.nanoTime();
+        long purged = 0L;
+        for (ScheduledThreadPoolExecutor e : POOLS.keySet()) {
+            if (e.isShutdown()) {
+                POOLS.remove(e);
+            } else {
+                BlockingQueue<Runnable> q = e.getQueue();
+                int before = q.size();
+                if (before != 0) {
+                    e.purge();
+                    purged += Math.max(0, before - q.size());
+                }
+            }
+        }
+        PURGED_TASKS.addAndGet(purged);
+        PURGE_NANOS.addAndGet(System.nanoTime() - start);
+        PURGE_RUNS.getAndIncrement();
+    }
+
+    /**
+     * Returns the number of periodic purge passes run so far.
+     * @return the number of purge passes
+     */
+    public static long purgeRuns() {
+        return PURGE_RUNS.get();
+    }
+
+    /**
+     * Returns the number of cancelled tasks removed by the periodic purge so far; a
+     * steadily growing value indicates cancelled tasks accumulating in the queues.
+     * @return the number of purged tasks
+     */
+    public static long purgedTasks() {
+        return PURGED_TASKS.get();
+    }
+
+    /**
+     * Returns the total time spent in the periodic purge so far.
+     * @return the purge time in nanoseconds
+     */
+    public static long purgeTimeNanos() {
+        return PURGE_NANOS.get();
+    }
+
     /**
      * Stops the purge thread.
      */
     public static void shutdown() {
-        PURGE_THREAD.get().shutdownNow();
+        ScheduledExecutorService exec = PURGE_THREAD.get();
+        if (exec != null) {
+            exec.shutdownNow();
+        }
         POOLS.clear();
     }
 
@@ -112,12 +182,22 @@ public final class SchedulerPoolFactory {
             }
         }
 
-        PURGE_ENABLED = purgeEnable;
+        REMOVE_ON_CANCEL = Boolean.getBoolean(REMOVE_ON_CANCEL_KEY) && isRemoveOnCancelSupported();
+        PURGE_ENABLED = purgeEnable && !REMOVE_ON_CANCEL;
         PURGE_PERIOD_SECONDS = purgePeriod;
 
         start();
     }
 
+    static boolean isRemoveOnCancelSupported() {
+        try {
+            ScheduledThreadPoolExecutor.class.getMethod("setRemoveOnCancelPolicy", boolean.class);
+            return true;
+        } catch (NoSuchMethodException ex) {
+            return false;
+        }
+    }
+
     /**
      * Creates a ScheduledExecutorService with the given factory.
      * @param factory the thread factory
@@ -127,7 +207,11 @@ public final class SchedulerPoolFactory {
         final ScheduledExecutorService exec = Executors.newScheduledThreadPool(1, factory);
         if (exec instanceof ScheduledThreadPoolExecutor) {
             ScheduledThreadPoolExecutor e = (ScheduledThreadPoolExecutor) exec;
-            POOLS.put(e, exec);
+            if (REMOVE_ON_CANCEL) {
+                e.setRemoveOnCancelPolicy(true);
+            } else if (PURGE_ENABLED) {
+                POOLS.put(e, exec);
+            }
         }
         return exec;
     }
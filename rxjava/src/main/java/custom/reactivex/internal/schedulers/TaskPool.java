@@ -0,0 +1,63 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package custom.reactivex.internal.schedulers;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Holds a few completed ScheduledRunnables of a worker for reuse.
+ * <p>
+ * Recycling is enabled by setting the {@code rx2.recycle-tasks} system property to true.
+ */
+final class TaskPool extends AtomicReferenceArray<ScheduledRunnable> {
+
+    private static final long serialVersionUID = 2461839154802305482L;
+
+    static final String KEY_RECYCLE_TASKS = "rx2.recycle-tasks";
+
+    /** Indicates the task wrappers of the fire-and-forget schedules are reused. */
+    static final boolean ENABLED = Boolean.getBoolean(KEY_RECYCLE_TASKS);
+
+    static final int SIZE = 16;
+
+    TaskPool() {
+        super(SIZE);
+    }
+
+    /**
+     * Takes a wrapper out of the pool.
+     * @return the wrapper or null if the pool is empty
+     */
+    ScheduledRunnable acquire() {
+        for (int i = 0; i < SIZE; i++) {
+            ScheduledRunnable sr = get(i);
+            if (sr != null && compareAndSet(i, sr, null)) {
+                return sr;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Puts a completed wrapper into the pool or drops it if the pool is full.
+     * @param sr the wrapper nobody else references anymore
+     */
+    void release(ScheduledRunnable sr) {
+        for (int i = 0; i < SIZE; i++) {
+            if (get(i) == null && compareAndSet(i, null, sr)) {
+                return;
+            }
+        }
+    }
+}
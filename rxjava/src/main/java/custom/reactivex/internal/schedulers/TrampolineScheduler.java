@@ -16,13 +16,15 @@
 
 package custom.reactivex.internal.schedulers;
 
-import java.util.concurrent.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import custom.reactivex.Scheduler;
-import custom.reactivex.disposables.*;
+import custom.reactivex.disposables.Disposable;
 import custom.reactivex.internal.disposables.EmptyDisposable;
 import custom.reactivex.internal.functions.ObjectHelper;
+import custom.reactivex.internal.queue.MpscLinkedQueue;
 import custom.reactivex.plugins.RxJavaPlugins;
 
 /**
@@ -62,62 +64,136 @@ public final class TrampolineScheduler extends Scheduler {
         return EmptyDisposable.INSTANCE;
     }
 
+    /**
+     * Runs the tasks on the thread that scheduled the outermost task.
+     * <p>
+     * Tasks scheduled by the running tasks are kept in an unsynchronized deque, or a heap if delayed,
+     * as only the draining thread accesses them. Tasks scheduled from other threads while a drain is
+     * in progress are handed over through a lock-free queue.
+     */
     static final class TrampolineWorker extends Scheduler.Worker implements Disposable {
-        final PriorityBlockingQueue<TimedRunnable> queue = new PriorityBlockingQueue<TimedRunnable>();
+        /** The non-delayed tasks, accessed only by the draining thread. */
+        final ArrayDeque<TimedRunnable> immediate = new ArrayDeque<TimedRunnable>();
+
+        /** The tasks scheduled from other threads during a drain. */
+        final MpscLinkedQueue<TimedRunnable> remote = new MpscLinkedQueue<TimedRunnable>();
 
         private final AtomicInteger wip = new AtomicInteger();
 
-        final AtomicInteger counter = new AtomicInteger();
+        /** The delayed tasks, created on demand and accessed only by the draining thread. */
+        PriorityQueue<TimedRunnable> delayed;
+
+        /** The number of delayed tasks added, to order tasks with the same time; accessed only by the draining thread. */
+        int counter;
+
+        /**
+         * The draining thread; it is only ever set to the thread that reads it for
+         * comparison, so a plain field suffices.
+         */
+        Thread drainer;
 
         volatile boolean disposed;
 
         @Override
         public Disposable schedule(Runnable action) {
-            return enqueue(action, now(TimeUnit.MILLISECONDS));
+            if (disposed) {
+                return EmptyDisposable.INSTANCE;
+            }
+            Thread current = Thread.currentThread();
+            if (drainer == current) {
+                TimedRunnable task = new TimedRunnable(action, 0L, false);
+                immediate.offer(task);
+                return task;
+            }
+            if (wip.get() == 0 && wip.compareAndSet(0, 1)) {
+                drainer = current;
+                action.run();
+                drainLoop(current, 1);
+                return EmptyDisposable.INSTANCE;
+            }
+            TimedRunnable task = new TimedRunnable(action, 0L, false);
+            remote.offer(task);
+            if (wip.getAndIncrement() == 0) {
+                drainLoop(current, 1);
+            }
+            return task;
         }
 
         @Override
         public Disposable schedule(Runnable action, long delayTime, TimeUnit unit) {
+            if (disposed) {
+                return EmptyDisposable.INSTANCE;
+            }
             long execTime = now(TimeUnit.MILLISECONDS) + unit.toMillis(delayTime);
 
-            return enqueue(new SleepingRunnable(action, this, execTime), execTime);
+            TimedRunnable task = new TimedRunnable(new SleepingRunnable(action, this, execTime), execTime, true);
+
+            Thread current = Thread.currentThread();
+            if (drainer == current) {
+                addDelayed(task);
+                return task;
+            }
+            remote.offer(task);
+            if (wip.getAndIncrement() == 0) {
+                drainLoop(current, 1);
+            }
+            return task;
         }
 
-        Disposable enqueue(Runnable action, long execTime) {
-            if (disposed) {
-                return EmptyDisposable.INSTANCE;
+        void addDelayed(TimedRunnable task) {
+            PriorityQueue<TimedRunnable> q = delayed;
+            if (q == null) {
+                q = new PriorityQueue<TimedRunnable>();
+                delayed = q;
             }
-            final TimedRunnable timedRunnable = new TimedRunnable(action, execTime, counter.incrementAndGet());
-            queue.add(timedRunnable);
+            task.count = ++counter;
+            q.offer(task);
+        }
 
-            if (wip.getAndIncrement() == 0) {
-                int missed = 1;
+        /**
+         * Returns the next task to run: a delayed task that is due, otherwise the oldest
+         * non-delayed task, otherwise the earliest delayed task.
+         * @return the next task or null if there are none
+         */
+        TimedRunnable next() {
+            PriorityQueue<TimedRunnable> q = delayed;
+            if (q == null || q.isEmpty()) {
+                return immediate.poll();
+            }
+            if (immediate.isEmpty() || q.peek().execTime <= now(TimeUnit.MILLISECONDS)) {
+                return q.poll();
+            }
+            return immediate.poll();
+        }
+
+        void drainLoop(Thread current, int missed) {
+            ArrayDeque<TimedRunnable> imm = immediate;
+            MpscLinkedQueue<TimedRunnable> rem = remote;
+            for (;;) {
+                drainer = current;
                 for (;;) {
-                    for (;;) {
-                        final TimedRunnable polled = queue.poll();
-                        if (polled == null) {
-                            break;
-                        }
-                        if (!polled.disposed) {
-                            polled.run.run();
+                    TimedRunnable t;
+                    while ((t = rem.poll()) != null) {
+                        if (t.delayed) {
+                            addDelayed(t);
+                        } else {
+                            imm.offer(t);
                         }
                     }
-                    missed = wip.addAndGet(-missed);
-                    if (missed == 0) {
+
+                    t = next();
+                    if (t == null) {
                         break;
                     }
-                }
-
-                return EmptyDisposable.INSTANCE;
-            } else {
-                // queue wasn't empty, a parent is already processing so we just add to the end of the queue
-                return Disposables.fromRunnable(new Runnable() {
-                    @Override
-                    public void run() {
-                        timedRunnable.disposed = true;
-                        queue.remove(timedRunnable);
+                    if (!t.disposed) {
+                        t.run.run();
                     }
-                });
+                }
+                drainer = null;
+                missed = wip.addAndGet(-missed);
+                if (missed == 0) {
+                    break;
+                }
             }
         }
 
@@ -132,17 +208,18 @@ public final class TrampolineScheduler extends Scheduler {
         }
     }
 
-    static final class TimedRunnable implements Comparable<TimedRunnable> {
+    static final class TimedRunnable implements Comparable<TimedRunnable>, Disposable {
         final Runnable run;
         final long execTime;
-        final int count; // In case if time between enqueueing took less than 1ms
+        final boolean delayed;
+        int count; // In case if time between enqueueing took less than 1ms
 
         volatile boolean disposed;
 
-        TimedRunnable(Runnable run, Long execTime, int count) {
+        TimedRunnable(Runnable run, long execTime, boolean delayed) {
             this.run = run;
             this.execTime = execTime;
-            this.count = count;
+            this.delayed = delayed;
         }
 
         @Override
@@ -153,6 +230,16 @@ public final class TrampolineScheduler extends Scheduler {
             }
             return result;
         }
+
+        @Override
+        public void dispose() {
+            disposed = true;
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return disposed;
+        }
     }
 
     static final class SleepingRunnable implements Runnable {
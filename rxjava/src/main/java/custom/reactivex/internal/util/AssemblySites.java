@@ -0,0 +1,151 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package custom.reactivex.internal.util;
+
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.*;
+
+import custom.reactivex.exceptions.AssemblyTraceException;
+
+/**
+ * Resolves captured assembly stacks into call-site markers and attaches them to errors.
+ * <p>
+ * The markers are interned in a bounded table keyed by the relevant frames so each call
+ * site is formatted only once no matter how many times it is sampled.
+ */
+public final class AssemblySites {
+
+    /** Utility class. */
+    private AssemblySites() {
+        throw new IllegalStateException("No instances!");
+    }
+
+    /** The maximum number of frames outside the library kept per call site. */
+    static final int MAX_FRAMES = 8;
+
+    /** The maximum number of call sites interned. */
+    static final int MAX_SITES = 1024;
+
+    static final ConcurrentMap<String, AssemblyTraceException> SITES = new ConcurrentHashMap<String, AssemblyTraceException>();
+
+    /** The markers attached to the errors still reachable, guarded by itself. */
+    static final Map<Throwable, List<AssemblyTraceException>> ATTACHED = new WeakHashMap<Throwable, List<AssemblyTraceException>>();
+
+    /** {@code Throwable.addSuppressed} or null if not available (Android below API 19). */
+    static final Method ADD_SUPPRESSED = addSuppressedMethod();
+
+    static Method addSuppressedMethod() {
+        try {
+            return Throwable.class.getMethod("addSuppressed", Throwable.class);
+        } catch (NoSuchMethodException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the marker for the call site captured by the given Throwable,
+     * materializing its stack trace.
+     * @param capture the Throwable created during the assembly
+     * @return the marker of the call site
+     */
+    public static AssemblyTraceException site(Throwable capture) {
+        StringBuilder b = new StringBuilder(256);
+        b.append("Assembled at:");
+        int n = 0;
+        for (StackTraceElement e : capture.getStackTrace()) {
+            if (e.getClassName().startsWith("custom.reactivex.")) {
+                continue;
+            }
+            b.append("\n\tat ").append(e);
+            if (++n == MAX_FRAMES) {
+                break;
+            }
+        }
+        String key = b.toString();
+        AssemblyTraceException site = SITES.get(key);
+        if (site == null) {
+            site = new AssemblyTraceException(key);
+            if (SITES.size() < MAX_SITES) {
+                AssemblyTraceException current = SITES.putIfAbsent(key, site);
+                if (current != null) {
+                    site = current;
+                }
+            }
+        }
+        return site;
+    }
+
+    /**
+     * Records the marker for the error and adds it as a suppressed exception where
+     * the platform supports it, unless already attached; the error itself is not replaced.
+     * @param error the error passing through the tracked operator
+     * @param site the marker of the operator's call site
+     */
+    public static void attach(Throwable error, AssemblyTraceException site) {
+        Map<Throwable, List<AssemblyTraceException>> m = ATTACHED;
+        synchronized (m) {
+            List<AssemblyTraceException> list = m.get(error);
+            if (list == null) {
+                list = new ArrayList<AssemblyTraceException>(2);
+                m.put(error, list);
+            } else if (list.contains(site)) {
+                return;
+            }
+            list.add(site);
+        }
+        Method add = ADD_SUPPRESSED;
+        if (add != null) {
+            try {
+                add.invoke(error, site);
+            } catch (Exception ex) {
+                // ignored, the marker is still available via sitesOf
+            }
+        }
+    }
+
+    /**
+     * Returns the markers attached to the error so far.
+     * @param error the error
+     * @return the new list of markers, empty if none
+     */
+    public static List<AssemblyTraceException> sitesOf(Throwable error) {
+        Map<Throwable, List<AssemblyTraceException>> m = ATTACHED;
+        synchronized (m) {
+            List<AssemblyTraceException> list = m.get(error);
+            if (list == null) {
+                return Collections.emptyList();
+            }
+            return new ArrayList<AssemblyTraceException>(list);
+        }
+    }
+
+    /**
+     * Returns the number of interned call sites.
+     * @return the number of interned call sites
+     */
+    public static int size() {
+        return SITES.size();
+    }
+
+    /**
+     * Forgets the interned call sites.
+     */
+    public static void clear() {
+        SITES.clear();
+        synchronized (ATTACHED) {
+            ATTACHED.clear();
+        }
+    }
+}
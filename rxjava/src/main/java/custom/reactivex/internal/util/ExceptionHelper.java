@@ -28,6 +28,20 @@ public final class ExceptionHelper {
         throw new IllegalStateException("No instances!");
     }
 
+    static final String STACKLESS_KEY = "rx2.stackless-exceptions";
+
+    /**
+     * Indicates the flow-control exceptions of the library ({@code MissingBackpressureException}
+     * and {@code CompositeException}) don't capture the stack trace of their creation.
+     * <p>
+     * Set the {@code rx2.stackless-exceptions} system property to false to capture them; default is true.
+     */
+    public static final boolean STACKLESS;
+
+    static {
+        STACKLESS = !"false".equalsIgnoreCase(System.getProperty(STACKLESS_KEY));
+    }
+
     /**
      * If the provided Throwable is an Error this method
      * throws it, otherwise returns a RuntimeException wrapping the error
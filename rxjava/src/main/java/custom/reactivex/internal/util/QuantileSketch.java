@@ -0,0 +1,301 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package custom.reactivex.internal.util;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import custom.reactivex.functions.*;
+
+/**
+ * A mergeable sketch answering quantile queries over double values with a bounded
+ * relative error, using logarithmically sized buckets.
+ * <p>
+ * A value {@code v} with {@code |v| > MIN_MAGNITUDE} is counted in the bucket
+ * {@code ceil(log(|v|) / log(gamma))} of the positive or negative store where
+ * {@code gamma = (1 + accuracy) / (1 - accuracy)}, so the quantiles returned are within
+ * {@code accuracy} relative error of the exact ones. The memory used depends only on the
+ * range of the magnitudes recorded, not on the number of values. Infinite values are
+ * counted separately and are the smallest or largest values of the quantile queries.
+ * <p>Not thread-safe.
+ */
+public final class QuantileSketch {
+
+    /** The default relative accuracy of the quantiles. */
+    public static final double DEFAULT_ACCURACY = 0.01;
+
+    /** Magnitudes at or below this are counted as zero. */
+    static final double MIN_MAGNITUDE = 1e-12;
+
+    final double gamma;
+
+    final double logGamma;
+
+    final Store positive;
+
+    final Store negative;
+
+    long zeroCount;
+
+    long negativeInfinityCount;
+
+    long positiveInfinityCount;
+
+    long count;
+
+    double min;
+
+    double max;
+
+    public QuantileSketch() {
+        this(DEFAULT_ACCURACY);
+    }
+
+    public QuantileSketch(double accuracy) {
+        if (!(accuracy > 0d && accuracy < 1d)) {
+            throw new IllegalArgumentException("accuracy in (0, 1) required but it was " + accuracy);
+        }
+        this.gamma = (1 + accuracy) / (1 - accuracy);
+        this.logGamma = Math.log(gamma);
+        this.positive = new Store();
+        this.negative = new Store();
+        this.min = Double.POSITIVE_INFINITY;
+        this.max = Double.NEGATIVE_INFINITY;
+    }
+
+    /**
+     * Records a value; NaN is ignored.
+     * @param v the value
+     */
+    public void add(double v) {
+        if (v != v) {
+            return;
+        }
+        if (v == Double.POSITIVE_INFINITY) {
+            positiveInfinityCount++;
+        } else if (v == Double.NEGATIVE_INFINITY) {
+            negativeInfinityCount++;
+        } else if (v > MIN_MAGNITUDE) {
+            positive.add(index(v), 1);
+        } else if (v < -MIN_MAGNITUDE) {
+            negative.add(index(-v), 1);
+        } else {
+            zeroCount++;
+        }
+        count++;
+        min = Math.min(min, v);
+        max = Math.max(max, v);
+    }
+
+    /**
+     * Adds the values recorded by the other sketch to this sketch.
+     * @param other the other sketch with the same accuracy
+     */
+    public void merge(QuantileSketch other) {
+        if (other.gamma != gamma) {
+            throw new IllegalArgumentException("Sketches of different accuracy can't be merged");
+        }
+        positive.merge(other.positive);
+        negative.merge(other.negative);
+        zeroCount += other.zeroCount;
+        negativeInfinityCount += other.negativeInfinityCount;
+        positiveInfinityCount += other.positiveInfinityCount;
+        count += other.count;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Returns the approximate value at the given quantile.
+     * @param q the quantile in [0, 1]
+     * @return the value or NaN if no value was recorded
+     */
+    public double quantile(double q) {
+        if (!(q >= 0d && q <= 1d)) {
+            throw new IllegalArgumentException("q in [0, 1] required but it was " + q);
+        }
+        if (count == 0L) {
+            return Double.NaN;
+        }
+        long rank = (long)(q * (count - 1));
+        long ninf = negativeInfinityCount;
+        if (rank < ninf) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        rank -= ninf;
+        double v;
+        long n = negative.count;
+        long z = zeroCount;
+        if (rank >= n + z + positive.count) {
+            return Double.POSITIVE_INFINITY;
+        }
+        if (rank < n) {
+            // the negative store is ordered by magnitude, largest magnitude first in value order
+            v = -value(negative.indexAtRank(n - 1 - rank));
+        } else if (rank < n + z) {
+            v = 0d;
+        } else {
+            v = value(positive.indexAtRank(rank - n - z));
+        }
+        return Math.max(min, Math.min(max, v));
+    }
+
+    /**
+     * Returns the approximate values at the given quantiles.
+     * @param qs the quantiles, each in [0, 1]
+     * @return the new array of values
+     */
+    public double[] quantiles(double[] qs) {
+        double[] result = new double[qs.length];
+        for (int i = 0; i < qs.length; i++) {
+            result[i] = quantile(qs[i]);
+        }
+        return result;
+    }
+
+    public static Callable<QuantileSketch> supplier() {
+        return SketchSupplier.INSTANCE;
+    }
+
+    /**
+     * Returns a function that records the {@link Number#doubleValue()} of its input into the sketch.
+     * @return the function
+     */
+    public static BiFunction<QuantileSketch, Object, QuantileSketch> numberAdder() {
+        return NumberAdder.INSTANCE;
+    }
+
+    /**
+     * Returns a function that merges the sketches into a new sketch and returns its
+     * values at the given quantiles.
+     * @param qs the quantiles, each in [0, 1]
+     * @return the function
+     */
+    public static Function<List<QuantileSketch>, double[]> quantilesOf(double[] qs) {
+        return new QuantilesOf(qs);
+    }
+
+    int index(double magnitude) {
+        return (int)Math.ceil(Math.log(magnitude) / logGamma);
+    }
+
+    double value(int index) {
+        return 2 * Math.pow(gamma, index) / (gamma + 1);
+    }
+
+    /** Dense, growable bucket counts starting at bucket index {@code offset}. */
+    static final class Store {
+        long[] counts;
+
+        int offset;
+
+        long count;
+
+        void add(int index, long n) {
+            long[] c = counts;
+            if (c == null) {
+                c = new long[64];
+                counts = c;
+                offset = index - 32;
+            }
+            int i = index - offset;
+            if (i < 0 || i >= c.length) {
+                i = grow(index);
+                c = counts;
+            }
+            c[i] += n;
+            count += n;
+        }
+
+        int grow(int index) {
+            long[] c = counts;
+            int lo = Math.min(offset, index);
+            int hi = Math.max(offset + c.length, index + 1);
+            int len = c.length;
+            while (len < hi - lo) {
+                len <<= 1;
+            }
+            int newOffset = index < offset ? hi - len : lo;
+            long[] d = new long[len];
+            System.arraycopy(c, 0, d, offset - newOffset, c.length);
+            counts = d;
+            offset = newOffset;
+            return index - newOffset;
+        }
+
+        void merge(Store other) {
+            long[] c = other.counts;
+            if (c == null) {
+                return;
+            }
+            for (int i = 0; i < c.length; i++) {
+                if (c[i] != 0L) {
+                    add(other.offset + i, c[i]);
+                }
+            }
+        }
+
+        int indexAtRank(long rank) {
+            long[] c = counts;
+            long sum = 0L;
+            for (int i = 0; i < c.length; i++) {
+                sum += c[i];
+                if (sum > rank) {
+                    return offset + i;
+                }
+            }
+            return offset + c.length - 1;
+        }
+    }
+
+    enum SketchSupplier implements Callable<QuantileSketch> {
+        INSTANCE;
+
+        @Override
+        public QuantileSketch call() throws Exception {
+            return new QuantileSketch();
+        }
+    }
+
+    enum NumberAdder implements BiFunction<QuantileSketch, Object, QuantileSketch> {
+        INSTANCE;
+
+        @Override
+        public QuantileSketch apply(QuantileSketch sketch, Object t) throws Exception {
+            sketch.add(((Number)t).doubleValue());
+            return sketch;
+        }
+    }
+
+    static final class QuantilesOf implements Function<List<QuantileSketch>, double[]> {
+        final double[] qs;
+
+        QuantilesOf(double[] qs) {
+            this.qs = qs;
+        }
+
+        @Override
+        public double[] apply(List<QuantileSketch> sketches) throws Exception {
+            QuantileSketch merged = new QuantileSketch();
+            for (QuantileSketch s : sketches) {
+                merged.merge(s);
+            }
+            return merged.quantiles(qs);
+        }
+    }
+}
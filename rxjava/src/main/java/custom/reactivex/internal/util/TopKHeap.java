@@ -0,0 +1,113 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package custom.reactivex.internal.util;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+
+import custom.reactivex.functions.*;
+
+/**
+ * Keeps the {@code k} largest items, according to a Comparator, seen so far in a
+ * bounded min-heap whose head is the smallest item kept.
+ *
+ * @param <T> the item type
+ */
+public final class TopKHeap<T> {
+
+    final int k;
+
+    final Comparator<? super T> comparator;
+
+    final PriorityQueue<T> heap;
+
+    public TopKHeap(int k, Comparator<? super T> comparator) {
+        this.k = k;
+        this.comparator = comparator;
+        this.heap = new PriorityQueue<T>(Math.min(k, 1024) + 1, comparator);
+    }
+
+    /**
+     * Offers an item which is kept if it is among the {@code k} largest items so far;
+     * an item equal to the smallest kept item doesn't replace it.
+     * @param item the item
+     */
+    public void add(T item) {
+        PriorityQueue<T> h = heap;
+        if (h.size() < k) {
+            h.offer(item);
+        } else if (comparator.compare(item, h.peek()) > 0) {
+            h.poll();
+            h.offer(item);
+        }
+    }
+
+    /**
+     * Returns the kept items, largest first.
+     * @return the new list of items
+     */
+    public List<T> toList() {
+        List<T> list = new ArrayList<T>(heap);
+        Collections.sort(list, Collections.reverseOrder(comparator));
+        return list;
+    }
+
+    public static <T> Callable<TopKHeap<T>> supplier(int k, Comparator<? super T> comparator) {
+        return new HeapSupplier<T>(k, comparator);
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public static <T> BiConsumer<TopKHeap<T>, T> adder() {
+        return (BiConsumer)HeapAdder.INSTANCE;
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public static <T> Function<TopKHeap<T>, List<T>> toListFunction() {
+        return (Function)HeapToList.INSTANCE;
+    }
+
+    static final class HeapSupplier<T> implements Callable<TopKHeap<T>> {
+        final int k;
+
+        final Comparator<? super T> comparator;
+
+        HeapSupplier(int k, Comparator<? super T> comparator) {
+            this.k = k;
+            this.comparator = comparator;
+        }
+
+        @Override
+        public TopKHeap<T> call() throws Exception {
+            return new TopKHeap<T>(k, comparator);
+        }
+    }
+
+    enum HeapAdder implements BiConsumer<TopKHeap<Object>, Object> {
+        INSTANCE;
+
+        @Override
+        public void accept(TopKHeap<Object> h, Object t) throws Exception {
+            h.add(t);
+        }
+    }
+
+    enum HeapToList implements Function<TopKHeap<Object>, List<Object>> {
+        INSTANCE;
+
+        @Override
+        public List<Object> apply(TopKHeap<Object> h) throws Exception {
+            return h.toList();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package custom.reactivex.internal.util;
+
+/**
+ * Indicates how a blocking consumer waits for the next item of an asynchronous producer.
+ * <p>
+ * The default strategy can be set via the {@code rx2.blocking-wait-strategy} system property
+ * to one of the constant names; if not set or invalid, {@link #PARK} is used.
+ */
+public enum WaitStrategy {
+    /** Keep checking for the next item without ever yielding the CPU; lowest latency, burns a core. */
+    BUSY_SPIN {
+        @Override
+        public boolean idle(int round) {
+            return true;
+        }
+    },
+    /** Spin for a short while, then keep calling {@link Thread#yield()}. */
+    YIELD {
+        @Override
+        public boolean idle(int round) {
+            if (round >= SPIN_ROUNDS) {
+                Thread.yield();
+            }
+            return true;
+        }
+    },
+    /** Spin, then yield for a short while and finally park the consumer thread. */
+    SPIN_THEN_PARK {
+        @Override
+        public boolean idle(int round) {
+            if (round < SPIN_ROUNDS) {
+                return true;
+            }
+            if (round < SPIN_ROUNDS + YIELD_ROUNDS) {
+                Thread.yield();
+                return true;
+            }
+            return false;
+        }
+    },
+    /** Park the consumer thread as soon as there is nothing to consume. */
+    PARK {
+        @Override
+        public boolean idle(int round) {
+            return false;
+        }
+    };
+
+    /** The number of busy-spin rounds before yielding. */
+    static final int SPIN_ROUNDS = 100;
+
+    /** The number of yield rounds before parking. */
+    static final int YIELD_ROUNDS = 100;
+
+    static final String WAIT_STRATEGY_KEY = "rx2.blocking-wait-strategy";
+
+    /** The wait strategy used by the blocking operators unless specified otherwise. */
+    public static final WaitStrategy DEFAULT;
+
+    static {
+        WaitStrategy ws = PARK;
+        String name = System.getProperty(WAIT_STRATEGY_KEY);
+        if (name != null) {
+            try {
+                ws = valueOf(name);
+            } catch (IllegalArgumentException ex) {
+                // ignored, keep PARK
+            }
+        }
+        DEFAULT = ws;
+    }
+
+    /**
+     * Called when the consumer found nothing to consume for the given number of times
+     * in the current wait.
+     * @param round the number of times this method has been called during the current wait, zero based
+     * @return true if the consumer should check again, false if it should park
+     */
+    public abstract boolean idle(int round);
+
+    /**
+     * Returns true if consumers using this strategy may park and thus
+     * producers have to signal them.
+     * @return true if consumers may park
+     */
+    public boolean canPark() {
+        return this == SPIN_THEN_PARK || this == PARK;
+    }
+}
@@ -0,0 +1,195 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package custom.reactivex.plugins;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import custom.reactivex.*;
+import custom.reactivex.annotations.Experimental;
+import custom.reactivex.exceptions.AssemblyTraceException;
+import custom.reactivex.functions.Function;
+import custom.reactivex.internal.functions.ObjectHelper;
+import custom.reactivex.internal.operators.flowable.FlowableOnAssembly;
+import custom.reactivex.internal.operators.observable.ObservableOnAssembly;
+import custom.reactivex.internal.util.AssemblySites;
+
+/**
+ * Tracks where {@link Flowable}s and {@link Observable}s are assembled and attaches that call site,
+ * an {@link AssemblyTraceException}, to the errors passing through them without changing the errors
+ * signalled downstream.
+ * <p>
+ * The call sites of an error are available via {@link #sitesOf(Throwable)} and, where the platform
+ * supports it (Java 7, Android API 19), as suppressed exceptions of the error.
+ * <p>
+ * To keep the overhead low enough for production use, only 1 in every {@code sampleRate}
+ * assemblies is tracked: the stack is captured, but not materialized, when the operator is
+ * assembled and is resolved into a shared, cached call-site marker only if an error actually
+ * passes through. Operators assembled repeatedly at the same call site are thus covered over time.
+ * <p>
+ * Tracking is installed via the Flowable and Observable assembly hooks of {@link RxJavaPlugins},
+ * running any previously set hook first. Callable sources such as {@code just} are not tracked
+ * so the operators can keep optimizing for them.
+ */
+@Experimental
+public final class AssemblyTracking {
+
+    /** Utility class. */
+    private AssemblyTracking() {
+        throw new IllegalStateException("No instances!");
+    }
+
+    /** The default sampling rate used by {@link #enable()}. */
+    public static final int DEFAULT_SAMPLE_RATE = 1024;
+
+    static FlowableTracker flowableTracker;
+
+    static ObservableTracker observableTracker;
+
+    /**
+     * Starts tracking 1 in every {@link #DEFAULT_SAMPLE_RATE} assemblies.
+     */
+    public static void enable() {
+        enable(DEFAULT_SAMPLE_RATE);
+    }
+
+    /**
+     * Starts tracking 1 in every {@code sampleRate} assemblies, replacing a previous
+     * tracking setup.
+     * @param sampleRate the sampling rate, 1 tracks every assembly
+     * @throws IllegalStateException if the plugins are locked down
+     */
+    @SuppressWarnings("rawtypes")
+    public static synchronized void enable(int sampleRate) {
+        ObjectHelper.verifyPositive(sampleRate, "sampleRate");
+        disable();
+
+        FlowableTracker ft = new FlowableTracker(RxJavaPlugins.getOnFlowableAssembly(), sampleRate);
+        ObservableTracker ot = new ObservableTracker(RxJavaPlugins.getOnObservableAssembly(), sampleRate);
+        RxJavaPlugins.setOnFlowableAssembly(ft);
+        RxJavaPlugins.setOnObservableAssembly(ot);
+        flowableTracker = ft;
+        observableTracker = ot;
+    }
+
+    /**
+     * Stops tracking and restores the assembly hooks that were set before enabling, unless
+     * they have been changed since.
+     */
+    public static synchronized void disable() {
+        FlowableTracker ft = flowableTracker;
+        if (ft != null) {
+            if (RxJavaPlugins.getOnFlowableAssembly() == ft) {
+                RxJavaPlugins.setOnFlowableAssembly(ft.previous);
+            }
+            flowableTracker = null;
+        }
+        ObservableTracker ot = observableTracker;
+        if (ot != null) {
+            if (RxJavaPlugins.getOnObservableAssembly() == ot) {
+                RxJavaPlugins.setOnObservableAssembly(ot.previous);
+            }
+            observableTracker = null;
+        }
+    }
+
+    /**
+     * Returns true if tracking is enabled.
+     * @return true if tracking is enabled
+     */
+    public static synchronized boolean isEnabled() {
+        return flowableTracker != null;
+    }
+
+    /**
+     * Returns the assembly call sites attached to the given error while it passed
+     * through tracked operators.
+     * @param error the error, not null
+     * @return the new list of call sites, empty if none
+     */
+    public static List<AssemblyTraceException> sitesOf(Throwable error) {
+        ObjectHelper.requireNonNull(error, "error is null");
+        return AssemblySites.sitesOf(error);
+    }
+
+    @SuppressWarnings("rawtypes")
+    static final class FlowableTracker implements Function<Flowable, Flowable> {
+
+        final Function<Flowable, Flowable> previous;
+
+        final int sampleRate;
+
+        /** Racy on purpose, the sampling doesn't have to be exact. */
+        int count;
+
+        FlowableTracker(Function<Flowable, Flowable> previous, int sampleRate) {
+            this.previous = previous;
+            this.sampleRate = sampleRate;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public Flowable apply(Flowable f) throws Exception {
+            Function<Flowable, Flowable> p = previous;
+            if (p != null) {
+                f = p.apply(f);
+            }
+            if (f instanceof Callable) {
+                return f;
+            }
+            int c = count + 1;
+            if (c >= sampleRate) {
+                count = 0;
+                return new FlowableOnAssembly(f, new Throwable());
+            }
+            count = c;
+            return f;
+        }
+    }
+
+    @SuppressWarnings("rawtypes")
+    static final class ObservableTracker implements Function<Observable, Observable> {
+
+        final Function<Observable, Observable> previous;
+
+        final int sampleRate;
+
+        /** Racy on purpose, the sampling doesn't have to be exact. */
+        int count;
+
+        ObservableTracker(Function<Observable, Observable> previous, int sampleRate) {
+            this.previous = previous;
+            this.sampleRate = sampleRate;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public Observable apply(Observable o) throws Exception {
+            Function<Observable, Observable> p = previous;
+            if (p != null) {
+                o = p.apply(o);
+            }
+            if (o instanceof Callable) {
+                return o;
+            }
+            int c = count + 1;
+            if (c >= sampleRate) {
+                count = 0;
+                return new ObservableOnAssembly(o, new Throwable());
+            }
+            count = c;
+            return o;
+        }
+    }
+}
@@ -13,26 +13,31 @@
 
 package custom.reactivex.processors;
 
+import java.util.concurrent.atomic.*;
+
 import org.reactivestreams.*;
 
-import custom.reactivex.internal.util.*;
+import custom.reactivex.internal.queue.MpscLinkedQueue;
+import custom.reactivex.internal.util.NotificationLite;
 import custom.reactivex.plugins.RxJavaPlugins;
 
 /**
  * Serializes calls to the Subscriber methods.
  * <p>All other Publisher and Subject methods are thread-safe by design.
+ * <p>The serialization is lock-free: a caller finding another one emitting enqueues
+ * its event and leaves, the emitting caller drains the queue before it returns.
  *
  * @param <T> the item value type
  */
 /* public */ final class SerializedProcessor<T> extends FlowableProcessor<T> {
     /** The actual subscriber to serialize Subscriber calls to. */
     final FlowableProcessor<T> actual;
-    /** Indicates an emission is going on, guarded by this. */
-    boolean emitting;
-    /** If not null, it holds the missed NotificationLite events. */
-    AppendOnlyLinkedArrayList<Object> queue;
-    /** Indicates a terminal event has been received and all further events will be dropped. */
-    volatile boolean done;
+    /** Counts the callers that entered, the one moving it from zero emits. */
+    final AtomicInteger wip;
+    /** Holds the NotificationLite events of the callers that found an emission in progress. */
+    final MpscLinkedQueue<Object> queue;
+    /** The terminal NotificationLite event, set only once; all further events will be dropped. */
+    final AtomicReference<Object> terminal;
 
     /**
      * Constructor that wraps an actual subject.
@@ -40,6 +45,9 @@ import custom.reactivex.plugins.RxJavaPlugins;
      */
     SerializedProcessor(final FlowableProcessor<T> actual) {
         this.actual = actual;
+        this.wip = new AtomicInteger();
+        this.queue = new MpscLinkedQueue<Object>();
+        this.terminal = new AtomicReference<Object>();
     }
 
     @Override
@@ -47,132 +55,101 @@ import custom.reactivex.plugins.RxJavaPlugins;
         actual.subscribe(s);
     }
 
+
     @Override
     public void onSubscribe(Subscription s) {
-        boolean cancel;
-        if (!done) {
-            synchronized (this) {
-                if (done) {
-                    cancel = true;
-                } else {
-                    if (emitting) {
-                        AppendOnlyLinkedArrayList<Object> q = queue;
-                        if (q == null) {
-                            q = new AppendOnlyLinkedArrayList<Object>(4);
-                            queue = q;
-                        }
-                        q.add(NotificationLite.subscription(s));
-                        return;
-                    }
-                    emitting = true;
-                    cancel = false;
-                }
-            }
-        } else {
-            cancel = true;
-        }
-        if (cancel) {
+        if (terminal.get() != null) {
             s.cancel();
-        } else {
+            return;
+        }
+        AtomicInteger w = wip;
+        if (w.get() == 0 && w.compareAndSet(0, 1)) {
             actual.onSubscribe(s);
-            emitLoop();
+            if (w.decrementAndGet() == 0) {
+                return;
+            }
+        } else {
+            queue.offer(NotificationLite.subscription(s));
+            if (w.getAndIncrement() != 0) {
+                return;
+            }
         }
+        emitLoop();
     }
 
     @Override
     public void onNext(T t) {
-        if (done) {
+        if (terminal.get() != null) {
             return;
         }
-        synchronized (this) {
-            if (done) {
+        AtomicInteger w = wip;
+        if (w.get() == 0 && w.compareAndSet(0, 1)) {
+            actual.onNext(t);
+            if (w.decrementAndGet() == 0) {
                 return;
             }
-            if (emitting) {
-                AppendOnlyLinkedArrayList<Object> q = queue;
-                if (q == null) {
-                    q = new AppendOnlyLinkedArrayList<Object>(4);
-                    queue = q;
-                }
-                q.add(NotificationLite.next(t));
+        } else {
+            queue.offer(NotificationLite.next(t));
+            if (w.getAndIncrement() != 0) {
                 return;
             }
-            emitting = true;
         }
-        actual.onNext(t);
         emitLoop();
     }
 
     @Override
     public void onError(Throwable t) {
-        if (done) {
+        if (!terminal.compareAndSet(null, NotificationLite.error(t))) {
             RxJavaPlugins.onError(t);
             return;
         }
-        boolean reportError;
-        synchronized (this) {
-            if (done) {
-                reportError = true;
-            } else {
-                done = true;
-                if (emitting) {
-                    AppendOnlyLinkedArrayList<Object> q = queue;
-                    if (q == null) {
-                        q = new AppendOnlyLinkedArrayList<Object>(4);
-                        queue = q;
-                    }
-                    q.setFirst(NotificationLite.error(t));
-                    return;
-                }
-                reportError = false;
-                emitting = true;
-            }
-        }
-        if (reportError) {
-            RxJavaPlugins.onError(t);
-            return;
+        if (wip.getAndIncrement() == 0) {
+            emitLoop();
         }
-        actual.onError(t);
     }
 
     @Override
     public void onComplete() {
-        if (done) {
-            return;
-        }
-        synchronized (this) {
-            if (done) {
-                return;
-            }
-            done = true;
-            if (emitting) {
-                AppendOnlyLinkedArrayList<Object> q = queue;
-                if (q == null) {
-                    q = new AppendOnlyLinkedArrayList<Object>(4);
-                    queue = q;
-                }
-                q.add(NotificationLite.complete());
-                return;
-            }
-            emitting = true;
+        if (terminal.compareAndSet(null, NotificationLite.complete()) && wip.getAndIncrement() == 0) {
+            emitLoop();
         }
-        actual.onComplete();
     }
 
-    /** Loops until all notifications in the queue has been processed. */
+    /**
+     * Loops until all notifications in the queue has been processed; an error skips the
+     * queued notifications. Once the terminal event has been emitted, the work-in-progress
+     * counter is never decremented so nothing gets emitted again.
+     */
     void emitLoop() {
+        int missed = 1;
+        final MpscLinkedQueue<Object> q = queue;
+
         for (;;) {
-            AppendOnlyLinkedArrayList<Object> q;
-            synchronized (this) {
-                q = queue;
-                if (q == null) {
-                    emitting = false;
+            for (;;) {
+                Object term = terminal.get();
+                if (term != null && NotificationLite.isError(term)) {
+                    q.clear();
+                    actual.onError(NotificationLite.getError(term));
                     return;
                 }
-                queue = null;
+
+                Object o = q.poll();
+
+                if (o == null) {
+                    if (term != null) {
+                        actual.onComplete();
+                        return;
+                    }
+                    break;
+                }
+
+                NotificationLite.acceptFull(o, actual);
             }
 
-            q.accept(actual);
+            missed = wip.addAndGet(-missed);
+            if (missed == 0) {
+                break;
+            }
         }
     }
 
@@ -15,8 +15,11 @@ package custom.reactivex.schedulers;
 
 import java.util.concurrent.Callable;
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 import custom.reactivex.Scheduler;
+import custom.reactivex.annotations.Experimental;
+import custom.reactivex.internal.functions.ObjectHelper;
 import custom.reactivex.internal.schedulers.*;
 import custom.reactivex.plugins.RxJavaPlugins;
 
@@ -26,12 +29,18 @@ import custom.reactivex.plugins.RxJavaPlugins;
  * <strong>Supported system properties ({@code System.getProperty()}):</strong>
  * <ul>
  * <li>{@code rx2.io-priority} (int): sets the thread priority of the {@link #io()} Scheduler, default is {@link Thread#NORM_PRIORITY}</li>
+ * <li>{@code rx2.io-max-threads} (int): sets the maximum number of threads of the {@link #io()} Scheduler, default is unbounded</li>
+ * <li>{@code rx2.io-keep-alive} (long): sets the time, in seconds, the unused threads of the {@link #io()} Scheduler are kept alive, default is 60</li>
  * <li>{@code rx2.computation-threads} (int): sets the number of threads in the {@link #computation()} Scheduler, default is the number of available CPUs</li>
  * <li>{@code rx2.computation-priority} (int): sets the thread priority of the {@link #computation()} Scheduler, default is {@link Thread#NORM_PRIORITY}</li>
  * <li>{@code rx2.newthread-priority} (int): sets the thread priority of the {@link #newThread()} Scheduler, default is {@link Thread#NORM_PRIORITY}</li>
  * <li>{@code rx2.single-priority} (int): sets the thread priority of the {@link #single()} Scheduler, default is {@link Thread#NORM_PRIORITY}</li>
  * <li>{@code rx2.purge-enabled} (boolean): enables periodic purging of all Scheduler's backing thread pools, default is false</li>
  * <li>{@code rx2.purge-period-seconds} (int): specifies the periodic purge interval of all Scheduler's backing thread pools, default is 1 second</li>
+ * <li>{@code rx2.remove-on-cancel} (boolean): makes all Scheduler's backing thread pools remove cancelled tasks immediately instead of
+ * purging them periodically, ignored on Android below API 21, default is false</li>
+ * <li>{@code rx2.recycle-tasks} (boolean): lets the workers of the {@link #computation()}, {@link #io()} and {@link #newThread()}
+ * Schedulers reuse the wrappers of completed fire-and-forget tasks, such as the drain tasks of {@code observeOn}, default is false</li>
  * </ul>
  */
 public final class Schedulers {
@@ -179,6 +188,51 @@ public final class Schedulers {
         return new ExecutorScheduler(executor);
     }
 
+    /**
+     * Creates a new Scheduler intended for IO-bound work which, like {@link #io()}, caches and reuses
+     * its threads but runs at most {@code maxThreads} threads.
+     * <p>
+     * Once all threads are in use, new workers share the thread with the least workers and their
+     * tasks queue up behind the tasks of the other workers of that thread. Unused threads are
+     * reused most recently used first and stopped after being unused for the keep-alive time.
+     * The returned Scheduler should be {@link Scheduler#shutdown() shut down} when no longer needed.
+     *
+     * @param maxThreads the maximum number of threads, positive
+     * @param keepAliveTime the time an unused thread is kept alive, positive
+     * @param unit the time unit of {@code keepAliveTime}
+     * @return the new Scheduler
+     */
+    @Experimental
+    public static Scheduler elastic(int maxThreads, long keepAliveTime, TimeUnit unit) {
+        ObjectHelper.verifyPositive(maxThreads, "maxThreads");
+        ObjectHelper.verifyPositive(keepAliveTime, "keepAliveTime");
+        ObjectHelper.requireNonNull(unit, "unit is null");
+        return new IoScheduler(maxThreads, keepAliveTime, unit);
+    }
+
+    /**
+     * Wraps a Scheduler and limits the number of tasks running concurrently on it as well as
+     * the rate at which tasks are started.
+     * <p>
+     * Tasks scheduled on the workers of the returned Scheduler are queued and dispatched
+     * to the corresponding worker of the wrapped Scheduler in FIFO order once a concurrency
+     * permit and a rate token are available. The rate is enforced via a token bucket which
+     * allows bursts of up to {@code maxPerSecond} tasks.
+     *
+     * @param scheduler the Scheduler to wrap, not null
+     * @param maxConcurrency the maximum number of tasks running at the same time, positive
+     * @param maxPerSecond the maximum number of tasks started per second, positive
+     * @return the new Scheduler wrapping the given Scheduler
+     * @since 2.0
+     */
+    @Experimental
+    public static Scheduler limit(Scheduler scheduler, int maxConcurrency, int maxPerSecond) {
+        ObjectHelper.requireNonNull(scheduler, "scheduler is null");
+        ObjectHelper.verifyPositive(maxConcurrency, "maxConcurrency");
+        ObjectHelper.verifyPositive(maxPerSecond, "maxPerSecond");
+        return new LimitScheduler(scheduler, maxConcurrency, maxPerSecond);
+    }
+
     /**
      * Shuts down those standard Schedulers which support the SchedulerLifecycle interface.
      * <p>The operation is idempotent and thread-safe.
@@ -0,0 +1,398 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package custom.reactivex.schedulers;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import custom.reactivex.Scheduler;
+import custom.reactivex.annotations.Experimental;
+import custom.reactivex.disposables.Disposable;
+import custom.reactivex.internal.disposables.EmptyDisposable;
+import custom.reactivex.internal.functions.ObjectHelper;
+import custom.reactivex.internal.util.Pow2;
+
+/**
+ * A special, non thread-safe scheduler with the same API as {@link TestScheduler}, designed for
+ * simulations that advance the virtual time over a large number of tasks.
+ * <p>
+ * Delayed tasks are kept in a hierarchical timing wheel: a bucket of the first level covers one tick
+ * of virtual time, a bucket of each further level covers a whole rotation of the level below it. Tasks
+ * of a higher level bucket are redistributed to the lower levels once the clock reaches that bucket,
+ * so scheduling and advancing cost a constant amount per task and level. Advancing the clock jumps
+ * directly to the next non-empty bucket and orders only the tasks of the current tick by their due time
+ * and scheduling order, thus the order of execution is the same as with {@code TestScheduler}.
+ * Cancelled tasks are dropped lazily when their bucket is reached.
+ * <p>
+ * Tasks must be scheduled and the clock advanced from a single thread.
+ */
+@Experimental
+public final class VirtualTimeScheduler extends Scheduler {
+
+    static final long DEFAULT_TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    static final int DEFAULT_WHEEL_SIZE = 256;
+
+    final long tickNanos;
+
+    /** The number of bits of the tick covered by one level. */
+    final int bits;
+
+    final int mask;
+
+    /** The levels of buckets, each bucket the head of a linked list of tasks. */
+    final TimedTask[][] wheels;
+
+    /** The tasks of the tick being executed, ordered by time and then by scheduling order. */
+    final PriorityQueue<TimedTask> due;
+
+    /** The tasks scheduled without delay, executed before any other task. */
+    final ArrayDeque<TimedTask> immediate;
+
+    /** The tick the wheel is positioned at. */
+    long tick;
+
+    /** The tick whose tasks go directly into {@link #due}, {@code Long.MIN_VALUE} if none. */
+    long dueTick;
+
+    /** The per-scheduler global order counter. */
+    long counter;
+
+    // Storing time in nanoseconds internally.
+    volatile long time;
+
+    /**
+     * Constructs a VirtualTimeScheduler with 1 millisecond ticks and 256 buckets per level.
+     */
+    public VirtualTimeScheduler() {
+        this(DEFAULT_TICK_NANOS, TimeUnit.NANOSECONDS, DEFAULT_WHEEL_SIZE);
+    }
+
+    /**
+     * Constructs a VirtualTimeScheduler with the given tick duration and number of buckets per level.
+     * <p>
+     * Tasks falling into the same tick are ordered with a priority queue, therefore the tick should
+     * not be much larger than the typical distance between the due times of the tasks.
+     * @param tick the virtual time covered by a bucket of the first level, positive
+     * @param unit the unit of the tick
+     * @param wheelSize the number of buckets per level, at least 2, rounded up to the next power of two
+     */
+    public VirtualTimeScheduler(long tick, TimeUnit unit, int wheelSize) {
+        ObjectHelper.requireNonNull(unit, "unit is null");
+        ObjectHelper.verifyPositive(tick, "tick");
+        if (wheelSize < 2) {
+            throw new IllegalArgumentException("wheelSize >= 2 required but it was " + wheelSize);
+        }
+        this.tickNanos = Math.max(1L, unit.toNanos(tick));
+        int n = Pow2.roundToPowerOfTwo(wheelSize);
+        this.bits = Integer.numberOfTrailingZeros(n);
+        this.mask = n - 1;
+        int levels = (64 + bits - 1) / bits;
+        this.wheels = new TimedTask[levels][n];
+        this.due = new PriorityQueue<TimedTask>();
+        this.immediate = new ArrayDeque<TimedTask>();
+        this.dueTick = Long.MIN_VALUE;
+    }
+
+    @Override
+    public long now(TimeUnit unit) {
+        return unit.convert(time, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Moves the Scheduler's clock forward by a specified amount of time.
+     *
+     * @param delayTime
+     *          the amount of time to move the Scheduler's clock forward
+     * @param unit
+     *          the units of time that {@code delayTime} is expressed in
+     */
+    public void advanceTimeBy(long delayTime, TimeUnit unit) {
+        advanceTimeTo(time + unit.toNanos(delayTime), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Moves the Scheduler's clock to a particular moment in time, executing all
+     * tasks due until then in one pass over the wheel.
+     *
+     * @param delayTime
+     *          the point in time to move the Scheduler's clock to
+     * @param unit
+     *          the units of time that {@code delayTime} is expressed in
+     */
+    public void advanceTimeTo(long delayTime, TimeUnit unit) {
+        triggerActions(unit.toNanos(delayTime));
+    }
+
+    /**
+     * Triggers any actions that have not yet been triggered and that are scheduled to be triggered at or
+     * before this Scheduler's present time.
+     */
+    public void triggerActions() {
+        triggerActions(time);
+    }
+
+    long tickOf(long t) {
+        return t > 0L ? t / tickNanos : 0L;
+    }
+
+    private void triggerActions(long targetTime) {
+        long targetTick = tickOf(targetTime);
+        if (targetTick < tick) {
+            rewind(targetTick);
+        }
+
+        for (;;) {
+            long t = tick;
+            dueTick = t;
+            collect(t);
+
+            runDue(targetTime);
+
+            if (t >= targetTick) {
+                break;
+            }
+            moveTo(Math.min(nextTick(), targetTick));
+        }
+
+        dueTick = Long.MIN_VALUE;
+        for (;;) {
+            TimedTask t = due.poll();
+            if (t == null) {
+                break;
+            }
+            add(t);
+        }
+        time = targetTime;
+    }
+
+    private void runDue(long targetTime) {
+        for (;;) {
+            TimedTask t = immediate.poll();
+            if (t == null) {
+                t = due.peek();
+                if (t == null || t.time > targetTime) {
+                    break;
+                }
+                due.poll();
+                time = t.time;
+            }
+
+            // Only execute if not cancelled
+            if (!t.disposed && !t.worker.disposed) {
+                t.disposed = true;
+                t.run.run();
+            }
+        }
+    }
+
+    /**
+     * Moves the live tasks of the given tick from the first level into the due queue.
+     * @param t the current tick
+     */
+    private void collect(long t) {
+        TimedTask[] w = wheels[0];
+        int index = (int)t & mask;
+        TimedTask task = w[index];
+        w[index] = null;
+        while (task != null) {
+            TimedTask next = task.next;
+            task.next = null;
+            if (!task.disposed) {
+                due.offer(task);
+            }
+            task = next;
+        }
+    }
+
+    /**
+     * Returns the first tick after the current one that may have tasks: the start of the
+     * closest non-empty bucket, looking at the lower levels first.
+     * @return the next tick or {@code Long.MAX_VALUE} if the wheel is empty
+     */
+    private long nextTick() {
+        long t = tick;
+        for (int level = 0; level < wheels.length; level++) {
+            int shift = bits * level;
+            TimedTask[] w = wheels[level];
+            long block = t >>> shift;
+            int index = (int)block & mask;
+            for (int i = index + 1; i <= mask; i++) {
+                if (w[i] != null) {
+                    return (block - index + i) << shift;
+                }
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * Positions the wheel at the given later tick and redistributes the tasks of the higher
+     * level buckets the wheel has entered; there must be no tasks before that tick.
+     * @param t the new tick
+     */
+    private void moveTo(long t) {
+        long old = tick;
+        tick = t;
+        for (int level = wheels.length - 1; level > 0; level--) {
+            int shift = bits * level;
+            if ((t >>> shift) != (old >>> shift)) {
+                TimedTask[] w = wheels[level];
+                int index = (int)(t >>> shift) & mask;
+                TimedTask task = w[index];
+                w[index] = null;
+                while (task != null) {
+                    TimedTask next = task.next;
+                    task.next = null;
+                    if (!task.disposed) {
+                        add(task);
+                    }
+                    task = next;
+                }
+            }
+        }
+    }
+
+    /**
+     * Positions the wheel at the given earlier tick and redistributes all tasks.
+     * @param t the new tick
+     */
+    private void rewind(long t) {
+        ArrayList<TimedTask> list = new ArrayList<TimedTask>();
+        for (TimedTask[] w : wheels) {
+            for (int i = 0; i < w.length; i++) {
+                TimedTask task = w[i];
+                w[i] = null;
+                while (task != null) {
+                    TimedTask next = task.next;
+                    task.next = null;
+                    if (!task.disposed) {
+                        list.add(task);
+                    }
+                    task = next;
+                }
+            }
+        }
+        tick = t;
+        for (TimedTask task : list) {
+            add(task);
+        }
+    }
+
+    void add(TimedTask task) {
+        long t = task.tick;
+        if (t == dueTick) {
+            due.offer(task);
+            return;
+        }
+        // the level is determined by the highest bits in which the task's tick differs from the current one
+        long x = t ^ tick;
+        int level = x == 0L ? 0 : (63 - Long.numberOfLeadingZeros(x)) / bits;
+        TimedTask[] w = wheels[level];
+        int index = (int)(t >>> (bits * level)) & mask;
+        task.next = w[index];
+        w[index] = task;
+    }
+
+    @Override
+    public Worker createWorker() {
+        return new VirtualWorker();
+    }
+
+    static final class TimedTask implements Comparable<TimedTask>, Disposable {
+
+        final VirtualWorker worker;
+        final Runnable run;
+        final long time;
+        final long tick;
+        final long count; // for differentiating tasks at same time
+
+        /** The next task in the same bucket. */
+        TimedTask next;
+
+        volatile boolean disposed;
+
+        TimedTask(VirtualWorker worker, Runnable run, long time, long tick, long count) {
+            this.worker = worker;
+            this.run = run;
+            this.time = time;
+            this.tick = tick;
+            this.count = count;
+        }
+
+        @Override
+        public void dispose() {
+            disposed = true;
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return disposed;
+        }
+
+        @Override
+        public int compareTo(TimedTask o) {
+            if (time == o.time) {
+                return ObjectHelper.compare(count, o.count);
+            }
+            return ObjectHelper.compare(time, o.time);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("TimedTask(time = %d, run = %s)", time, run.toString());
+        }
+    }
+
+    final class VirtualWorker extends Worker {
+
+        volatile boolean disposed;
+
+        @Override
+        public void dispose() {
+            disposed = true;
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return disposed;
+        }
+
+        @Override
+        public Disposable schedule(Runnable run, long delayTime, TimeUnit unit) {
+            if (disposed) {
+                return EmptyDisposable.INSTANCE;
+            }
+            long t = time + Math.max(0L, unit.toNanos(delayTime));
+            TimedTask task = new TimedTask(this, run, t, Math.max(tickOf(t), tick), counter++);
+            add(task);
+            return task;
+        }
+
+        @Override
+        public Disposable schedule(Runnable run) {
+            if (disposed) {
+                return EmptyDisposable.INSTANCE;
+            }
+            TimedTask task = new TimedTask(this, run, time, tick, counter++);
+            immediate.offer(task);
+            return task;
+        }
+
+        @Override
+        public long now(TimeUnit unit) {
+            return VirtualTimeScheduler.this.now(unit);
+        }
+    }
+}
@@ -12,10 +12,13 @@
  */
 package custom.reactivex.subscribers;
 
+import java.util.concurrent.atomic.*;
+
 import org.reactivestreams.*;
 
+import custom.reactivex.internal.queue.MpscLinkedQueue;
 import custom.reactivex.internal.subscriptions.SubscriptionHelper;
-import custom.reactivex.internal.util.*;
+import custom.reactivex.internal.util.NotificationLite;
 import custom.reactivex.plugins.RxJavaPlugins;
 
 /**
@@ -26,20 +29,26 @@ import custom.reactivex.plugins.RxJavaPlugins;
  *
  * <p>The implementation assumes that the actual Subscriber's methods don't throw.
  *
+ * <p>The implementation is lock-free: a producer finding another one emitting
+ * enqueues its value and leaves, the emitting producer drains the queue before it
+ * returns.
+ *
  * @param <T> the value type
  */
 public final class SerializedSubscriber<T> implements Subscriber<T>, Subscription {
     final Subscriber<? super T> actual;
     final boolean delayError;
 
-    static final int QUEUE_LINK_SIZE = 4;
-
     Subscription subscription;
 
-    boolean emitting;
-    AppendOnlyLinkedArrayList<Object> queue;
+    /** Counts the producers that entered, the one moving it from zero emits. */
+    final AtomicInteger wip;
+
+    /** Holds the values of the producers that found an emission in progress. */
+    final MpscLinkedQueue<T> queue;
 
-    volatile boolean done;
+    /** The terminal NotificationLite event, set only once. */
+    final AtomicReference<Object> terminal;
 
     /**
      * Construct a SerializedSubscriber by wrapping the given actual Subscriber.
@@ -59,6 +68,9 @@ public final class SerializedSubscriber<T> implements Subscriber<T>, Subscriptio
     public SerializedSubscriber(Subscriber<? super T> actual, boolean delayError) {
         this.actual = actual;
         this.delayError = delayError;
+        this.wip = new AtomicInteger();
+        this.queue = new MpscLinkedQueue<T>();
+        this.terminal = new AtomicReference<Object>();
     }
 
     @Override
@@ -71,7 +83,7 @@ public final class SerializedSubscriber<T> implements Subscriber<T>, Subscriptio
 
     @Override
     public void onNext(T t) {
-        if (done) {
+        if (terminal.get() != null) {
             return;
         }
         if (t == null) {
@@ -79,108 +91,73 @@ public final class SerializedSubscriber<T> implements Subscriber<T>, Subscriptio
             onError(new NullPointerException("onNext called with null. Null values are generally not allowed in 2.x operators and sources."));
             return;
         }
-        synchronized (this) {
-            if (done) {
+        AtomicInteger w = wip;
+        if (w.get() == 0 && w.compareAndSet(0, 1)) {
+            actual.onNext(t);
+            if (w.decrementAndGet() == 0) {
                 return;
             }
-            if (emitting) {
-                AppendOnlyLinkedArrayList<Object> q = queue;
-                if (q == null) {
-                    q = new AppendOnlyLinkedArrayList<Object>(QUEUE_LINK_SIZE);
-                    queue = q;
-                }
-                q.add(NotificationLite.next(t));
+        } else {
+            queue.offer(t);
+            if (w.getAndIncrement() != 0) {
                 return;
             }
-            emitting = true;
         }
-
-        actual.onNext(t);
-
         emitLoop();
     }
 
     @Override
     public void onError(Throwable t) {
-        if (done) {
+        if (!terminal.compareAndSet(null, NotificationLite.error(t))) {
             RxJavaPlugins.onError(t);
             return;
         }
-        boolean reportError;
-        synchronized (this) {
-            if (done) {
-                reportError = true;
-            } else
-            if (emitting) {
-                done = true;
-                AppendOnlyLinkedArrayList<Object> q = queue;
-                if (q == null) {
-                    q = new AppendOnlyLinkedArrayList<Object>(QUEUE_LINK_SIZE);
-                    queue = q;
-                }
-                Object err = NotificationLite.error(t);
-                if (delayError) {
-                    q.add(err);
-                } else {
-                    q.setFirst(err);
-                }
-                return;
-            } else {
-                done = true;
-                emitting = true;
-                reportError = false;
-            }
-        }
-
-        if (reportError) {
-            RxJavaPlugins.onError(t);
-            return;
+        if (wip.getAndIncrement() == 0) {
+            emitLoop();
         }
-
-        actual.onError(t);
-        // no need to loop because this onError is the last event
     }
 
     @Override
     public void onComplete() {
-        if (done) {
-            return;
-        }
-        synchronized (this) {
-            if (done) {
-                return;
-            }
-            if (emitting) {
-                AppendOnlyLinkedArrayList<Object> q = queue;
-                if (q == null) {
-                    q = new AppendOnlyLinkedArrayList<Object>(QUEUE_LINK_SIZE);
-                    queue = q;
-                }
-                q.add(NotificationLite.complete());
-                return;
-            }
-            done = true;
-            emitting = true;
+        if (terminal.compareAndSet(null, NotificationLite.complete()) && wip.getAndIncrement() == 0) {
+            emitLoop();
         }
-
-        actual.onComplete();
-        // no need to loop because this onComplete is the last event
     }
 
+    /**
+     * Emits the queued values and the terminal event; once the terminal event has been
+     * emitted, the work-in-progress counter is never decremented so nothing gets emitted again.
+     */
     void emitLoop() {
+        int missed = 1;
+        final MpscLinkedQueue<T> q = queue;
+        final Subscriber<? super T> a = actual;
+
         for (;;) {
-            AppendOnlyLinkedArrayList<Object> q;
-            synchronized (this) {
-                q = queue;
-                if (q == null) {
-                    emitting = false;
+            for (;;) {
+                Object term = terminal.get();
+                if (term != null && !delayError && NotificationLite.isError(term)) {
+                    q.clear();
+                    a.onError(NotificationLite.getError(term));
                     return;
                 }
-                queue = null;
+
+                T v = q.poll();
+
+                if (v == null) {
+                    if (term != null) {
+                        NotificationLite.accept(term, a);
+                        return;
+                    }
+                    break;
+                }
+
+                a.onNext(v);
             }
 
-            if (q.accept(actual)) {
-                return;
+            missed = wip.addAndGet(-missed);
+            if (missed == 0) {
+                break;
             }
         }
     }